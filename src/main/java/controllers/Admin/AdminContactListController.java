@@ -12,6 +12,7 @@ import javafx.scene.layout.VBox;
 import javafx.scene.layout.HBox;
 import javafx.scene.text.Text;
 import services.ContactService;
+import utils.DatabaseExecutor;
 
 import java.net.URL;
 import java.sql.SQLException;
@@ -101,7 +102,7 @@ public class AdminContactListController implements Initializable {
         
         // Admin actions to change status (visible only to Admin/Super Admin)
         User currentUser = UserSession.getInstance().getCurrentUser();
-        boolean canManage = currentUser != null && (currentUser.getRole().contains("ROLE_ADMIN") || currentUser.getRole().contains("ROLE_SUPER_ADMIN"));
+        boolean canManage = currentUser != null && currentUser.isAdministrator();
         if (canManage) {
             HBox actions = new HBox(10);
             Button approveBtn = new Button("Approve");
@@ -151,8 +152,7 @@ public class AdminContactListController implements Initializable {
     }
 
     private void loadContacts() {
-        try {
-            List<Contact> contacts = contactService.afficher();
+        contactService.afficherAsync().thenAccept(contacts -> {
             contactList.clear();
             contactList.addAll(contacts);
             
@@ -161,11 +161,13 @@ public class AdminContactListController implements Initializable {
             
             System.out.println("Loaded " + contacts.size() + " contact messages");
             
-        } catch (SQLException e) {
-            System.err.println("Error loading contacts: " + e.getMessage());
-            e.printStackTrace();
+        }).exceptionally(e -> {
+            Throwable cause = DatabaseExecutor.unwrap(e);
+            System.err.println("Error loading contacts: " + cause.getMessage());
+            cause.printStackTrace();
             messageCountLabel.setText("Error");
-        }
+            return null;
+        });
     }
 
     @FXML
@@ -1,6 +1,5 @@
 package controllers.Admin;
 
-import entities.User;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -13,11 +12,10 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.BorderPane;
 import javafx.stage.Stage;
 import services.UserService;
+import utils.DatabaseExecutor;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
-import java.util.List;
 import java.util.ResourceBundle;
 
 public class AdminDashboardController implements Initializable {
@@ -44,36 +42,23 @@ public class AdminDashboardController implements Initializable {
     }
 
     private void loadUserStatistics() {
-        try {
-            List<User> allUsers = userService.getAllUsers();
-            
-            int superAdminCount = 0;
-            int adminCount = 0;
-            int clientCount = 0;
-            
-            for (User user : allUsers) {
-                if (user.getRole().contains("ROLE_SUPER_ADMIN")) {
-                    superAdminCount++;
-                } else if (user.getRole().contains("ROLE_ADMIN")) {
-                    adminCount++;
-                } else if (user.getRole().contains("ROLE_USER")) {
-                    clientCount++;
-                }
-            }
+        // Comptage en flux côté service : la liste complète des utilisateurs n'est pas chargée
+        userService.countUsersByRoleAsync().thenAccept(counts -> {
+            superAdminCountLabel.setText(String.valueOf(counts.getOrDefault("ROLE_SUPER_ADMIN", 0L)));
+            adminCountLabel.setText(String.valueOf(counts.getOrDefault("ROLE_ADMIN", 0L)));
+            clientCountLabel.setText(String.valueOf(counts.getOrDefault("ROLE_USER", 0L)));
             
-            superAdminCountLabel.setText(String.valueOf(superAdminCount));
-            adminCountLabel.setText(String.valueOf(adminCount));
-            clientCountLabel.setText(String.valueOf(clientCount));
-            
-        } catch (SQLException e) {
-            System.err.println("Error loading user statistics: " + e.getMessage());
-            e.printStackTrace();
+        }).exceptionally(e -> {
+            Throwable cause = DatabaseExecutor.unwrap(e);
+            System.err.println("Error loading user statistics: " + cause.getMessage());
+            cause.printStackTrace();
             
             // Set default values in case of error
             superAdminCountLabel.setText("0");
             adminCountLabel.setText("0");
             clientCountLabel.setText("0");
-        }
+            return null;
+        });
     }
 
     /**
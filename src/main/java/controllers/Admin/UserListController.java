@@ -1,11 +1,23 @@
 package controllers.Admin;
 
+import entities.BulkActionResult;
+import entities.Role;
 import entities.User;
+import entities.UserChanges;
+import entities.UserFilter;
+import entities.UserImportReport;
+import entities.UserPage;
 import entities.UserSession;
+import entities.UserSummary;
+import services.UserImportService;
 import services.UserService;
+import utils.DatabaseExecutor;
 import utils.ValidationUtils;
 import utils.SceneManager;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -18,20 +30,29 @@ import javafx.scene.control.*;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.net.URL;
+import java.text.Collator;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.ResourceBundle;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class UserListController implements Initializable {
 
     @FXML
-    private ListView<User> userListView;
+    private ListView<UserSummary> userListView;
 
     @FXML
     private Button backButton;
@@ -42,9 +63,34 @@ public class UserListController implements Initializable {
     @FXML
     private Button addUserButton;
 
+    @FXML
+    private Button importUsersButton;
+
     @FXML
     private Label messageLabel;
 
+    // Bulk actions on the selected users
+    @FXML
+    private HBox bulkActionsBox;
+
+    @FXML
+    private Label selectionLabel;
+
+    @FXML
+    private Button bulkBlockButton;
+
+    @FXML
+    private Button bulkUnblockButton;
+
+    @FXML
+    private Button bulkMakeAdminButton;
+
+    @FXML
+    private Button bulkMakeClientButton;
+
+    @FXML
+    private Button bulkDeleteButton;
+
     // Search and filter components
     @FXML
     private TextField searchField;
@@ -78,26 +124,38 @@ public class UserListController implements Initializable {
     private ComboBox<Integer> pageSizeComboBox;
 
     private UserService userService;
-    private ObservableList<User> allUsers;
-    private ObservableList<User> filteredUsers;
-    private ObservableList<User> displayedUsers;
+    private ObservableList<UserSummary> displayedUsers;
     
-    // Pagination variables
+    // Pagination variables : pages lues par curseur (nom, id), filtres appliqués en SQL
+    private UserFilter currentFilter;
+    private UserPage currentUserPage;
+    private long totalUsers;
     private int currentPage = 1;
     private int pageSize = 7;
     private int totalPages = 1;
+    private int requestSequence;
+    private List<UserSummary> searchResults;
+    private PauseTransition searchDelay;
+    // Repère du dernier chargement de page, pour le rafraîchissement incrémental (null : relire la page)
+    private Timestamp changesWatermark;
+    // Ordre des noms proche de la collation de la base (utf8mb4_unicode_ci : sans casse ni accents)
+    private final Collator nameOrder = createNameOrder();
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         // Initialiser le service utilisateur
         userService = UserService.getInstance();
-        allUsers = FXCollections.observableArrayList();
-        filteredUsers = FXCollections.observableArrayList();
         displayedUsers = FXCollections.observableArrayList();
+        searchDelay = new PauseTransition(Duration.millis(300));
+        searchDelay.setOnFinished(event -> applyFiltersAndPagination());
         
         // Configurer la ListView pour afficher les utilisateurs
         userListView.setItems(displayedUsers);
         userListView.setCellFactory(listView -> new UserListCell());
+        userListView.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        userListView.getSelectionModel().getSelectedItems()
+                .addListener((ListChangeListener<UserSummary>) change -> updateBulkActions());
+        initializeBulkActions();
         
         // Initialiser les composants de recherche et filtrage
         initializeSearchAndFilters();
@@ -136,9 +194,9 @@ public class UserListController implements Initializable {
     /**
      * Cellule personnalisée pour afficher les utilisateurs
      */
-    private class UserListCell extends ListCell<User> {
+    private class UserListCell extends ListCell<UserSummary> {
         @Override
-        protected void updateItem(User user, boolean empty) {
+        protected void updateItem(UserSummary user, boolean empty) {
             super.updateItem(user, empty);
             
             if (empty || user == null) {
@@ -185,12 +243,12 @@ public class UserListController implements Initializable {
                 
                 // Add role toggle button only for super admin
                 User currentUser = UserSession.getInstance().getCurrentUser();
-                if (currentUser != null && currentUser.getRole().contains("ROLE_SUPER_ADMIN")) {
+                if (currentUser != null && currentUser.hasRole(Role.SUPER_ADMIN)) {
                     // Only show role toggle for users who are either ADMIN or CLIENT (not SUPER_ADMIN)
-                    boolean canToggleRole = !user.getRole().contains("ROLE_SUPER_ADMIN");
+                    boolean canToggleRole = !user.hasRole(Role.SUPER_ADMIN);
                     
                     if (canToggleRole) {
-                        boolean isAdmin = user.getRole().contains("ROLE_ADMIN");
+                        boolean isAdmin = user.hasRole(Role.ADMIN);
                         Button toggleRoleButton = new Button(isAdmin ? "Make Client" : "Make Admin");
                         toggleRoleButton.setStyle(isAdmin ? 
                             "-fx-background-color: #FF9800; -fx-text-fill: white; -fx-padding: 5 10; -fx-background-radius: 3;" :
@@ -201,9 +259,9 @@ public class UserListController implements Initializable {
                 }
 
                 // Add block/unblock button for admin and super admin (only for clients/users)
-                if (currentUser != null && (currentUser.getRole().contains("ROLE_ADMIN") || currentUser.getRole().contains("ROLE_SUPER_ADMIN"))) {
+                if (currentUser != null && currentUser.isAdministrator()) {
                     // Only show block button for regular users (ROLE_USER), not for admins or super admins
-                    boolean isRegularUser = user.getRole().contains("ROLE_USER") && !user.getRole().contains("ROLE_ADMIN") && !user.getRole().contains("ROLE_SUPER_ADMIN");
+                    boolean isRegularUser = user.isClient();
                     
                     if (isRegularUser) {
                         Button blockButton = new Button(user.isBlocked() ? "Unblock User" : "Block User");
@@ -221,8 +279,8 @@ public class UserListController implements Initializable {
                     }
 
                     // For super admin: allow deleting admin users (but not super admins)
-                    boolean isAdminUser = user.getRole().contains("ROLE_ADMIN") && !user.getRole().contains("ROLE_SUPER_ADMIN");
-                    if (currentUser.getRole().contains("ROLE_SUPER_ADMIN") && isAdminUser) {
+                    boolean isAdminUser = user.hasRole(Role.ADMIN) && !user.hasRole(Role.SUPER_ADMIN);
+                    if (currentUser.hasRole(Role.SUPER_ADMIN) && isAdminUser) {
                         Button deleteAdminButton = new Button("Delete Admin");
                         deleteAdminButton.setStyle("-fx-background-color: #F44336; -fx-text-fill: white; -fx-padding: 5 10; -fx-background-radius: 3;");
                         deleteAdminButton.setOnAction(e -> deleteUser(user));
@@ -237,109 +295,186 @@ public class UserListController implements Initializable {
     }
 
     /**
-     * Charger la liste des utilisateurs
+     * Recharger la page courante (après une modification) et le total
      */
     private void loadUsers() {
-        try {
-            // Get current user from session
-            User currentUser = UserSession.getInstance().getCurrentUser();
-            List<User> users;
-            
-            if (currentUser != null) {
-                // Exclude current user and super admin from list
-                users = userService.getAllUsersExcludingCurrentAndSuperAdmin(currentUser.getId());
-            } else {
-                // Fallback to all users if no session
-                users = userService.getAllUsers();
-            }
-            
-            allUsers.clear();
-            allUsers.addAll(users);
-            
-            // Appliquer les filtres et la pagination
-            applyFiltersAndPagination();
-            
-            messageLabel.setText("Total users: " + allUsers.size() + " | Showing: " + displayedUsers.size());
-        } catch (SQLException e) {
-            messageLabel.setText("Error loading users: " + e.getMessage());
-            e.printStackTrace();
+        if (currentFilter == null) {
+            currentFilter = buildFilter();
+        }
+        if (currentFilter.getSearchText() != null) {
+            loadSearchResults(currentPage);
+            return;
         }
+        UserPage.Key start = currentUserPage == null ? null : currentUserPage.getFirstKey();
+        // Reprendre juste avant la première ligne affichée : les ids étant entiers, aucune ligne ne s'intercale
+        UserPage.Key before = start == null ? null : new UserPage.Key(start.getName(), start.getId() - 1);
+        showPage(userService.countUsersAsync(currentFilter),
+                userService.getUserPageAfterAsync(currentFilter, before, pageSize), start == null ? 1 : currentPage);
     }
 
     /**
-     * Appliquer les filtres et la pagination
+     * Appliquer les filtres : recompter et revenir à la première page
      */
     private void applyFiltersAndPagination() {
-        // Appliquer les filtres
-        String searchText = searchField.getText() == null ? "" : searchField.getText().toLowerCase().trim();
+        currentFilter = buildFilter();
+        if (currentFilter.getSearchText() != null) {
+            loadSearchResults(1);
+            return;
+        }
+        searchResults = null;
+        showPage(userService.countUsersAsync(currentFilter),
+                userService.getUserPageAfterAsync(currentFilter, null, pageSize), 1);
+    }
+
+    /**
+     * Critères de la liste : recherche et statut, sans l'utilisateur connecté ni les super admins
+     */
+    private UserFilter buildFilter() {
         String statusFilter = statusFilterComboBox.getValue();
+        Boolean blocked = "Blocked".equals(statusFilter) ? Boolean.TRUE
+                : "Active".equals(statusFilter) ? Boolean.FALSE : null;
+        User currentUser = UserSession.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            // Sans session : tous les utilisateurs
+            return new UserFilter(searchField.getText(), blocked, null, null, false);
+        }
+        return new UserFilter(searchField.getText(), blocked, null, currentUser.getId(), true);
+    }
 
-        filteredUsers.clear();
-        filteredUsers.addAll(allUsers.stream()
-                .filter(user -> {
-                    // Filtre de recherche
-                    boolean matchesSearch = searchText.isEmpty() || 
-                            user.getName().toLowerCase().contains(searchText) ||
-                            user.getEmail().toLowerCase().contains(searchText) ||
-                            user.getPhone_number().contains(searchText);
-
-                    // Filtre de statut (seulement Active/Blocked)
-                    boolean matchesStatus = statusFilter == null || statusFilter.isEmpty() ||
-                            ("Active".equals(statusFilter) && !user.isBlocked()) ||
-                            ("Blocked".equals(statusFilter) && user.isBlocked());
-
-                    return matchesSearch && matchesStatus;
-                })
-                .collect(Collectors.toList()));
-
-        // Calculer la pagination
-        totalPages = (int) Math.ceil((double) filteredUsers.size() / pageSize);
-        if (totalPages == 0) totalPages = 1;
-        
-        // Ajuster la page courante si nécessaire
-        if (currentPage > totalPages) {
+    /**
+     * Afficher une page à sa réception ; une réponse dépassée par une requête plus récente est ignorée
+     * @param count Nouveau total, ou null pour garder le total courant
+     * @param page Page demandée
+     * @param pageNumber Numéro de la page, ou négatif en partant de la fin (-1 = dernière page)
+     */
+    private void showPage(CompletableFuture<Long> count, CompletableFuture<UserPage> page, int pageNumber) {
+        int request = ++requestSequence;
+        messageLabel.setText("Loading users...");
+        // Repère lu après la page : les écritures entre les deux sont relues grâce au recouvrement du service
+        changesWatermark = null;
+        userService.getUserChangesAsync(currentFilter, null).thenAccept(changes -> {
+            if (request == requestSequence) {
+                changesWatermark = changes.getWatermark();
+            }
+        }).exceptionally(e -> {
+            DatabaseExecutor.unwrap(e).printStackTrace();
+            return null;
+        });
+        CompletableFuture<Long> total = count != null ? count : CompletableFuture.completedFuture(totalUsers);
+        total.thenCombine(page, (loadedTotal, loadedPage) -> {
+            if (request == requestSequence) {
+                totalUsers = loadedTotal;
+                displayPage(loadedPage, pageNumber);
+            }
+            return null;
+        }).exceptionally(e -> {
+            Throwable cause = DatabaseExecutor.unwrap(e);
+            if (request == requestSequence) {
+                messageLabel.setText("Error loading users: " + cause.getMessage());
+            }
+            cause.printStackTrace();
+            return null;
+        });
+    }
+
+    private void displayPage(UserPage page, int pageNumber) {
+        currentUserPage = page;
+        totalPages = Math.max(1, (int) Math.ceil((double) totalUsers / pageSize));
+        if (!page.hasPrevious()) {
+            currentPage = 1;
+        } else if (pageNumber == -1 && !isTotalCapped()) {
             currentPage = totalPages;
+        } else {
+            currentPage = pageNumber;
         }
+        displayedUsers.setAll(page.getUsers());
+        showTotals();
+    }
 
-        // Appliquer la pagination
-        int startIndex = (currentPage - 1) * pageSize;
-        int endIndex = Math.min(startIndex + pageSize, filteredUsers.size());
+    private void showTotals() {
+        updatePaginationButtons();
+        updatePageInfo();
+        messageLabel.setText("Total users: " + totalUsers + (isTotalCapped() ? "+" : "")
+                + " | Showing: " + displayedUsers.size());
+    }
 
-        displayedUsers.clear();
-        if (startIndex < filteredUsers.size()) {
-            displayedUsers.addAll(filteredUsers.subList(startIndex, endIndex));
-        }
+    /**
+     * Recherche : résultats classés par pertinence (index user_search_token), paginés sur place
+     * @param pageNumber Page à afficher une fois les résultats reçus
+     */
+    private void loadSearchResults(int pageNumber) {
+        int request = ++requestSequence;
+        messageLabel.setText("Searching...");
+        userService.searchUsersAsync(currentFilter, UserService.SEARCH_RESULT_LIMIT).thenAccept(results -> {
+            if (request == requestSequence) {
+                searchResults = results;
+                totalUsers = results.size();
+                showSearchPage(pageNumber);
+            }
+        }).exceptionally(e -> {
+            Throwable cause = DatabaseExecutor.unwrap(e);
+            if (request == requestSequence) {
+                messageLabel.setText("Error searching users: " + cause.getMessage());
+            }
+            cause.printStackTrace();
+            return null;
+        });
+    }
+
+    private void showSearchPage(int pageNumber) {
+        totalPages = Math.max(1, (int) Math.ceil((double) searchResults.size() / pageSize));
+        currentPage = Math.max(1, Math.min(pageNumber, totalPages));
+        int startIndex = (currentPage - 1) * pageSize;
+        int endIndex = Math.min(startIndex + pageSize, searchResults.size());
+        currentUserPage = new UserPage(searchResults.subList(startIndex, endIndex),
+                currentPage > 1, currentPage < totalPages);
+        displayedUsers.setAll(currentUserPage.getUsers());
 
         updatePaginationButtons();
         updatePageInfo();
+        messageLabel.setText("Results: " + searchResults.size()
+                + (searchResults.size() >= UserService.SEARCH_RESULT_LIMIT ? " (best matches)" : "")
+                + " | Showing: " + displayedUsers.size());
+    }
+
+    private boolean isTotalCapped() {
+        return searchResults == null && totalUsers >= UserService.USER_COUNT_LIMIT;
     }
 
     /**
      * Mettre à jour les boutons de pagination
      */
     private void updatePaginationButtons() {
-        firstPageButton.setDisable(currentPage <= 1);
-        prevPageButton.setDisable(currentPage <= 1);
-        nextPageButton.setDisable(currentPage >= totalPages);
-        lastPageButton.setDisable(currentPage >= totalPages);
+        boolean hasPrevious = currentUserPage != null && currentUserPage.hasPrevious();
+        boolean hasNext = currentUserPage != null && currentUserPage.hasNext();
+        firstPageButton.setDisable(!hasPrevious);
+        prevPageButton.setDisable(!hasPrevious);
+        nextPageButton.setDisable(!hasNext);
+        lastPageButton.setDisable(!hasNext);
     }
 
     /**
      * Mettre à jour les informations de page
      */
     private void updatePageInfo() {
-        pageInfoLabel.setText("Page " + currentPage + " of " + totalPages);
+        if (currentPage > 0) {
+            pageInfoLabel.setText("Page " + currentPage + " of " + totalPages + (isTotalCapped() ? "+" : ""));
+        } else if (currentPage == -1) {
+            // Total plafonné : le numéro de la dernière page n'est pas connu
+            pageInfoLabel.setText("Last page");
+        } else {
+            pageInfoLabel.setText((-currentPage - 1) + " pages before last");
+        }
     }
 
     // Gestionnaires d'événements pour la recherche et le filtrage
 
     /**
-     * Gestionnaire pour la recherche
+     * Gestionnaire pour la recherche : requête lancée après une courte pause dans la saisie
      */
     @FXML
     private void handleSearch() {
-        currentPage = 1; // Revenir à la première page lors d'une recherche
-        applyFiltersAndPagination();
+        searchDelay.playFromStart();
     }
 
     /**
@@ -347,7 +482,6 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handleRoleFilter() {
-        currentPage = 1;
         applyFiltersAndPagination();
     }
 
@@ -356,7 +490,6 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handleStatusFilter() {
-        currentPage = 1;
         applyFiltersAndPagination();
     }
 
@@ -365,9 +498,9 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handleClearFilters() {
+        searchDelay.stop();
         if (searchField != null) searchField.clear();
         if (statusFilterComboBox != null) statusFilterComboBox.setValue(null);
-        currentPage = 1;
         applyFiltersAndPagination();
     }
 
@@ -378,8 +511,11 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handleFirstPage() {
-        currentPage = 1;
-        applyFiltersAndPagination();
+        if (searchResults != null) {
+            showSearchPage(1);
+            return;
+        }
+        showPage(null, userService.getUserPageAfterAsync(currentFilter, null, pageSize), 1);
     }
 
     /**
@@ -387,9 +523,13 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handlePrevPage() {
-        if (currentPage > 1) {
-            currentPage--;
-            applyFiltersAndPagination();
+        if (searchResults != null) {
+            showSearchPage(currentPage - 1);
+            return;
+        }
+        if (currentUserPage != null && currentUserPage.hasPrevious()) {
+            showPage(null, userService.getUserPageBeforeAsync(currentFilter, currentUserPage.getFirstKey(), pageSize),
+                    currentPage - 1);
         }
     }
 
@@ -398,9 +538,13 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handleNextPage() {
-        if (currentPage < totalPages) {
-            currentPage++;
-            applyFiltersAndPagination();
+        if (searchResults != null) {
+            showSearchPage(currentPage + 1);
+            return;
+        }
+        if (currentUserPage != null && currentUserPage.hasNext()) {
+            showPage(null, userService.getUserPageAfterAsync(currentFilter, currentUserPage.getLastKey(), pageSize),
+                    currentPage + 1);
         }
     }
 
@@ -409,8 +553,11 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handleLastPage() {
-        currentPage = totalPages;
-        applyFiltersAndPagination();
+        if (searchResults != null) {
+            showSearchPage(totalPages);
+            return;
+        }
+        showPage(null, userService.getUserPageBeforeAsync(currentFilter, null, pageSize), -1);
     }
 
     /**
@@ -418,9 +565,16 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handlePageSizeChange() {
-        pageSize = pageSizeComboBox.getValue();
-        currentPage = 1; // Revenir à la première page
-        applyFiltersAndPagination();
+        Integer selected = pageSizeComboBox.getValue();
+        if (selected == null || selected == pageSize) {
+            return;
+        }
+        pageSize = selected;
+        if (searchResults != null) {
+            showSearchPage(1);
+            return;
+        }
+        showPage(null, userService.getUserPageAfterAsync(currentFilter, null, pageSize), 1);
     }
 
     /**
@@ -428,7 +582,118 @@ public class UserListController implements Initializable {
      */
     @FXML
     private void handleRefresh() {
-        loadUsers();
+        refreshUsers();
+    }
+
+    /**
+     * Rafraîchir la page affichée avec les seules modifications depuis son chargement (UserService.getUserChanges).
+     * Les lignes affichées modifiées sans changer de place sont remplacées ; les modifications hors de l'intervalle
+     * de clés de la page ne font que recompter le total. Le reste (ligne affichée supprimée, sortie du filtre
+     * ou renommée, ligne arrivée dans l'intervalle) fait relire la page et le total.
+     */
+    private void refreshUsers() {
+        if (changesWatermark == null || currentUserPage == null || currentFilter.getSearchText() != null) {
+            loadUsers();
+            return;
+        }
+        // Sans nouvelle séquence : un chargement lancé entre-temps rend la réponse caduque
+        int request = requestSequence;
+        userService.getUserChangesAsync(currentFilter, changesWatermark).whenComplete((changes, error) -> {
+            if (request != requestSequence) {
+                return;
+            }
+            if (error != null) {
+                DatabaseExecutor.unwrap(error).printStackTrace();
+                loadUsers();
+            } else if (applyChanges(changes)) {
+                changesWatermark = changes.getWatermark();
+            } else {
+                loadUsers();
+            }
+        });
+    }
+
+    /**
+     * @return false si les modifications ne peuvent pas être appliquées sur place (la page doit être relue)
+     */
+    private boolean applyChanges(UserChanges changes) {
+        if (changes.isFullReloadRequired()) {
+            return false;
+        }
+        Map<Integer, Integer> positions = new HashMap<>();
+        for (int i = 0; i < displayedUsers.size(); i++) {
+            positions.put(displayedUsers.get(i).getId(), i);
+        }
+        // Ligne retirée hors de la page : seul le total peut changer
+        boolean totalChanged = false;
+        for (Integer id : changes.getRemovedIds()) {
+            if (positions.containsKey(id)) {
+                return false;
+            }
+            totalChanged = true;
+        }
+        List<UserSummary> replaced = new ArrayList<>();
+        for (UserSummary user : changes.getChanged()) {
+            Integer position = positions.get(user.getId());
+            if (position != null) {
+                if (!displayedUsers.get(position).getName().equals(user.getName())) {
+                    return false;
+                }
+                replaced.add(user);
+            } else if (isOutsidePage(user)) {
+                // Modifiée ou créée ailleurs dans la liste : la page ne change pas, le total peut-être
+                totalChanged = true;
+            } else {
+                return false;
+            }
+        }
+        for (UserSummary user : replaced) {
+            displayedUsers.set(positions.get(user.getId()), user);
+        }
+        if (totalChanged) {
+            recountUsers();
+        }
+        return true;
+    }
+
+    /**
+     * Clé (nom, id) avant la première ou après la dernière ligne de la page. Sans page précédente (ou suivante),
+     * l'intervalle n'est pas borné de ce côté ; un nom égal à une borne compte comme dans la page.
+     */
+    private boolean isOutsidePage(UserSummary user) {
+        UserPage.Key first = currentUserPage.getFirstKey();
+        UserPage.Key last = currentUserPage.getLastKey();
+        if (first == null) {
+            return false;
+        }
+        return (currentUserPage.hasPrevious() && nameOrder.compare(user.getName(), first.getName()) < 0)
+                || (currentUserPage.hasNext() && nameOrder.compare(user.getName(), last.getName()) > 0);
+    }
+
+    private static Collator createNameOrder() {
+        Collator collator = Collator.getInstance(Locale.ROOT);
+        collator.setStrength(Collator.PRIMARY);
+        return collator;
+    }
+
+    /**
+     * Recompter les utilisateurs sans relire la page affichée
+     */
+    private void recountUsers() {
+        int request = requestSequence;
+        userService.countUsersAsync(currentFilter).thenAccept(total -> {
+            if (request == requestSequence) {
+                totalUsers = total;
+                totalPages = Math.max(1, (int) Math.ceil((double) totalUsers / pageSize));
+                if (currentPage > totalPages && !isTotalCapped()) {
+                    currentPage = totalPages;
+                }
+                showTotals();
+            }
+        }).exceptionally(e -> {
+            DatabaseExecutor.unwrap(e).printStackTrace();
+            return null;
+        });
     }
 
     /**
@@ -444,16 +709,172 @@ public class UserListController implements Initializable {
         }
         
         // Determine current user's highest role
-        String currentUserRole = "ROLE_USER";
-        if (currentUser.getRole().contains("ROLE_SUPER_ADMIN")) {
-            currentUserRole = "ROLE_SUPER_ADMIN";
-        } else if (currentUser.getRole().contains("ROLE_ADMIN")) {
-            currentUserRole = "ROLE_ADMIN";
+        Role currentUserRole = Role.highest(currentUser.getRoles());
+        if (currentUserRole == null) {
+            currentUserRole = Role.USER;
         }
         
         showAddUserDialog(currentUserRole);
     }
 
+    /**
+     * Actions groupées : les changements de rôle sont réservés au super admin
+     */
+    private void initializeBulkActions() {
+        User currentUser = UserSession.getInstance().getCurrentUser();
+        boolean superAdmin = currentUser != null && currentUser.hasRole(Role.SUPER_ADMIN);
+        for (Button button : List.of(bulkMakeAdminButton, bulkMakeClientButton)) {
+            button.setVisible(superAdmin);
+            button.setManaged(superAdmin);
+        }
+        updateBulkActions();
+    }
+
+    private void updateBulkActions() {
+        int selected = userListView.getSelectionModel().getSelectedItems().size();
+        selectionLabel.setText(selected == 0 ? "No user selected" : selected + " selected");
+        for (Button button : List.of(bulkBlockButton, bulkUnblockButton, bulkMakeAdminButton,
+                bulkMakeClientButton, bulkDeleteButton)) {
+            button.setDisable(selected == 0);
+        }
+    }
+
+    @FXML
+    private void handleBulkBlock() {
+        runBulkAction("block", "blocked", false, ids -> userService.updateUsersBlockStatusAsync(ids, true));
+    }
+
+    @FXML
+    private void handleBulkUnblock() {
+        runBulkAction("unblock", "unblocked", false, ids -> userService.updateUsersBlockStatusAsync(ids, false));
+    }
+
+    @FXML
+    private void handleBulkMakeAdmin() {
+        runBulkAction("make admin", "changed to Admin", true, ids -> userService.updateUsersRoleAsync(ids, Role.ADMIN));
+    }
+
+    @FXML
+    private void handleBulkMakeClient() {
+        runBulkAction("make client", "changed to Client", true, ids -> userService.updateUsersRoleAsync(ids, Role.USER));
+    }
+
+    @FXML
+    private void handleBulkDelete() {
+        User currentUser = UserSession.getInstance().getCurrentUser();
+        Role currentUserRole = currentUser == null ? null : Role.highest(currentUser.getRoles());
+        runBulkAction("permanently delete", "deleted", false,
+                ids -> userService.deleteUsersAsync(ids, currentUserRole));
+    }
+
+    /**
+     * Confirmer puis appliquer une action groupée aux utilisateurs sélectionnés (hors utilisateur connecté) ;
+     * les utilisateurs non éligibles (admins pour un admin, super admins) sont ignorés par le service
+     * @param action Verbe de la confirmation
+     * @param done Participe du bilan
+     * @param superAdminOnly Action réservée au super admin
+     * @param call Appel du service
+     */
+    private void runBulkAction(String action, String done, boolean superAdminOnly,
+                               Function<List<Integer>, CompletableFuture<BulkActionResult>> call) {
+        User currentUser = UserSession.getInstance().getCurrentUser();
+        if (currentUser == null || !currentUser.isAdministrator()
+                || (superAdminOnly && !currentUser.hasRole(Role.SUPER_ADMIN))) {
+            showAlert(Alert.AlertType.ERROR, "Access Denied",
+                    superAdminOnly ? "Only Super Admin can change user roles." : "Only Admin or Super Admin can do this.");
+            return;
+        }
+
+        List<Integer> ids = new ArrayList<>();
+        for (UserSummary user : userListView.getSelectionModel().getSelectedItems()) {
+            if (user.getId() != currentUser.getId()) {
+                ids.add(user.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+        confirmAlert.setTitle("Bulk Action Confirmation");
+        confirmAlert.setHeaderText(null);
+        confirmAlert.setContentText("Are you sure you want to " + action + " " + ids.size() + " selected user(s)?"
+                + "\n\nUsers your role does not allow you to change are skipped.");
+        if (confirmAlert.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) {
+            return;
+        }
+
+        bulkActionsBox.setDisable(true);
+        messageLabel.setText("Applying to " + ids.size() + " user(s)...");
+        call.apply(ids).whenComplete((result, error) -> {
+            bulkActionsBox.setDisable(false);
+            if (error != null) {
+                Throwable cause = DatabaseExecutor.unwrap(error);
+                showAlert(Alert.AlertType.ERROR, "Error", "Bulk action failed: " + cause.getMessage());
+            } else {
+                showAlert(Alert.AlertType.INFORMATION, "Success", result.getAffected() + " user(s) " + done
+                        + (result.getSkipped() > 0 ? ", " + result.getSkipped() + " skipped (not allowed or still referenced)" : "") + ".");
+            }
+            userListView.getSelectionModel().clearSelection();
+            refreshUsers();
+        });
+    }
+
+    /**
+     * Importer des utilisateurs depuis un fichier CSV (UserImportService)
+     */
+    @FXML
+    private void handleImportUsers() {
+        User currentUser = UserSession.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            showAlert(Alert.AlertType.ERROR, "Error", "No user logged in");
+            return;
+        }
+        Role currentUserRole = Role.highest(currentUser.getRoles());
+
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import users");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV files", "*.csv"));
+        File file = fileChooser.showOpenDialog(userListView.getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+
+        importUsersButton.setDisable(true);
+        messageLabel.setText("Importing " + file.getName() + "...");
+        UserImportService.getInstance().importCsvAsync(file.toPath(), currentUserRole,
+                (processed, imported, failed) -> Platform.runLater(() -> messageLabel.setText(
+                        "Importing " + file.getName() + ": " + processed + " rows read, " + imported
+                                + " imported, " + failed + " rejected")))
+                .whenComplete((report, error) -> {
+                    importUsersButton.setDisable(false);
+                    if (error != null) {
+                        Throwable cause = DatabaseExecutor.unwrap(error);
+                        showAlert(Alert.AlertType.ERROR, "Import Error", "Import failed: " + cause.getMessage());
+                    } else {
+                        showImportReport(report);
+                    }
+                    loadUsers();
+                });
+    }
+
+    private void showImportReport(UserImportReport report) {
+        StringBuilder message = new StringBuilder()
+                .append(report.getImported()).append(" users imported, ")
+                .append(report.getFailed()).append(" rows rejected out of ")
+                .append(report.getProcessed()).append(".");
+        List<UserImportReport.RowError> errors = report.getErrors();
+        int shown = Math.min(errors.size(), 20);
+        for (int i = 0; i < shown; i++) {
+            message.append('\n').append(errors.get(i));
+        }
+        if (report.getFailed() > shown) {
+            message.append("\n... and ").append(report.getFailed() - shown).append(" more");
+        }
+        showAlert(report.getFailed() == 0 ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING,
+                "Import finished", message.toString());
+    }
+
     /**
      * Bouton retour
      */
@@ -471,11 +892,11 @@ public class UserListController implements Initializable {
     /**
      * Edit a user
      */
-    private void editUser(User user) {
+    private void editUser(UserSummary summary) {
         // Create dialog to edit user
         Dialog<User> dialog = new Dialog<>();
         dialog.setTitle("Edit User");
-        dialog.setHeaderText("Edit information for " + user.getName());
+        dialog.setHeaderText("Edit information for " + summary.getName());
 
         // Configurer les boutons
         ButtonType saveButtonType = new ButtonType("Save Changes", ButtonBar.ButtonData.OK_DONE);
@@ -501,15 +922,15 @@ public class UserListController implements Initializable {
         VBox personalInfoBox = new VBox(8); // Réduire l'espacement
         personalInfoBox.setStyle("-fx-background-color: white; -fx-padding: 15; -fx-background-radius: 6; -fx-effect: dropshadow(three-pass-box, rgba(0,0,0,0.1), 3, 0, 0, 1);");
 
-        TextField nameField = new TextField(user.getName());
+        TextField nameField = new TextField(summary.getName());
         nameField.setPromptText("Full name");
         nameField.setStyle("-fx-padding: 10; -fx-font-size: 13px; -fx-border-color: #ddd; -fx-border-radius: 4; -fx-background-radius: 4;");
         
-        TextField emailField = new TextField(user.getEmail());
+        TextField emailField = new TextField(summary.getEmail());
         emailField.setPromptText("Email");
         emailField.setStyle("-fx-padding: 10; -fx-font-size: 13px; -fx-border-color: #ddd; -fx-border-radius: 4; -fx-background-radius: 4;");
         
-        TextField phoneField = new TextField(user.getPhone_number());
+        TextField phoneField = new TextField(summary.getPhone_number());
         phoneField.setPromptText("Phone");
         phoneField.setStyle("-fx-padding: 10; -fx-font-size: 13px; -fx-border-color: #ddd; -fx-border-radius: 4; -fx-background-radius: 4;");
         
@@ -575,14 +996,22 @@ public class UserListController implements Initializable {
                 return;
             }
 
-            // Mettre à jour l'utilisateur
-            user.setName(name);
-            user.setEmail(email);
-            user.setPhone_number(phone);
-
             try {
+                // La liste ne contient que des résumés : l'entité complète est chargée pour la mise à jour
+                User user = userService.getUserById(summary.getId());
+                if (user == null) {
+                    showAlert(Alert.AlertType.ERROR, "Error", "User not found");
+                    event.consume();
+                    return;
+                }
+
+                // Mettre à jour l'utilisateur
+                user.setName(name);
+                user.setEmail(email);
+                user.setPhone_number(phone);
+
                 userService.updateUser(user);
-                loadUsers(); // Rafraîchir la liste
+                refreshUsers(); // Rafraîchir la liste
                 showAlert(Alert.AlertType.INFORMATION, "Success", "User updated successfully");
             } catch (SQLException e) {
                 showAlert(Alert.AlertType.ERROR, "Error", "Error updating user: " + e.getMessage());
@@ -596,16 +1025,16 @@ public class UserListController implements Initializable {
     /**
      * Toggle user role between ADMIN and CLIENT (only for super admin)
      */
-    private void toggleUserRole(User user) {
+    private void toggleUserRole(UserSummary user) {
         // Verify current user is super admin
         User currentUser = UserSession.getInstance().getCurrentUser();
-        if (currentUser == null || !currentUser.getRole().contains("ROLE_SUPER_ADMIN")) {
+        if (currentUser == null || !currentUser.hasRole(Role.SUPER_ADMIN)) {
             showAlert(Alert.AlertType.ERROR, "Access Denied", "Only Super Admin can change user roles.");
             return;
         }
 
         // Confirm role change
-        boolean isCurrentlyAdmin = user.getRole().contains("ROLE_ADMIN");
+        boolean isCurrentlyAdmin = user.hasRole(Role.ADMIN);
         String newRole = isCurrentlyAdmin ? "Client" : "Admin";
         String currentRole = isCurrentlyAdmin ? "Admin" : "Client";
         
@@ -619,14 +1048,13 @@ public class UserListController implements Initializable {
             if (result == ButtonType.OK) {
                 try {
                     // Update role in database
-                    String newRoleCode = isCurrentlyAdmin ? "ROLE_USER" : "ROLE_ADMIN";
+                    Role newRoleCode = isCurrentlyAdmin ? Role.USER : Role.ADMIN;
                     userService.updateUserRole(user.getId(), newRoleCode);
                     
                     // Update local user object
-                    user.getRole().clear();
-                    user.getRole().add(newRoleCode);
+                    user.setRoles(newRoleCode.getMask());
                     
-                    loadUsers(); // Refresh the list
+                    refreshUsers(); // Refresh the list
                     showAlert(Alert.AlertType.INFORMATION, "Success", 
                             "User role changed to " + newRole + " successfully!");
                 } catch (SQLException e) {
@@ -652,7 +1080,7 @@ public class UserListController implements Initializable {
     /**
      * Show add user dialog
      */
-    private void showAddUserDialog(String currentUserRole) {
+    private void showAddUserDialog(Role currentUserRole) {
         Dialog<User> dialog = new Dialog<>();
         dialog.setTitle("Add New User");
         dialog.setHeaderText("Create a new user account");
@@ -745,7 +1173,7 @@ public class UserListController implements Initializable {
         roleLabel.setStyle("-fx-font-weight: bold; -fx-text-fill: #34495e; -fx-font-size: 13px;");
         
         ComboBox<String> roleComboBox = new ComboBox<>();
-        if (currentUserRole.equals("ROLE_SUPER_ADMIN")) {
+        if (currentUserRole == Role.SUPER_ADMIN) {
             roleComboBox.getItems().addAll("ROLE_USER", "ROLE_ADMIN");
         } else {
             roleComboBox.getItems().add("ROLE_USER");
@@ -839,21 +1267,27 @@ public class UserListController implements Initializable {
             newUser.setBlocked(false);
             
             // Set role
-            List<String> roles = new ArrayList<>();
-            roles.add(role);
-            newUser.setRole(roles);
-
-            try {
-                userService.addUser(newUser, currentUserRole);
-                loadUsers(); // Refresh the list
-                showAlert(Alert.AlertType.INFORMATION, "Success", "User added successfully");
-            } catch (IllegalArgumentException e) {
-                showAlert(Alert.AlertType.ERROR, "Error", e.getMessage());
-                event.consume();
-            } catch (SQLException e) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Error adding user: " + e.getMessage());
-                event.consume();
-            }
+            newUser.setRoles(Role.fromCode(role).getMask());
+
+            // Création hors du thread JavaFX (hachage BCrypt sur CryptoExecutor) : la boîte reste ouverte
+            // jusqu'à la réponse, puis se ferme en cas de succès
+            event.consume();
+            addButton.setDisable(true);
+            userService.addUserAsync(newUser, currentUserRole).whenComplete((ignored, error) -> {
+                addButton.setDisable(false);
+                if (error == null) {
+                    loadUsers(); // Refresh the list
+                    showAlert(Alert.AlertType.INFORMATION, "Success", "User added successfully");
+                    dialog.close();
+                    return;
+                }
+                Throwable cause = DatabaseExecutor.unwrap(error);
+                if (cause instanceof IllegalArgumentException) {
+                    showAlert(Alert.AlertType.ERROR, "Error", cause.getMessage());
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Error adding user: " + cause.getMessage());
+                }
+            });
         });
 
         dialog.showAndWait();
@@ -862,16 +1296,16 @@ public class UserListController implements Initializable {
     /**
      * Toggle block/unblock user (for admin and super admin only, only for regular users)
      */
-    private void toggleBlockUser(User user) {
+    private void toggleBlockUser(UserSummary user) {
         // Verify current user is admin or super admin
         User currentUser = UserSession.getInstance().getCurrentUser();
-        if (currentUser == null || (!currentUser.getRole().contains("ROLE_ADMIN") && !currentUser.getRole().contains("ROLE_SUPER_ADMIN"))) {
+        if (currentUser == null || !currentUser.isAdministrator()) {
             showAlert(Alert.AlertType.ERROR, "Access Denied", "Only Admin or Super Admin can block/unblock users.");
             return;
         }
 
         // Verify target user is a regular user (not admin or super admin)
-        if (user.getRole().contains("ROLE_ADMIN") || user.getRole().contains("ROLE_SUPER_ADMIN")) {
+        if (user.isAdministrator()) {
             showAlert(Alert.AlertType.ERROR, "Operation Not Allowed", "Cannot block admin or super admin users.");
             return;
         }
@@ -897,7 +1331,7 @@ public class UserListController implements Initializable {
                     // Update local user object
                     user.setBlocked(newBlockedStatus);
                     
-                    loadUsers(); // Refresh the list
+                    refreshUsers(); // Refresh the list
                     showAlert(Alert.AlertType.INFORMATION, "Success", 
                             "User " + user.getName() + " has been " + action + "ed successfully!");
                 } catch (SQLException e) {
@@ -914,22 +1348,22 @@ public class UserListController implements Initializable {
     /**
      * Delete user (admin/super admin). Super admin can delete admins; nobody can delete super admins.
      */
-    private void deleteUser(User user) {
+    private void deleteUser(UserSummary user) {
         // Verify current user is admin or super admin
         User currentUser = UserSession.getInstance().getCurrentUser();
-        if (currentUser == null || (!currentUser.getRole().contains("ROLE_ADMIN") && !currentUser.getRole().contains("ROLE_SUPER_ADMIN"))) {
+        if (currentUser == null || !currentUser.isAdministrator()) {
             showAlert(Alert.AlertType.ERROR, "Access Denied", "Only Admin or Super Admin can delete users.");
             return;
         }
 
         // Prevent deleting super admins
-        if (user.getRole().contains("ROLE_SUPER_ADMIN")) {
+        if (user.hasRole(Role.SUPER_ADMIN)) {
             showAlert(Alert.AlertType.ERROR, "Operation Not Allowed", "Cannot delete super admin users.");
             return;
         }
 
-        boolean targetIsAdmin = user.getRole().contains("ROLE_ADMIN");
-        boolean currentIsSuperAdmin = currentUser.getRole().contains("ROLE_SUPER_ADMIN");
+        boolean targetIsAdmin = user.hasRole(Role.ADMIN);
+        boolean currentIsSuperAdmin = currentUser.hasRole(Role.SUPER_ADMIN);
 
         // Admins cannot delete admins; only super admin can
         if (targetIsAdmin && !currentIsSuperAdmin) {
@@ -955,7 +1389,7 @@ public class UserListController implements Initializable {
                         userService.deleteUser(user.getId());
                     }
                     
-                    loadUsers(); // Refresh the list
+                    refreshUsers(); // Refresh the list
                     showAlert(Alert.AlertType.INFORMATION, "Success", 
                             "User " + user.getName() + " has been deleted successfully!");
                 } catch (SQLException e) {
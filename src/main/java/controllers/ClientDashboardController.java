@@ -24,6 +24,7 @@ import javafx.stage.Stage;
 import services.AuthService;
 import services.RoleService;
 import services.RatingService;
+import utils.DatabaseExecutor;
 import utils.SceneManager;
 
 import java.io.File;
@@ -142,26 +143,24 @@ public class ClientDashboardController implements Initializable {
             return;
         }
 
-        try {
-            User currentUser = entities.UserSession.getInstance().getCurrentUser();
-            if (currentUser != null) {
-                int ratingsGiven = ratingService.getRatingsGivenCount(currentUser.getId());
-                int ratingsReceived = ratingService.getRatingsReceivedCount(currentUser.getId());
-                
-                Platform.runLater(() -> {
+        User currentUser = entities.UserSession.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            return;
+        }
+        // Les deux compteurs sont lus en parallèle, hors du thread JavaFX
+        ratingService.getRatingsGivenCountAsync(currentUser.getId())
+                .thenCombine(ratingService.getRatingsReceivedCountAsync(currentUser.getId()), (ratingsGiven, ratingsReceived) -> {
                     ratingsGivenLabel.setText(String.valueOf(ratingsGiven));
                     ratingsReceivedLabel.setText(String.valueOf(ratingsReceived));
+                    System.out.println("Rating statistics loaded: Given=" + ratingsGiven + ", Received=" + ratingsReceived);
+                    return null;
+                })
+                .exceptionally(e -> {
+                    System.out.println("Error loading rating statistics: " + DatabaseExecutor.unwrap(e).getMessage());
+                    ratingsGivenLabel.setText("0");
+                    ratingsReceivedLabel.setText("0");
+                    return null;
                 });
-                
-                System.out.println("Rating statistics loaded: Given=" + ratingsGiven + ", Received=" + ratingsReceived);
-            }
-        } catch (Exception e) {
-            System.out.println("Error loading rating statistics: " + e.getMessage());
-            Platform.runLater(() -> {
-                ratingsGivenLabel.setText("0");
-                ratingsReceivedLabel.setText("0");
-            });
-        }
     }
 
     @FXML
@@ -174,8 +173,24 @@ public class ClientDashboardController implements Initializable {
                 return;
             }
 
-            List<User> clients = ratingService.getAllUsersExceptCurrent(currentUser.getId());
-            
+            ratingService.getAllUsersExceptCurrentAsync(currentUser.getId())
+                    .thenAccept(clients -> showClientsList(currentUser, clients))
+                    .exceptionally(e -> {
+                        Throwable cause = DatabaseExecutor.unwrap(e);
+                        System.out.println("Error loading clients: " + cause.getMessage());
+                        cause.printStackTrace();
+                        showAlert(Alert.AlertType.ERROR, "Error", "Error loading clients: " + cause.getMessage());
+                        return null;
+                    });
+        } catch (Exception e) {
+            System.out.println("Error loading clients: " + e.getMessage());
+            e.printStackTrace();
+            showAlert(Alert.AlertType.ERROR, "Error", "Error loading clients: " + e.getMessage());
+        }
+    }
+
+    private void showClientsList(User currentUser, List<User> clients) {
+        try {
             // Create ListView
             ListView<User> clientsListView = new ListView<>();
             clientsListView.setPrefHeight(400);
@@ -217,15 +232,25 @@ public class ClientDashboardController implements Initializable {
                         emailLabel.setText("📧 " + user.getEmail());
                         phoneLabel.setText("📞 " + (user.getPhone_number() != null ? user.getPhone_number() : "Not provided"));
                         
-                        try {
-                            double avgRating = ratingService.getAverageRating(user.getId());
-                            ratingLabel.setText("⭐ " + String.format("%.1f", avgRating));
-                        } catch (Exception e) {
-                            ratingLabel.setText("⭐ N/A");
-                        }
+                        // Note moyenne et état du bouton chargés en arrière-plan ; la cellule peut
+                        // avoir été réutilisée pour un autre utilisateur entre-temps
+                        ratingLabel.setText("⭐ ...");
+                        rateButton.setDisable(true);
+                        ratingService.getAverageRatingAsync(user.getId()).whenComplete((avgRating, error) -> {
+                            if (getItem() != user) {
+                                return;
+                            }
+                            ratingLabel.setText(error == null ? "⭐ " + String.format("%.1f", avgRating) : "⭐ N/A");
+                        });
                         
-                        try {
-                            if (ratingService.hasUserRatedUser(currentUser.getId(), user.getId())) {
+                        ratingService.hasUserRatedUserAsync(currentUser.getId(), user.getId()).whenComplete((rated, error) -> {
+                            if (getItem() != user) {
+                                return;
+                            }
+                            if (error != null) {
+                                rateButton.setText("Error");
+                                rateButton.setDisable(true);
+                            } else if (rated) {
                                 rateButton.setText("Rated ✓");
                                 rateButton.setStyle("-fx-background-color: #27ae60; -fx-text-fill: white; -fx-font-weight: bold; -fx-padding: 8 15;");
                                 rateButton.setDisable(true);
@@ -235,10 +260,7 @@ public class ClientDashboardController implements Initializable {
                                 rateButton.setDisable(false);
                                 rateButton.setOnAction(e -> showRatingDialog(user));
                             }
-                        } catch (Exception ex) {
-                            rateButton.setText("Error");
-                            rateButton.setDisable(true);
-                        }
+                        });
                         
                         setGraphic(hbox);
                     }
@@ -275,8 +297,24 @@ public class ClientDashboardController implements Initializable {
                 return;
             }
 
-            List<Rating> givenRatings = ratingService.getRatingsGivenByUser(currentUser.getId());
-            
+            ratingService.getRatingsGivenByUserAsync(currentUser.getId())
+                    .thenAccept(this::showGivenRatings)
+                    .exceptionally(e -> {
+                        Throwable cause = DatabaseExecutor.unwrap(e);
+                        System.out.println("Error loading given ratings: " + cause.getMessage());
+                        cause.printStackTrace();
+                        showAlert(Alert.AlertType.ERROR, "Error", "Error loading given ratings: " + cause.getMessage());
+                        return null;
+                    });
+        } catch (Exception e) {
+            System.out.println("Error loading given ratings: " + e.getMessage());
+            e.printStackTrace();
+            showAlert(Alert.AlertType.ERROR, "Error", "Error loading given ratings: " + e.getMessage());
+        }
+    }
+
+    private void showGivenRatings(List<Rating> givenRatings) {
+        try {
             // Create ListView
             ListView<Rating> ratingsListView = new ListView<>();
             ratingsListView.setPrefHeight(400);
@@ -368,8 +406,24 @@ public class ClientDashboardController implements Initializable {
                 return;
             }
 
-            List<Rating> receivedRatings = ratingService.getRatingsReceivedByUser(currentUser.getId());
-            
+            ratingService.getRatingsReceivedByUserAsync(currentUser.getId())
+                    .thenAccept(this::showReceivedRatings)
+                    .exceptionally(e -> {
+                        Throwable cause = DatabaseExecutor.unwrap(e);
+                        System.out.println("Error loading received ratings: " + cause.getMessage());
+                        cause.printStackTrace();
+                        showAlert(Alert.AlertType.ERROR, "Error", "Error loading received ratings: " + cause.getMessage());
+                        return null;
+                    });
+        } catch (Exception e) {
+            System.out.println("Error loading received ratings: " + e.getMessage());
+            e.printStackTrace();
+            showAlert(Alert.AlertType.ERROR, "Error", "Error loading received ratings: " + e.getMessage());
+        }
+    }
+
+    private void showReceivedRatings(List<Rating> receivedRatings) {
+        try {
             // Create ListView
             ListView<Rating> ratingsListView = new ListView<>();
             ratingsListView.setPrefHeight(400);
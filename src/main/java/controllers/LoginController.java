@@ -1,5 +1,6 @@
 package controllers;
 
+import entities.Role;
 import entities.User;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -12,7 +13,9 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import services.AuthService;
+import services.LoginThrottledException;
 import services.RoleService;
+import utils.DatabaseExecutor;
 import utils.SceneManager;
 
 import java.io.File;
@@ -58,10 +61,30 @@ public class LoginController {
             return;
         }
 
-        try {
-            // Vérifier les identifiants avec le service d'authentification
-            User user = authService.login(email, password);
+        // Vérifier les identifiants avec le service d'authentification, hors du thread JavaFX
+        loginButton.setDisable(true);
+        authService.loginAsync(email, password).whenComplete((user, error) -> {
+            loginButton.setDisable(false);
+            if (error == null) {
+                handleLoginResult(user);
+                return;
+            }
+            Throwable cause = DatabaseExecutor.unwrap(error);
+            if (cause instanceof LoginThrottledException) {
+                // Trop d'échecs récents pour cet email
+                showAlert(Alert.AlertType.ERROR, "Too Many Attempts", cause.getMessage());
+            } else if (cause instanceof IllegalStateException) {
+                // Handle blocked account
+                showAlert(Alert.AlertType.ERROR, "Account Blocked", cause.getMessage());
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Database Error", cause.getMessage());
+                cause.printStackTrace();
+            }
+        });
+    }
 
+    private void handleLoginResult(User user) {
+        try {
             if (user != null) {
                 // Vérifier si le compte de l'utilisateur est vérifié
                 if (!user.isVerified()) {
@@ -93,12 +116,6 @@ public class LoginController {
                 // Login failed
                 showAlert(Alert.AlertType.ERROR, "Login Error", "Incorrect email or password.");
             }
-        } catch (IllegalStateException e) {
-            // Handle blocked account
-            showAlert(Alert.AlertType.ERROR, "Account Blocked", e.getMessage());
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "Database Error", e.getMessage());
-            e.printStackTrace();
         } catch (IOException e) {
             showAlert(Alert.AlertType.ERROR, "Navigation Error", "Unable to load dashboard page.");
             e.printStackTrace();
@@ -137,12 +154,12 @@ public class LoginController {
     private void navigateToDashboard(User user) throws IOException {
         try {
             // Determine user type based on roles
-            String userType = roleService.getUserType(user);
+            Role userType = roleService.getUserType(user);
             String title;
 
             // Choose appropriate dashboard
             String fxmlPath;
-            if (userType != null && (userType.equals(RoleService.ROLE_ADMIN) || userType.equals(RoleService.ROLE_SUPER_ADMIN))) {
+            if (userType == Role.ADMIN || userType == Role.SUPER_ADMIN) {
                 fxmlPath = "/fxml/admin/AdminDashboard.fxml";
                 title = "Admin Dashboard";
             } else {
@@ -6,8 +6,8 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import services.UserService;
+import utils.DatabaseExecutor;
 import utils.ValidationUtils;
-import utils.PasswordHasher;
 import utils.SceneManager;
 import javafx.application.Platform;
 import javafx.fxml.FXML;
@@ -321,63 +321,60 @@ public class ProfileUserController implements Initializable {
                 }
             }
 
-            // Always verify against the latest password hash from the database (session value may be stale)
-            User latestUser;
-            try {
-                latestUser = userService.getUserById(currentUser.getId());
-                if (latestUser == null) {
-                    showAlert(Alert.AlertType.ERROR, "Error", "User not found");
+            // Always verify against the password hash from the database (the session does not keep it),
+            // hors du thread JavaFX : la vérification BCrypt se fait sur CryptoExecutor
+            changePasswordButton.setDisable(true);
+            userService.verifyPasswordAsync(currentUser.getId(), currentPassword).whenComplete((valid, error) -> {
+                changePasswordButton.setDisable(false);
+                if (error != null) {
+                    Throwable cause = DatabaseExecutor.unwrap(error);
+                    if (cause instanceof IllegalStateException) {
+                        // Utilisateur sans mot de passe défini
+                        showAlert(Alert.AlertType.ERROR, "Error", cause.getMessage());
+                    } else {
+                        showAlert(Alert.AlertType.ERROR, "Error", "Error verifying current password: " + cause.getMessage());
+                    }
                     return;
                 }
-            } catch (SQLException e) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Error verifying current password: " + e.getMessage());
-                return;
-            }
-
-            // Vérifier que l'utilisateur a un mot de passe défini
-            if (latestUser.getPassword() == null || latestUser.getPassword().isEmpty()) {
-                showAlert(Alert.AlertType.ERROR, "Error", "User password is not set. Please contact administrator.");
-                return;
-            }
 
-            // Vérifier que le mot de passe actuel est correct
-            if (!PasswordHasher.verifyPassword(currentPassword, latestUser.getPassword())) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Current password is incorrect");
-                return;
-            }
+                // Vérifier que le mot de passe actuel est correct
+                if (!valid) {
+                    showAlert(Alert.AlertType.ERROR, "Error", "Current password is incorrect");
+                    return;
+                }
 
-            try {
                 // Si un nouveau mot de passe est fourni, le mettre à jour
-                if (!newPassword.isEmpty()) {
-                    // Demander confirmation avant de changer le mot de passe
-                    Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
-                    confirmAlert.setTitle("Password Change Confirmation");
-                    confirmAlert.setHeaderText("Confirm Password Change");
-                    confirmAlert.setContentText("Are you sure you want to change your password?");
-                    
-                    Optional<ButtonType> confirmResult = confirmAlert.showAndWait();
-                    if (confirmResult.isPresent() && confirmResult.get() == ButtonType.OK) {
-                        // Mettre à jour le mot de passe dans la base de données
-                        userService.updatePassword(currentUser.getId(), newPassword);
-
-                        // Mettre à jour le mot de passe dans l'objet utilisateur avec le hash
-                        String hashedNewPassword = PasswordHasher.hashPassword(newPassword);
-                        currentUser.setPassword(hashedNewPassword);
-
-                        // Mettre à jour l'utilisateur dans la session
-                        UserSession.getInstance().setCurrentUser(currentUser);
+                if (newPassword.isEmpty()) {
+                    showAlert(Alert.AlertType.INFORMATION, "Information", "No password change requested");
+                    return;
+                }
 
-                        showAlert(Alert.AlertType.INFORMATION, "Success", "Your password has been successfully changed!");
+                // Demander confirmation avant de changer le mot de passe
+                Alert confirmAlert = new Alert(Alert.AlertType.CONFIRMATION);
+                confirmAlert.setTitle("Password Change Confirmation");
+                confirmAlert.setHeaderText("Confirm Password Change");
+                confirmAlert.setContentText("Are you sure you want to change your password?");
+
+                Optional<ButtonType> confirmResult = confirmAlert.showAndWait();
+                if (confirmResult.isEmpty() || confirmResult.get() != ButtonType.OK) {
+                    showAlert(Alert.AlertType.INFORMATION, "Information", "Password change cancelled");
+                    return;
+                }
+
+                // Mettre à jour le mot de passe dans la base de données
+                // (le hash n'est pas gardé en session)
+                changePasswordButton.setDisable(true);
+                userService.updatePasswordAsync(currentUser.getId(), newPassword).whenComplete((ignored, updateError) -> {
+                    changePasswordButton.setDisable(false);
+                    if (updateError != null) {
+                        Throwable cause = DatabaseExecutor.unwrap(updateError);
+                        showAlert(Alert.AlertType.ERROR, "Error", "Error updating password: " + cause.getMessage());
+                        cause.printStackTrace();
                     } else {
-                        showAlert(Alert.AlertType.INFORMATION, "Information", "Password change cancelled");
+                        showAlert(Alert.AlertType.INFORMATION, "Success", "Your password has been successfully changed!");
                     }
-                } else {
-                    showAlert(Alert.AlertType.INFORMATION, "Information", "No password change requested");
-                }
-            } catch (SQLException e) {
-                showAlert(Alert.AlertType.ERROR, "Error", "Error updating password: " + e.getMessage());
-                e.printStackTrace();
-            }
+                });
+            });
         }
     }
 
@@ -460,13 +457,8 @@ public class ProfileUserController implements Initializable {
             
             // Vérifier le rôle de l'utilisateur pour rediriger vers le bon dashboard
             User user = UserSession.getInstance().getCurrentUser();
-            if (user != null && user.getRole() != null && !user.getRole().isEmpty()) {
-                String firstRole = user.getRole().get(0);
-                if ("ROLE_ADMIN".equals(firstRole) || "ROLE_SUPER_ADMIN".equals(firstRole)) {
-                    SceneManager.navigateToPage(stage, "/fxml/admin/AdminDashboard.fxml", "Admin Dashboard");
-                } else {
-                    SceneManager.navigateToPage(stage, "/fxml/ClientDashboard.fxml", "Dashboard");
-                }
+            if (user != null && user.isAdministrator()) {
+                SceneManager.navigateToPage(stage, "/fxml/admin/AdminDashboard.fxml", "Admin Dashboard");
             } else {
                 // Par défaut, rediriger vers le dashboard client
                 SceneManager.navigateToPage(stage, "/fxml/ClientDashboard.fxml", "Dashboard");
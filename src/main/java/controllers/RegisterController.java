@@ -1,6 +1,7 @@
 package controllers;
 
 import entities.User;
+import javafx.animation.PauseTransition;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -9,18 +10,18 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import services.AuthService;
-import services.RoleService;
+import utils.DatabaseExecutor;
 import utils.ValidationUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class RegisterController implements Initializable {
 
@@ -33,6 +34,12 @@ public class RegisterController implements Initializable {
     @FXML
     private TextField phoneNumberField;
 
+    @FXML
+    private Label emailStatusLabel;
+
+    @FXML
+    private Label phoneStatusLabel;
+
     @FXML
     private PasswordField passwordField;
 
@@ -46,17 +53,50 @@ public class RegisterController implements Initializable {
     private Hyperlink loginLink;
 
     private AuthService authService;
-    private RoleService roleService;
+
+    // Pause de saisie avant la vérification de disponibilité
+    private static final long AVAILABILITY_DELAY_MS = 300;
 
     public RegisterController() {
         // Initialize services
         authService = AuthService.getInstance();
-        roleService = RoleService.getInstance();
     }
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        // No longer need to initialize roleComboBox
+        // Disponibilité vérifiée pendant la saisie : une valeur libre est en général confirmée par le filtre
+        // UserIdentifierFilter, sans requête ; seules les valeurs déjà connues vont en base
+        watchAvailability(emailField, emailStatusLabel, ValidationUtils::getEmailValidationError,
+                authService::emailExistsAsync, "This email is already in use.");
+        watchAvailability(phoneNumberField, phoneStatusLabel, ValidationUtils::getPhoneValidationError,
+                authService::phoneExistsAsync, "This phone number is already in use.");
+    }
+
+    private void watchAvailability(TextField field, Label statusLabel, Function<String, String> validationError,
+                                   Function<String, CompletableFuture<Boolean>> exists, String takenMessage) {
+        PauseTransition pause = new PauseTransition(Duration.millis(AVAILABILITY_DELAY_MS));
+        field.textProperty().addListener((observable, oldValue, newValue) -> {
+            showStatus(statusLabel, null);
+            pause.playFromStart();
+        });
+        pause.setOnFinished(event -> {
+            String value = field.getText();
+            if (value == null || validationError.apply(value) != null) {
+                return;
+            }
+            exists.apply(value).whenComplete((taken, error) -> {
+                // Réponse ignorée si le champ a changé entre-temps
+                if (error == null && value.equals(field.getText())) {
+                    showStatus(statusLabel, taken ? takenMessage : null);
+                }
+            });
+        });
+    }
+
+    private void showStatus(Label statusLabel, String message) {
+        statusLabel.setText(message);
+        statusLabel.setVisible(message != null);
+        statusLabel.setManaged(message != null);
     }
 
     @FXML
@@ -73,60 +113,41 @@ public class RegisterController implements Initializable {
             return;
         }
 
-        try {
-            // Check if email already exists
-            if (authService.emailExists(email)) {
-                showAlert(Alert.AlertType.ERROR, "Registration Error", "This email is already in use.");
-                return;
-            }
-
-            // Check if phone number already exists
-            if (authService.phoneExists(phoneNumber)) {
-                showAlert(Alert.AlertType.ERROR, "Registration Error", "This phone number is already in use.");
-                return;
-            }
-
-            // Create new user
-            User user = new User();
-            user.setName(name);
-            user.setEmail(email);
-            user.setPhone_number(phoneNumber);
-            user.setPassword(password);
-            user.setVerified(false);
-            user.setCreated_at(new Timestamp(System.currentTimeMillis()));
-
-            // Add default role
-            List<String> roles = new ArrayList<>();
-            roles.add("ROLE_USER");
-            user.setRole(roles);
-
-            // Register user with authentication service
-            authService.register(user);
-
-            // Add role to user in database
-            try {
-                // Get newly created user ID
-                User createdUser = authService.getUserByEmail(email);
-                if (createdUser != null) {
-                    roleService.addRoleToUser(createdUser.getId(), "ROLE_USER");
+        // Create new user
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        user.setPhone_number(phoneNumber);
+        user.setPassword(password);
+        user.setVerified(false);
+        user.setCreated_at(new Timestamp(System.currentTimeMillis()));
+
+        // Hachage et insertion hors du thread JavaFX ; l'unicité est vérifiée par les contraintes de la base
+        registerButton.setDisable(true);
+        authService.registerAsync(user).whenComplete((ignored, error) -> {
+            registerButton.setDisable(false);
+            if (error != null) {
+                Throwable cause = DatabaseExecutor.unwrap(error);
+                if (cause instanceof IllegalArgumentException) {
+                    showAlert(Alert.AlertType.ERROR, "Registration Error", cause.getMessage());
+                } else {
+                    showAlert(Alert.AlertType.ERROR, "Registration Error", "An error occurred during registration: " + cause.getMessage());
+                    cause.printStackTrace();
                 }
-            } catch (SQLException ex) {
-                System.err.println("Error adding role: " + ex.getMessage());
-                // Don't block registration if role addition fails
+                return;
             }
 
             // Show success message
             showAlert(Alert.AlertType.INFORMATION, "Registration Successful", "Your account has been created successfully. You will be redirected to the two-factor authentication setup.");
 
-            // Redirect to 2FA setup page
-            navigateTo2FASetup(email);
-        } catch (SQLException e) {
-            showAlert(Alert.AlertType.ERROR, "Registration Error", "An error occurred during registration: " + e.getMessage());
-            e.printStackTrace();
-        } catch (IOException e) {
-            showAlert(Alert.AlertType.ERROR, "Navigation Error", "Unable to load the login page.");
-            e.printStackTrace();
-        }
+            try {
+                // Redirect to 2FA setup page
+                navigateTo2FASetup(email);
+            } catch (IOException e) {
+                showAlert(Alert.AlertType.ERROR, "Navigation Error", "Unable to load the login page.");
+                e.printStackTrace();
+            }
+        });
     }
 
     private boolean validateAllFields(String name, String email, String phoneNumber, String password, String repeatPassword) {
@@ -10,6 +10,7 @@ import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.concurrent.Task;
 import services.restpasseService;
+import utils.DatabaseExecutor;
 
 import java.io.File;
 import java.io.IOException;
@@ -204,17 +205,22 @@ public class ResetPasswordController {
             return;
         }
 
-        // Réinitialiser le mot de passe avec le token
-        boolean reset = resetService.resetPassword(resetToken, newPassword);
-
-        if (reset) {
-            showAlert(Alert.AlertType.INFORMATION, "Succès", "Your password has been successfully reset..");
+        // Réinitialiser le mot de passe avec le token, hors du thread JavaFX (hachage sur CryptoExecutor)
+        resetPasswordButton.setDisable(true);
+        resetService.resetPasswordAsync(resetToken, newPassword).whenComplete((reset, error) -> {
+            resetPasswordButton.setDisable(false);
+            if (error != null) {
+                DatabaseExecutor.unwrap(error).printStackTrace();
+            }
+            if (error == null && reset) {
+                showAlert(Alert.AlertType.INFORMATION, "Succès", "Your password has been successfully reset..");
 
-            // Rediriger vers la page de connexion
-            navigateToLogin();
-        } else {
-            showAlert(Alert.AlertType.ERROR, "Erreur", "Impossible de réinitialiser le mot de passe. Veuillez réessayer.");
-        }
+                // Rediriger vers la page de connexion
+                navigateToLogin();
+            } else {
+                showAlert(Alert.AlertType.ERROR, "Erreur", "Impossible de réinitialiser le mot de passe. Veuillez réessayer.");
+            }
+        });
     }
 
     /**
@@ -0,0 +1,44 @@
+package entities;
+
+/**
+ * Résultat d'une action groupée sur des utilisateurs (UserService) : utilisateurs demandés
+ * et utilisateurs réellement traités ; les autres n'existaient pas ou n'étaient pas éligibles.
+ */
+public class BulkActionResult {
+    private final int requested;
+    private final int affected;
+
+    public BulkActionResult(int requested, int affected) {
+        this.requested = requested;
+        this.affected = affected;
+    }
+
+    /**
+     * @return Nombre d'utilisateurs distincts demandés
+     */
+    public int getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return Nombre d'utilisateurs traités
+     */
+    public int getAffected() {
+        return affected;
+    }
+
+    /**
+     * @return Nombre d'utilisateurs ignorés (introuvables, protégés par leur rôle ou, pour une suppression, encore référencés)
+     */
+    public int getSkipped() {
+        return requested - affected;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkActionResult{" +
+                "requested=" + requested +
+                ", affected=" + affected +
+                '}';
+    }
+}
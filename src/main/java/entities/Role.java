@@ -0,0 +1,130 @@
+package entities;
+
+/**
+ * Rôles d'un utilisateur. Un ensemble de rôles est un masque de bits (int) : un test de rôle est un ET binaire.
+ * La colonne user.roles reste un tableau JSON (["ROLE_USER"]) ; decode et encode sont l'unique conversion
+ * entre les deux formes.
+ */
+public enum Role {
+    USER("ROLE_USER"),
+    ADMIN("ROLE_ADMIN"),
+    SUPER_ADMIN("ROLE_SUPER_ADMIN");
+
+    // Administrateurs au sens large : ADMIN ou SUPER_ADMIN
+    public static final int ADMINISTRATORS = ADMIN.mask | SUPER_ADMIN.mask;
+
+    private static final Role[] VALUES = values();
+
+    // JSON de chaque masque possible, calculé une fois
+    private static final String[] JSON = new String[1 << VALUES.length];
+
+    static {
+        for (int roles = 0; roles < JSON.length; roles++) {
+            StringBuilder json = new StringBuilder("[");
+            for (Role role : VALUES) {
+                if ((roles & role.mask) != 0) {
+                    json.append(json.length() > 1 ? "," : "").append('"').append(role.code).append('"');
+                }
+            }
+            JSON[roles] = json.append(']').toString();
+        }
+    }
+
+    private final String code;
+    private final int mask;
+
+    Role(String code) {
+        this.code = code;
+        this.mask = 1 << ordinal();
+    }
+
+    /**
+     * @return Code stocké en base, par exemple ROLE_ADMIN
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * @return Bit du rôle dans un masque
+     */
+    public int getMask() {
+        return mask;
+    }
+
+    /**
+     * @param roles Masque de rôles
+     * @return true si le masque contient ce rôle
+     */
+    public boolean in(int roles) {
+        return (roles & mask) != 0;
+    }
+
+    /**
+     * @param code Code du rôle (ROLE_USER...)
+     * @return Le rôle, ou null si le code est inconnu
+     */
+    public static Role fromCode(String code) {
+        for (Role role : VALUES) {
+            if (role.code.equals(code)) {
+                return role;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Rôle le plus élevé d'un masque (SUPER_ADMIN > ADMIN > USER)
+     * @return Le rôle, ou null si le masque est vide
+     */
+    public static Role highest(int roles) {
+        for (int i = VALUES.length - 1; i >= 0; i--) {
+            if (VALUES[i].in(roles)) {
+                return VALUES[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Lire la colonne JSON roles sans découpage ni copie : chaque chaîne du tableau est comparée sur place
+     * aux codes connus ; les rôles inconnus sont ignorés.
+     * @param json Tableau JSON, par exemple ["ROLE_USER","ROLE_ADMIN"]
+     * @return Le masque ; USER si la colonne est vide (rôle par défaut)
+     */
+    public static int decode(String json) {
+        if (json == null || json.isBlank()) {
+            return USER.mask;
+        }
+        int roles = 0;
+        int length = json.length();
+        int i = 0;
+        while (i < length) {
+            int start = json.indexOf('"', i) + 1;
+            if (start == 0) {
+                break;
+            }
+            int end = json.indexOf('"', start);
+            if (end < 0) {
+                break;
+            }
+            for (Role role : VALUES) {
+                if (role.code.length() == end - start && json.regionMatches(start, role.code, 0, end - start)) {
+                    roles |= role.mask;
+                    break;
+                }
+            }
+            i = end + 1;
+        }
+        return roles;
+    }
+
+    /**
+     * @param roles Masque de rôles
+     * @return Le tableau JSON à stocker (chaîne partagée, aucune allocation) ; ["ROLE_USER"] si le masque est vide
+     */
+    public static String encode(int roles) {
+        int known = roles & (JSON.length - 1);
+        return JSON[known == 0 ? USER.mask : known];
+    }
+}
@@ -0,0 +1,73 @@
+package entities;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session d'un utilisateur connecté, identifiée par un jeton opaque (SessionStore).
+ * Lecture sans verrou : l'utilisateur et la dernière activité sont des champs volatils.
+ */
+public class Session {
+    private final String id;
+    private final long createdAt;
+    private volatile User user;
+    private volatile long lastAccessedAt;
+    // Dernière activité enregistrée en base (stockage partagé)
+    private final AtomicLong persistedAccessAt;
+
+    public Session(String id, User user, long createdAt, long lastAccessedAt) {
+        this.id = id;
+        this.user = user;
+        this.createdAt = createdAt;
+        this.lastAccessedAt = lastAccessedAt;
+        this.persistedAccessAt = new AtomicLong(lastAccessedAt);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public long getLastAccessedAt() {
+        return lastAccessedAt;
+    }
+
+    /**
+     * Noter une activité
+     * @param now Heure de l'activité (ms)
+     */
+    public void touch(long now) {
+        if (now > lastAccessedAt) {
+            lastAccessedAt = now;
+        }
+    }
+
+    /**
+     * Réserver l'enregistrement de l'activité en base, au plus une fois par intervalle
+     * @return true si l'appelant doit l'enregistrer
+     */
+    public boolean claimPersist(long now, long interval) {
+        long persisted = persistedAccessAt.get();
+        return now - persisted >= interval && persistedAccessAt.compareAndSet(persisted, now);
+    }
+
+    /**
+     * Fin de la session : la première des deux échéances (inactivité, durée absolue), 0 = pas de limite
+     * @return L'heure d'expiration (ms), Long.MAX_VALUE si aucune
+     */
+    public long getExpiresAt(long idleTimeout, long absoluteTimeout) {
+        long idle = idleTimeout > 0 ? lastAccessedAt + idleTimeout : Long.MAX_VALUE;
+        long absolute = absoluteTimeout > 0 ? createdAt + absoluteTimeout : Long.MAX_VALUE;
+        return Math.min(idle, absolute);
+    }
+}
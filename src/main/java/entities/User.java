@@ -1,8 +1,6 @@
 package entities;
 
 import java.sql.Timestamp;
-import java.util.ArrayList;
-import java.util.List;
 
 public class User {
     private int id;
@@ -12,14 +10,13 @@ public class User {
     private boolean isVerified;
     private boolean isBlocked;
     private Timestamp created_at;
-    private List<String> role;
+    private int roles; // Masque de Role
     private String password;
     private String image;
     private String secretKey; // Secret key for two-factor authentication
 
     // Default constructor
     public User() {
-        this.role = new ArrayList<>();
         this.isBlocked = false; // Valeur par défaut
     }
 
@@ -35,7 +32,21 @@ public class User {
         this.password = password;
         this.image = image;
         this.secretKey = secretKey;
-        this.role = new ArrayList<>();
+    }
+
+    // Copy constructor : le cache des utilisateurs ne partage jamais ses instances
+    public User(User other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.email = other.email;
+        this.phone_number = other.phone_number;
+        this.isVerified = other.isVerified;
+        this.isBlocked = other.isBlocked;
+        this.created_at = other.created_at == null ? null : (Timestamp) other.created_at.clone();
+        this.roles = other.roles;
+        this.password = other.password;
+        this.image = other.image;
+        this.secretKey = other.secretKey;
     }
 
     // Getters and Setters
@@ -95,12 +106,33 @@ public class User {
         this.created_at = created_at;
     }
 
-    public List<String> getRole() {
-        return role;
+    /**
+     * @return Masque des rôles (bits de Role)
+     */
+    public int getRoles() {
+        return roles;
+    }
+
+    public void setRoles(int roles) {
+        this.roles = roles;
+    }
+
+    public boolean hasRole(Role role) {
+        return role.in(roles);
+    }
+
+    /**
+     * @return true pour un ADMIN ou un SUPER_ADMIN
+     */
+    public boolean isAdministrator() {
+        return (roles & Role.ADMINISTRATORS) != 0;
     }
 
-    public void setRole(List<String> role) {
-        this.role = role;
+    /**
+     * @return true pour un client : ROLE_USER sans rôle d'administration
+     */
+    public boolean isClient() {
+        return Role.USER.in(roles) && !isAdministrator();
     }
 
     public String getPassword() {
@@ -137,7 +169,7 @@ public class User {
                 ", isVerified=" + isVerified +
                 ", isBlocked=" + isBlocked +
                 ", created_at=" + created_at +
-                ", role=" + role +
+                ", roles=" + Role.encode(roles) +
                 ", image='" + image + '\'' +
                 ", secretKey='" + (secretKey != null ? "***" : "null") + '\'' +
                 '}';
@@ -0,0 +1,76 @@
+package entities;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Modifications de la table user depuis un repère (UserService.getUserChanges) :
+ * utilisateurs modifiés qui vérifient encore le filtre, et IDs des utilisateurs supprimés ou qui ne le vérifient plus.
+ * Le repère retourné sert à la demande suivante.
+ */
+public class UserChanges {
+    private final List<UserSummary> changed;
+    private final Set<Integer> removedIds;
+    private final Timestamp watermark;
+    private final boolean fullReloadRequired;
+
+    public UserChanges(List<UserSummary> changed, Set<Integer> removedIds, Timestamp watermark,
+                       boolean fullReloadRequired) {
+        this.changed = Collections.unmodifiableList(changed);
+        this.removedIds = Collections.unmodifiableSet(removedIds);
+        this.watermark = watermark;
+        this.fullReloadRequired = fullReloadRequired;
+    }
+
+    /**
+     * Repère seul, sans modification (premier chargement ou modifications trop nombreuses)
+     */
+    public static UserChanges watermarkOnly(Timestamp watermark, boolean fullReloadRequired) {
+        return new UserChanges(List.of(), Set.of(), watermark, fullReloadRequired);
+    }
+
+    /**
+     * @return Utilisateurs modifiés (ou créés) qui vérifient le filtre
+     */
+    public List<UserSummary> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return IDs des utilisateurs supprimés, ou modifiés de sorte qu'ils ne vérifient plus le filtre
+     */
+    public Set<Integer> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * @return Repère à passer à la demande suivante (heure de la base)
+     */
+    public Timestamp getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return true si les modifications ne sont pas toutes connues (repère trop ancien ou trop de lignes) :
+     * la liste doit être relue
+     */
+    public boolean isFullReloadRequired() {
+        return fullReloadRequired;
+    }
+
+    public boolean isEmpty() {
+        return changed.isEmpty() && removedIds.isEmpty() && !fullReloadRequired;
+    }
+
+    @Override
+    public String toString() {
+        return "UserChanges{" +
+                "changed=" + changed.size() +
+                ", removed=" + removedIds.size() +
+                ", watermark=" + watermark +
+                ", fullReloadRequired=" + fullReloadRequired +
+                '}';
+    }
+}
@@ -0,0 +1,78 @@
+package entities;
+
+import java.util.Objects;
+
+/**
+ * Critères de la liste paginée des utilisateurs, appliqués en SQL par UserService
+ */
+public class UserFilter {
+    private final String searchText;
+    private final Boolean blocked;
+    private final Role role;
+    private final Integer excludedUserId;
+    private final boolean excludeSuperAdmins;
+
+    /**
+     * @param searchText Texte cherché dans le nom, l'email ou le téléphone (null ou vide = pas de recherche)
+     * @param blocked true = bloqués, false = actifs, null = tous
+     * @param role Rôle exigé (null = tous)
+     * @param excludedUserId Utilisateur à exclure, en général l'utilisateur connecté (null = aucun)
+     * @param excludeSuperAdmins Exclure les super administrateurs
+     */
+    public UserFilter(String searchText, Boolean blocked, Role role, Integer excludedUserId,
+                      boolean excludeSuperAdmins) {
+        this.searchText = searchText == null || searchText.isBlank() ? null : searchText.trim();
+        this.blocked = blocked;
+        this.role = role;
+        this.excludedUserId = excludedUserId;
+        this.excludeSuperAdmins = excludeSuperAdmins;
+    }
+
+    public String getSearchText() {
+        return searchText;
+    }
+
+    public Boolean getBlocked() {
+        return blocked;
+    }
+
+    public Role getRole() {
+        return role;
+    }
+
+    public Integer getExcludedUserId() {
+        return excludedUserId;
+    }
+
+    public boolean isExcludeSuperAdmins() {
+        return excludeSuperAdmins;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UserFilter)) return false;
+        UserFilter that = (UserFilter) o;
+        return excludeSuperAdmins == that.excludeSuperAdmins
+                && Objects.equals(searchText, that.searchText)
+                && Objects.equals(blocked, that.blocked)
+                && Objects.equals(role, that.role)
+                && Objects.equals(excludedUserId, that.excludedUserId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(searchText, blocked, role, excludedUserId, excludeSuperAdmins);
+    }
+
+    @Override
+    public String toString() {
+        return "UserFilter{" +
+                "searchText='" + searchText + '\'' +
+                ", blocked=" + blocked +
+                ", role='" + role + '\'' +
+                ", excludedUserId=" + excludedUserId +
+                ", excludeSuperAdmins=" + excludeSuperAdmins +
+                '}';
+    }
+}
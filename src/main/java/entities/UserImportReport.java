@@ -0,0 +1,107 @@
+package entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Bilan d'un import d'utilisateurs (UserImportService) : compteurs et erreurs par ligne.
+ * Seules les MAX_REPORTED_ERRORS premières erreurs sont gardées ; le compteur failed reste exact.
+ */
+public class UserImportReport {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    /**
+     * Ligne rejetée
+     */
+    public static class RowError {
+        private final int line;
+        private final String message;
+
+        public RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * @return Numéro de ligne dans le fichier (l'en-tête est la ligne 1)
+         */
+        public int getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+
+    private int processed;
+    private int imported;
+    private int failed;
+    private long durationMillis;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public UserImportReport() {
+    }
+
+    /**
+     * @return Lignes de données lues (hors en-tête)
+     */
+    public int getProcessed() {
+        return processed;
+    }
+
+    public void setProcessed(int processed) {
+        this.processed = processed;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public void addImported(int count) {
+        imported += count;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    /**
+     * Rejeter une ligne
+     */
+    public void addError(int line, String message) {
+        failed++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(line, message));
+        }
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Override
+    public String toString() {
+        return "UserImportReport{" +
+                "processed=" + processed +
+                ", imported=" + imported +
+                ", failed=" + failed +
+                ", durationMillis=" + durationMillis +
+                '}';
+    }
+}
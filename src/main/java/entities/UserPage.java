@@ -0,0 +1,71 @@
+package entities;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Une page de la liste des utilisateurs, triée par (nom, id).
+ * Les clés de la première et de la dernière ligne servent de curseur pour la page précédente ou suivante.
+ */
+public class UserPage {
+    private final List<UserSummary> users;
+    private final boolean hasPrevious;
+    private final boolean hasNext;
+
+    public UserPage(List<UserSummary> users, boolean hasPrevious, boolean hasNext) {
+        this.users = Collections.unmodifiableList(users);
+        this.hasPrevious = hasPrevious;
+        this.hasNext = hasNext;
+    }
+
+    public List<UserSummary> getUsers() {
+        return users;
+    }
+
+    public boolean hasPrevious() {
+        return hasPrevious;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * @return Curseur de la première ligne (pour la page précédente), ou null si la page est vide
+     */
+    public Key getFirstKey() {
+        return users.isEmpty() ? null : new Key(users.get(0));
+    }
+
+    /**
+     * @return Curseur de la dernière ligne (pour la page suivante), ou null si la page est vide
+     */
+    public Key getLastKey() {
+        return users.isEmpty() ? null : new Key(users.get(users.size() - 1));
+    }
+
+    /**
+     * Position d'une ligne dans l'ordre (nom, id)
+     */
+    public static class Key {
+        private final String name;
+        private final int id;
+
+        public Key(String name, int id) {
+            this.name = name;
+            this.id = id;
+        }
+
+        public Key(UserSummary user) {
+            this(user.getName(), user.getId());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getId() {
+            return id;
+        }
+    }
+}
@@ -1,11 +1,19 @@
 package entities;
 
+import services.SessionStore;
+
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
- * Classe singleton pour gérer la session utilisateur
+ * Session de l'utilisateur de cette fenêtre, au-dessus de SessionStore (sessions par identifiant opaque).
+ * Seul l'identifiant de la session courante est gardé ici : la lecture de l'utilisateur est sans verrou
+ * depuis n'importe quel thread, et une déconnexion concurrente donne null, jamais un état intermédiaire.
+ * Une session expirée (inactivité, durée maximale) vaut déconnexion.
  */
 public class UserSession {
-    private static UserSession instance;
-    private User currentUser;
+    private static final UserSession INSTANCE = new UserSession();
+
+    private final AtomicReference<String> sessionId = new AtomicReference<>();
 
     // Constructeur privé pour empêcher l'instanciation directe
     private UserSession() {
@@ -16,33 +24,63 @@ public class UserSession {
      * @return L'instance de UserSession
      */
     public static UserSession getInstance() {
-        if (instance == null) {
-            instance = new UserSession();
-        }
-        return instance;
+        return INSTANCE;
     }
 
     /**
-     * Définit l'utilisateur actuellement connecté
+     * Définit l'utilisateur actuellement connecté : met à jour la session courante s'il s'agit du même utilisateur
+     * (profil modifié), sinon ouvre une nouvelle session et ferme la précédente
      * @param user L'utilisateur connecté
      */
     public void setCurrentUser(User user) {
-        this.currentUser = user;
+        if (user == null) {
+            logout();
+            return;
+        }
+        SessionStore store = SessionStore.getInstance();
+        String current = sessionId.get();
+        if (current != null && store.replaceUser(current, user)) {
+            return;
+        }
+        String previous = sessionId.getAndSet(store.create(user).getId());
+        if (previous != null) {
+            store.invalidate(previous);
+        }
     }
 
     /**
      * Obtient l'utilisateur actuellement connecté
-     * @return L'utilisateur connecté
+     * @return L'utilisateur connecté, ou null (aucune session, ou session expirée)
      */
     public User getCurrentUser() {
-        return currentUser;
+        String id = sessionId.get();
+        if (id == null) {
+            return null;
+        }
+        Session session = SessionStore.getInstance().find(id);
+        if (session == null) {
+            sessionId.compareAndSet(id, null);
+            return null;
+        }
+        return session.getUser();
+    }
+
+    /**
+     * Identifiant de la session courante, pour la reprendre ailleurs (autre fenêtre, autre instance)
+     * @return L'identifiant, ou null si aucun utilisateur n'est connecté
+     */
+    public String getSessionId() {
+        return getCurrentUser() == null ? null : sessionId.get();
     }
 
     /**
      * Déconnecte l'utilisateur actuel
      */
     public void logout() {
-        this.currentUser = null;
+        String id = sessionId.getAndSet(null);
+        if (id != null) {
+            SessionStore.getInstance().invalidate(id);
+        }
     }
 
     /**
@@ -50,6 +88,6 @@ public class UserSession {
      * @return true si un utilisateur est connecté, false sinon
      */
     public boolean isLoggedIn() {
-        return currentUser != null;
+        return getCurrentUser() != null;
     }
 }
@@ -0,0 +1,106 @@
+package entities;
+
+/**
+ * Vue allégée d'un utilisateur pour les listes : ni hash du mot de passe, ni secret 2FA, ni image.
+ * L'entité complète se charge à la demande avec UserService.getUserById.
+ */
+public class UserSummary {
+    private int id;
+    private String name;
+    private String email;
+    private String phone_number;
+    private boolean isVerified;
+    private boolean isBlocked;
+    private int roles; // Masque de Role
+
+    public UserSummary() {
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getPhone_number() {
+        return phone_number;
+    }
+
+    public void setPhone_number(String phone_number) {
+        this.phone_number = phone_number;
+    }
+
+    public boolean isVerified() {
+        return isVerified;
+    }
+
+    public void setVerified(boolean verified) {
+        isVerified = verified;
+    }
+
+    public boolean isBlocked() {
+        return isBlocked;
+    }
+
+    public void setBlocked(boolean blocked) {
+        isBlocked = blocked;
+    }
+
+    /**
+     * @return Masque des rôles (bits de Role)
+     */
+    public int getRoles() {
+        return roles;
+    }
+
+    public void setRoles(int roles) {
+        this.roles = roles;
+    }
+
+    public boolean hasRole(Role role) {
+        return role.in(roles);
+    }
+
+    /**
+     * @return true pour un ADMIN ou un SUPER_ADMIN
+     */
+    public boolean isAdministrator() {
+        return (roles & Role.ADMINISTRATORS) != 0;
+    }
+
+    /**
+     * @return true pour un client : ROLE_USER sans rôle d'administration
+     */
+    public boolean isClient() {
+        return Role.USER.in(roles) && !isAdministrator();
+    }
+
+    @Override
+    public String toString() {
+        return "UserSummary{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", roles=" + Role.encode(roles) +
+                ", isBlocked=" + isBlocked +
+                '}';
+    }
+}
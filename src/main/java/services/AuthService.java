@@ -1,18 +1,24 @@
 package services;
 
+import entities.Role;
 import entities.User;
 import entities.UserSession;
 import services.RoleService;
+import utils.CryptoExecutor;
+import utils.DatabaseExecutor;
 import utils.MyDatabase;
 import utils.PasswordHasher;
+import utils.TransactionManager;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 
@@ -21,13 +27,19 @@ import java.sql.Timestamp;
  */
 public class AuthService {
     private static AuthService instance;
-    private final Connection connection;
+
+    // Clés uniques de la table user (java_ratrappage.sql, add_user_phone_unique.sql), en minuscules
+    private static final String EMAIL_UNIQUE_KEY = "uniq_8d93d649e7927c74";
+    private static final String PHONE_UNIQUE_KEY = "uniq_user_phone_number";
+
+    // Présence de l'index unique du téléphone, lue au premier enregistrement (null : pas encore vérifiée).
+    // Sans lui (migration en échec à cause de doublons), l'inscription revient à une vérification préalable.
+    private volatile Boolean phoneUniqueKeyPresent;
 
     /**
      * Constructeur privé pour le pattern Singleton
      */
     private AuthService() {
-        connection = MyDatabase.getInstance().getConnection();
     }
 
     /**
@@ -48,83 +60,193 @@ public class AuthService {
      * @return L'utilisateur authentifié ou null si l'authentification échoue
      * @throws SQLException En cas d'erreur SQL
      * @throws IllegalStateException Si le compte est bloqué
+     * @throws LoginThrottledException Si l'email a trop d'échecs récents (ni lecture en base ni BCrypt)
      */
     public User login(String email, String password) throws SQLException, IllegalStateException {
-        String query = "SELECT * FROM user WHERE email = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        LoginThrottle.check(email);
+        try {
+            Credentials credentials = readCredentials(email);
+            if (credentials == null) {
+                LoginThrottle.recordFailure(email);
+                return null;
+            }
+            // Vérification BCrypt sur CryptoExecutor, connexion déjà rendue
+            return authenticate(email, credentials, password,
+                    CryptoExecutor.verifyPassword(password, credentials.passwordHash));
+        } finally {
+            LoginThrottle.release(email);
+        }
+    }
+
+    // Utilisateur et hash de son mot de passe, lus avant la vérification
+    private static final class Credentials {
+        private final User user;
+        private final String passwordHash;
+
+        Credentials(User user, String passwordHash) {
+            this.user = user;
+            this.passwordHash = passwordHash;
+        }
+    }
+
+    private Credentials readCredentials(String email) throws SQLException {
+        // Projection d'authentification : le hash à vérifier, sans secret 2FA ni jeton de réinitialisation
+        String query = "SELECT " + UserService.USER_COLUMNS + ", password FROM user WHERE email = ?";
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, email);
 
             try (ResultSet resultSet = statement.executeQuery()) {
                 if (resultSet.next()) {
-                    String hashedPassword = resultSet.getString("password");
-                    
-                    // Vérifier le mot de passe avec notre PasswordHasher compatible $2y$/$2a$
-                    if (PasswordHasher.verifyPassword(password, hashedPassword)) {
-                        // Create User object with database data
-                        User user = new User();
-                        user.setId(resultSet.getInt("id"));
-                        user.setName(resultSet.getString("name"));
-                        user.setEmail(resultSet.getString("email"));
-                        user.setPhone_number(resultSet.getString("phone_number"));
-                        user.setVerified(resultSet.getBoolean("is_verified"));
-                        user.setBlocked(resultSet.getBoolean("is_blocked"));
-                        user.setCreated_at(resultSet.getTimestamp("created_at"));
-                        user.setPassword(hashedPassword); // Important : assigner le mot de passe haché
-                        user.setImage(resultSet.getString("image"));
-                        user.setSecretKey(resultSet.getString("secret_key")); // Get 2FA secret key
-
-                        // Récupérer les rôles depuis le champ JSON
-                        String rolesJson = resultSet.getString("roles");
-                        user.setRole(parseRolesFromJson(rolesJson));
-
-                        // Check if account is blocked
-                        if (user.isBlocked()) {
-                            throw new IllegalStateException("Your account is blocked. Please contact administrator.");
-                        }
-
-                        // Store user in session
-                        UserSession.getInstance().setCurrentUser(user);
-
-                        return user;
-                    }
+                    User user = EntityMappers.USER.read(resultSet, EntityMappers.USER.resolve(resultSet));
+                    return new Credentials(user, resultSet.getString("password"));
                 }
             }
         }
-
         return null;
     }
 
+    private User authenticate(String email, Credentials credentials, String password, boolean passwordValid) {
+        if (!passwordValid) {
+            LoginThrottle.recordFailure(email);
+            return null;
+        }
+        User user = credentials.user;
+
+        // Check if account is blocked
+        if (user.isBlocked()) {
+            throw new IllegalStateException("Your account is blocked. Please contact administrator.");
+        }
+
+        // Hash d'un autre coût que le coût calibré : recalculé en arrière-plan, la connexion n'attend pas
+        if (PasswordHasher.needsRehash(credentials.passwordHash)) {
+            rehashPassword(user.getId(), credentials.passwordHash, password);
+        }
+
+        // Store user in session
+        UserSession.getInstance().setCurrentUser(user);
+
+        return user;
+    }
+
     /**
-     * Register a new user
-     * @param user The user to register
+     * Remplacer le hash d'un utilisateur par un hash au coût courant (PasswordHasher.getCost),
+     * seulement si le mot de passe n'a pas été changé entre-temps. Un échec (file de CryptoExecutor pleine,
+     * erreur SQL) reporte simplement le rehash à la connexion suivante.
+     */
+    private void rehashPassword(int userId, String oldHash, String password) {
+        CryptoExecutor.hash(password)
+                .thenCompose(newHash -> DatabaseExecutor.run(() -> {
+                    try (Connection connection = MyDatabase.getInstance().getConnection();
+                         PreparedStatement statement = connection.prepareStatement(
+                                 "UPDATE user SET password = ? WHERE id = ? AND password = ?")) {
+                        statement.setString(1, newHash);
+                        statement.setInt(2, userId);
+                        statement.setString(3, oldHash);
+                        statement.executeUpdate();
+                    }
+                }))
+                .exceptionally(e -> {
+                    System.err.println("Rehash du mot de passe de l'utilisateur " + userId + " reporté : "
+                            + DatabaseExecutor.unwrap(e).getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Register a new user in a single write: the password is hashed before any connection is borrowed,
+     * then the user row and its search tokens are inserted in one transaction. Uniqueness of the email
+     * and phone number is enforced by the unique keys of the user table, not by prior lookups; while the
+     * phone key is missing (add_user_phone_unique.sql not applied), the phone number is checked first.
+     * @param user The user to register; its ID is set from the generated key
      * @throws SQLException In case of SQL error
+     * @throws IllegalArgumentException If the email or phone number is already in use
      */
-    public void register(User user) throws SQLException {
+    public void register(User user) throws SQLException, IllegalArgumentException {
+        // Hasher le mot de passe au format $2y$ sur CryptoExecutor
+        insertRegisteredUser(user, CryptoExecutor.hashPassword(user.getPassword()));
+    }
+
+    private void insertRegisteredUser(User user, String hashedPassword) throws SQLException {
         // Assigner le rôle par défaut "ROLE_USER" 
-        user.getRole().clear();
-        user.getRole().add("ROLE_USER");
+        user.setRoles(Role.USER.getMask());
         
-        // Hasher le mot de passe avec notre PasswordHasher au format $2y$
-        String hashedPassword = PasswordHasher.hashPassword(user.getPassword());
-        
-        // Convertir la liste des rôles en JSON
-        String rolesJson = "[\"ROLE_USER\"]";
+        // Convertir les rôles en JSON
+        String rolesJson = Role.encode(user.getRoles());
         
         String query = "INSERT INTO user (name, email, phone_number, password, is_verified, created_at, roles, is_blocked) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, user.getName());
-            statement.setString(2, user.getEmail());
-            statement.setString(3, user.getPhone_number());
-            statement.setString(4, hashedPassword); // Utiliser le mot de passe hashé
-            statement.setBoolean(5, user.isVerified());
-            statement.setTimestamp(6, user.getCreated_at());
-            statement.setString(7, rolesJson);
-            statement.setBoolean(8, user.isBlocked()); // Utiliser la valeur de l'entité
-
-            statement.executeUpdate();
+        try {
+            // L'utilisateur et son entrée dans l'index de recherche sont écrits ensemble
+            TransactionManager.inTransaction(() -> {
+                try (Connection connection = MyDatabase.getInstance().getConnection();
+                     PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                    if (!hasPhoneUniqueKey(connection) && phoneTaken(connection, user.getPhone_number())) {
+                        throw new IllegalArgumentException("This phone number is already in use.");
+                    }
+                    UserIdentifierFilter.getInstance().add(user.getEmail(), user.getPhone_number());
+                    statement.setString(1, user.getName());
+                    statement.setString(2, user.getEmail());
+                    statement.setString(3, user.getPhone_number());
+                    statement.setString(4, hashedPassword); // Utiliser le mot de passe hashé
+                    statement.setBoolean(5, user.isVerified());
+                    statement.setTimestamp(6, user.getCreated_at());
+                    statement.setString(7, rolesJson);
+                    statement.setBoolean(8, user.isBlocked()); // Utiliser la valeur de l'entité
+
+                    statement.executeUpdate();
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        if (keys.next()) {
+                            user.setId(keys.getInt(1));
+                        }
+                    }
+                }
+                UserSearchIndex.getInstance().indexNew(List.of(user));
+            });
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // La contrainte violée désigne le champ déjà utilisé
+            String message = String.valueOf(e.getMessage()).toLowerCase(Locale.ROOT);
+            if (message.contains(EMAIL_UNIQUE_KEY)) {
+                throw new IllegalArgumentException("This email is already in use.");
+            }
+            if (message.contains(PHONE_UNIQUE_KEY)) {
+                throw new IllegalArgumentException("This phone number is already in use.");
+            }
+            throw e;
         }
     }
     
+    private boolean hasPhoneUniqueKey(Connection connection) throws SQLException {
+        Boolean present = phoneUniqueKeyPresent;
+        if (present == null) {
+            present = false;
+            try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, "user",
+                    true, true)) {
+                while (indexes.next()) {
+                    if (PHONE_UNIQUE_KEY.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) {
+                        present = true;
+                        break;
+                    }
+                }
+            }
+            if (!present) {
+                System.err.println("Index unique " + PHONE_UNIQUE_KEY + " absent (doublons de téléphone ?) : "
+                        + "le téléphone est vérifié avant chaque inscription");
+            }
+            phoneUniqueKeyPresent = present;
+        }
+        return present;
+    }
+
+    private boolean phoneTaken(Connection connection, String phoneNumber) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM user WHERE phone_number = ? LIMIT 1")) {
+            statement.setString(1, phoneNumber);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+
     /**
      * Récupérer un utilisateur par son email
      * @param email L'email de l'utilisateur
@@ -132,34 +254,8 @@ public class AuthService {
      * @throws SQLException En cas d'erreur SQL
      */
     public User getUserByEmail(String email) throws SQLException {
-        String query = "SELECT * FROM user WHERE email = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, email);
-
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    // Create User object with database data
-                    User user = new User();
-                    user.setId(resultSet.getInt("id"));
-                    user.setName(resultSet.getString("name"));
-                    user.setEmail(resultSet.getString("email"));
-                    user.setPhone_number(resultSet.getString("phone_number"));
-                    user.setVerified(resultSet.getBoolean("is_verified"));
-                    user.setBlocked(resultSet.getBoolean("is_blocked"));
-                    user.setCreated_at(resultSet.getTimestamp("created_at"));
-                    user.setPassword(resultSet.getString("password")); // Important : récupérer le mot de passe
-                    user.setImage(resultSet.getString("image"));
-
-                    // Récupérer les rôles depuis le champ JSON
-                    String rolesJson = resultSet.getString("roles");
-                    user.setRole(parseRolesFromJson(rolesJson));
-
-                    return user;
-                }
-            }
-        }
-
-        return null;
+        // Même lecture que UserService.getUserByEmail, donc même cache
+        return UserService.getInstance().getUserByEmail(email);
     }
 
     /**
@@ -170,11 +266,13 @@ public class AuthService {
      */
     public boolean updateUserSecret(String email, String secretKey) {
         String query = "UPDATE user SET secret_key = ?, is_verified = true WHERE email = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, secretKey);
             statement.setString(2, email);
 
             int rowsAffected = statement.executeUpdate();
+            UserCache.invalidateEmail(email);
             if (rowsAffected > 0) {
                 System.out.println("Utilisateur " + email + " vérifié avec succès (is_verified = true).");
                 return true;
@@ -196,8 +294,13 @@ public class AuthService {
      * @throws SQLException En cas d'erreur SQL
      */
     public boolean emailExists(String email) throws SQLException {
+        // Absent du filtre : libre sans requête
+        if (!UserIdentifierFilter.getInstance().mightContainEmail(email)) {
+            return false;
+        }
         String query = "SELECT COUNT(*) FROM user WHERE email = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, email);
 
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -217,8 +320,12 @@ public class AuthService {
      * @throws SQLException In case of SQL error
      */
     public boolean phoneExists(String phoneNumber) throws SQLException {
+        if (!UserIdentifierFilter.getInstance().mightContainPhone(phoneNumber)) {
+            return false;
+        }
         String query = "SELECT COUNT(*) FROM user WHERE phone_number = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, phoneNumber);
 
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -247,47 +354,76 @@ public class AuthService {
     }
     
     /**
-     * Parser les rôles depuis une chaîne JSON
-     * @param rolesJson La chaîne JSON contenant les rôles
-     * @return Liste des rôles
+     * Logout the current user by clearing the session
      */
-    private List<String> parseRolesFromJson(String rolesJson) {
-        List<String> roles = new ArrayList<>();
-        
-        if (rolesJson != null && !rolesJson.isEmpty()) {
-            try {
-                // Enlever les crochets et guillemets
-                rolesJson = rolesJson.trim();
-                if (rolesJson.startsWith("[") && rolesJson.endsWith("]")) {
-                    rolesJson = rolesJson.substring(1, rolesJson.length() - 1);
-                }
-                
-                // Séparer les rôles par virgule
-                String[] roleArray = rolesJson.split(",");
-                for (String role : roleArray) {
-                    role = role.trim();
-                    // Enlever les guillemets
-                    if (role.startsWith("\"") && role.endsWith("\"")) {
-                        role = role.substring(1, role.length() - 1);
-                    }
-                    if (!role.isEmpty()) {
-                        roles.add(role);
+
+    // ============ ASYNCHRONOUS VARIANTS ============
+    // Run on DatabaseExecutor; the returned futures complete on the JavaFX thread.
+
+    /**
+     * Asynchronous {@link #login(String, String)}
+     */
+    public CompletableFuture<User> loginAsync(String email, String password) {
+        // Throttled attempts fail at once, before any thread is involved
+        try {
+            LoginThrottle.check(email);
+        } catch (LoginThrottledException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        // The row is read on DatabaseExecutor, the password checked on CryptoExecutor: no thread waits for the other
+        return DatabaseExecutor.onFx(DatabaseExecutor.supply(() -> readCredentials(email))
+                .thenCompose(credentials -> {
+                    if (credentials == null) {
+                        LoginThrottle.recordFailure(email);
+                        return CompletableFuture.<User>completedFuture(null);
                     }
-                }
-            } catch (Exception e) {
-                // En cas d'erreur, assigner le rôle par défaut
-                roles.add("ROLE_USER");
-            }
-        } else {
-            // Si pas de rôles, assigner le rôle par défaut
-            roles.add("ROLE_USER");
+                    return CryptoExecutor.verify(password, credentials.passwordHash)
+                            .thenApply(valid -> authenticate(email, credentials, password, valid));
+                })
+                // Whatever the outcome, including an error, the reservation taken by check is returned
+                .whenComplete((user, error) -> LoginThrottle.release(email)));
+    }
+
+    /**
+     * Asynchronous {@link #register(User)}
+     */
+    public CompletableFuture<Void> registerAsync(User user) {
+        return DatabaseExecutor.onFx(CryptoExecutor.hash(user.getPassword())
+                .thenCompose(hashedPassword -> DatabaseExecutor.run(() -> insertRegisteredUser(user, hashedPassword))));
+    }
+
+    /**
+     * Asynchronous {@link #getUserByEmail(String)}
+     */
+    public CompletableFuture<User> getUserByEmailAsync(String email) {
+        return DatabaseExecutor.supply(() -> getUserByEmail(email));
+    }
+
+    /**
+     * Asynchronous {@link #updateUserSecret(String, String)}
+     */
+    public CompletableFuture<Boolean> updateUserSecretAsync(String email, String secretKey) {
+        return DatabaseExecutor.supply(() -> updateUserSecret(email, secretKey));
+    }
+
+    /**
+     * Asynchronous {@link #emailExists(String)}
+     */
+    public CompletableFuture<Boolean> emailExistsAsync(String email) {
+        // A value absent from the filter is answered at once, without a database thread
+        if (!UserIdentifierFilter.getInstance().mightContainEmailNow(email)) {
+            return CompletableFuture.completedFuture(false);
         }
-        
-        return roles;
+        return DatabaseExecutor.supply(() -> emailExists(email));
     }
 
     /**
-     * Logout the current user by clearing the session
+     * Asynchronous {@link #phoneExists(String)}
      */
-    
+    public CompletableFuture<Boolean> phoneExistsAsync(String phoneNumber) {
+        if (!UserIdentifierFilter.getInstance().mightContainPhoneNow(phoneNumber)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return DatabaseExecutor.supply(() -> phoneExists(phoneNumber));
+    }
 }
@@ -1,25 +1,27 @@
 package services;
 
 import entities.Contact;
+import utils.DatabaseExecutor;
 import utils.MyDatabase;
+import utils.ResultSetStream;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class ContactService implements IService<Contact> {
 
-    private Connection connection;
-
     public ContactService() {
-        connection = MyDatabase.getInstance().getConnection();
     }
 
     @Override
     public void ajouter(Contact contact) throws SQLException {
         String query = "INSERT INTO contact (user_email, subject, content, status, created_at) VALUES (?, ?, ?, ?, ?)";
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setString(1, contact.getUserEmail());
             ps.setString(2, contact.getSubject());
             ps.setString(3, contact.getContent());
@@ -36,7 +38,8 @@ public class ContactService implements IService<Contact> {
     @Override
     public void modifier(Contact contact) throws SQLException {
         String query = "UPDATE contact SET user_email = ?, subject = ?, content = ?, status = ? WHERE id = ?";
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setString(1, contact.getUserEmail());
             ps.setString(2, contact.getSubject());
             ps.setString(3, contact.getContent());
@@ -53,7 +56,8 @@ public class ContactService implements IService<Contact> {
     @Override
     public void supprimer(Contact contact) throws SQLException {
         String query = "DELETE FROM contact WHERE id = ?";
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setInt(1, contact.getId());
             ps.executeUpdate();
             System.out.println("Contact deleted successfully!");
@@ -67,10 +71,10 @@ public class ContactService implements IService<Contact> {
     public List<Contact> afficher() throws SQLException {
         List<Contact> contacts = new ArrayList<>();
         String query = "SELECT * FROM contact ORDER BY created_at DESC";
-        try (Statement st = connection.createStatement()) {
-            ResultSet rs = st.executeQuery(query);
-            while (rs.next()) {
-                contacts.add(mapResultSetToContact(rs));
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             Statement st = connection.createStatement()) {
+            try (ResultSet rs = st.executeQuery(query)) {
+                contacts.addAll(EntityMappers.CONTACT.list(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error retrieving all contacts: " + e.getMessage());
@@ -79,30 +83,36 @@ public class ContactService implements IService<Contact> {
         return contacts;
     }
 
+    // Lecture ligne par ligne de tous les messages (exports, traitements en masse) ;
+    // le Stream garde sa connexion jusqu'à sa fermeture (try-with-resources)
+    public Stream<Contact> streamContacts() throws SQLException {
+        return ResultSetStream.query(MyDatabase.getInstance().getReadConnection(),
+                "SELECT * FROM contact ORDER BY created_at DESC", null, EntityMappers.CONTACT.rowMapper());
+    }
+
     // Méthode utilitaire pour récupérer un contact par ID
     public Contact getContactById(int id) throws SQLException {
         String query = "SELECT * FROM contact WHERE id = ?";
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setInt(1, id);
-            ResultSet rs = ps.executeQuery();
-            if (rs.next()) {
-                return mapResultSetToContact(rs);
+            try (ResultSet rs = ps.executeQuery()) {
+                return EntityMappers.CONTACT.first(rs);
             }
         } catch (SQLException e) {
             System.err.println("Error retrieving contact: " + e.getMessage());
             throw e;
         }
-        return null;
     }
 
     public List<Contact> getContactsByUserEmail(String userEmail) throws SQLException {
         List<Contact> contacts = new ArrayList<>();
         String query = "SELECT * FROM contact WHERE user_email = ? ORDER BY created_at DESC";
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setString(1, userEmail);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                contacts.add(mapResultSetToContact(rs));
+            try (ResultSet rs = ps.executeQuery()) {
+                contacts.addAll(EntityMappers.CONTACT.list(rs));
             }
         } catch (SQLException e) {
             System.err.println("Error retrieving contacts for user: " + e.getMessage());
@@ -113,7 +123,8 @@ public class ContactService implements IService<Contact> {
 
     public void updateStatus(int id, String status) throws SQLException {
         String query = "UPDATE contact SET status = ? WHERE id = ?";
-        try (PreparedStatement ps = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement ps = connection.prepareStatement(query)) {
             ps.setString(1, status);
             ps.setInt(2, id);
             ps.executeUpdate();
@@ -124,18 +135,55 @@ public class ContactService implements IService<Contact> {
         }
     }
 
-    private Contact mapResultSetToContact(ResultSet rs) throws SQLException {
-        Contact contact = new Contact();
-        contact.setId(rs.getInt("id"));
-        contact.setUserEmail(rs.getString("user_email"));
-        contact.setSubject(rs.getString("subject"));
-        contact.setContent(rs.getString("content"));
-        try {
-            contact.setStatus(rs.getString("status"));
-        } catch (SQLException ignored) {
-            // For backward compatibility if column doesn't exist
-        }
-        contact.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-        return contact;
+    // ============ ASYNCHRONOUS VARIANTS ============
+    // Run on DatabaseExecutor; the returned futures complete on the JavaFX thread.
+
+    /**
+     * Asynchronous {@link #ajouter(Contact)}
+     */
+    public CompletableFuture<Void> ajouterAsync(Contact contact) {
+        return DatabaseExecutor.run(() -> ajouter(contact));
+    }
+
+    /**
+     * Asynchronous {@link #modifier(Contact)}
+     */
+    public CompletableFuture<Void> modifierAsync(Contact contact) {
+        return DatabaseExecutor.run(() -> modifier(contact));
+    }
+
+    /**
+     * Asynchronous {@link #supprimer(Contact)}
+     */
+    public CompletableFuture<Void> supprimerAsync(Contact contact) {
+        return DatabaseExecutor.run(() -> supprimer(contact));
+    }
+
+    /**
+     * Asynchronous {@link #afficher()}
+     */
+    public CompletableFuture<List<Contact>> afficherAsync() {
+        return DatabaseExecutor.supply(() -> afficher());
+    }
+
+    /**
+     * Asynchronous {@link #getContactById(int)}
+     */
+    public CompletableFuture<Contact> getContactByIdAsync(int id) {
+        return DatabaseExecutor.supply(() -> getContactById(id));
+    }
+
+    /**
+     * Asynchronous {@link #getContactsByUserEmail(String)}
+     */
+    public CompletableFuture<List<Contact>> getContactsByUserEmailAsync(String userEmail) {
+        return DatabaseExecutor.supply(() -> getContactsByUserEmail(userEmail));
+    }
+
+    /**
+     * Asynchronous {@link #updateStatus(int, String)}
+     */
+    public CompletableFuture<Void> updateStatusAsync(int id, String status) {
+        return DatabaseExecutor.run(() -> updateStatus(id, status));
     }
 }
@@ -0,0 +1,114 @@
+package services;
+
+import entities.Contact;
+import entities.Personne;
+import entities.Rating;
+import entities.Role;
+import entities.User;
+import entities.UserSummary;
+import utils.ColumnMapper;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+/**
+ * Conversions ResultSet -> entité partagées par les services.
+ * Chaque mapper lit par index (résolus une fois par ResultSet) ; les colonnes suffixées par « ? »
+ * peuvent manquer dans la requête.
+ */
+public final class EntityMappers {
+
+    /**
+     * Entité User (UserService.USER_COLUMNS) ; created_at et image sont facultatives
+     */
+    public static final ColumnMapper<User> USER = new ColumnMapper<>((resultSet, columns) -> {
+        User user = new User();
+        user.setId(resultSet.getInt(columns[0]));
+        user.setName(resultSet.getString(columns[1]));
+        user.setEmail(resultSet.getString(columns[2]));
+        user.setPhone_number(resultSet.getString(columns[3]));
+        user.setVerified(resultSet.getBoolean(columns[4]));
+        user.setBlocked(resultSet.getBoolean(columns[5]));
+        user.setRoles(Role.decode(resultSet.getString(columns[6])));
+        if (columns[7] > 0) {
+            user.setCreated_at(resultSet.getTimestamp(columns[7]));
+        }
+        if (columns[8] > 0) {
+            user.setImage(resultSet.getString(columns[8]));
+        }
+        return user;
+    }, "id", "name", "email", "phone_number", "is_verified", "is_blocked", "roles", "created_at?", "image?");
+
+    /**
+     * Résumé pour les listes (UserService.SUMMARY_COLUMNS)
+     */
+    public static final ColumnMapper<UserSummary> USER_SUMMARY = new ColumnMapper<>((resultSet, columns) -> {
+        UserSummary user = new UserSummary();
+        user.setId(resultSet.getInt(columns[0]));
+        user.setName(resultSet.getString(columns[1]));
+        user.setEmail(resultSet.getString(columns[2]));
+        user.setPhone_number(resultSet.getString(columns[3]));
+        user.setVerified(resultSet.getBoolean(columns[4]));
+        user.setBlocked(resultSet.getBoolean(columns[5]));
+        user.setRoles(Role.decode(resultSet.getString(columns[6])));
+        return user;
+    }, "id", "name", "email", "phone_number", "is_verified", "is_blocked", "roles");
+
+    /**
+     * Masque des rôles seul (colonne JSON roles)
+     */
+    public static final ColumnMapper<Integer> ROLES = new ColumnMapper<>(
+            (resultSet, columns) -> Role.decode(resultSet.getString(columns[0])), "roles");
+
+    /**
+     * Note, avec le nom de l'auteur (rater_name) ou du destinataire (rated_name) selon la jointure
+     */
+    public static final ColumnMapper<Rating> RATING = new ColumnMapper<>((resultSet, columns) -> {
+        Rating rating = new Rating();
+        rating.setId(resultSet.getInt(columns[0]));
+        rating.setRaterId(resultSet.getInt(columns[1]));
+        rating.setRatedId(resultSet.getInt(columns[2]));
+        rating.setStars(resultSet.getInt(columns[3]));
+        rating.setComment(resultSet.getString(columns[4]));
+        rating.setCreatedAt(toLocalDateTime(resultSet.getTimestamp(columns[5])));
+        if (columns[6] > 0) {
+            rating.setRaterName(resultSet.getString(columns[6]));
+        }
+        if (columns[7] > 0) {
+            rating.setRatedName(resultSet.getString(columns[7]));
+        }
+        return rating;
+    }, "id", "rater_id", "rated_id", "stars", "comment", "created_at", "rater_name?", "rated_name?");
+
+    /**
+     * Message de contact ; status est facultative (anciens schémas)
+     */
+    public static final ColumnMapper<Contact> CONTACT = new ColumnMapper<>((resultSet, columns) -> {
+        Contact contact = new Contact();
+        contact.setId(resultSet.getInt(columns[0]));
+        contact.setUserEmail(resultSet.getString(columns[1]));
+        contact.setSubject(resultSet.getString(columns[2]));
+        contact.setContent(resultSet.getString(columns[3]));
+        if (columns[4] > 0) {
+            contact.setStatus(resultSet.getString(columns[4]));
+        }
+        contact.setCreatedAt(toLocalDateTime(resultSet.getTimestamp(columns[5])));
+        return contact;
+    }, "id", "user_email", "subject", "content", "status?", "created_at");
+
+    public static final ColumnMapper<Personne> PERSONNE = new ColumnMapper<>((resultSet, columns) -> {
+        Personne personne = new Personne();
+        personne.setId(resultSet.getInt(columns[0]));
+        personne.setNom(resultSet.getString(columns[1]));
+        personne.setPrenom(resultSet.getString(columns[2]));
+        personne.setAge(resultSet.getInt(columns[3]));
+        return personne;
+    }, "id", "nom", "prenom", "age");
+
+    private EntityMappers() {
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,190 @@
+package services;
+
+import java.security.SecureRandom;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitation des tentatives de connexion par email, appliquée par AuthService avant la lecture en base
+ * et la vérification BCrypt : une rafale de mauvais mots de passe ne consomme pas les cœurs de CryptoExecutor.
+ * Au-delà de FREE_ATTEMPTS échecs dans la fenêtre glissante, chaque tentative doit attendre un délai
+ * qui double à chaque échec (BASE_DELAY_MS, 2x, 4x...) jusqu'au blocage MAX_DELAY_MS.
+ * Les échecs sont comptés sans verrou dans un tableau de taille fixe : deux rangées de STRIPES compteurs
+ * (hachages indépendants, valeur retenue = minimum des deux), chacun découpé en BUCKETS tranches de la fenêtre.
+ * La mémoire ne dépend pas du nombre d'emails essayés ; une collision dans une rangée ne suffit pas
+ * à pénaliser un autre compte. Une connexion réussie n'efface pas les échecs (compteurs partagés) :
+ * ils sortent de la fenêtre.
+ * Chaque tentative acceptée par check est réservée jusqu'à release : les tentatives en cours comptent comme
+ * des échecs possibles, si bien qu'une rafale parallèle ne passe pas toute entière avant le premier échec
+ * enregistré. Au-delà de FREE_ATTEMPTS, une seule tentative à la fois par email.
+ */
+public final class LoginThrottle {
+
+    // Échecs tolérés sans délai dans la fenêtre, délai après le premier échec en trop, délai maximal (blocage)
+    static final int FREE_ATTEMPTS = Integer.getInteger("login.throttle.freeAttempts", 5);
+    static final long WINDOW_MS = Long.getLong("login.throttle.windowMs", 15 * 60_000L);
+    static final long BASE_DELAY_MS = Long.getLong("login.throttle.baseDelayMs", 1000L);
+    static final long MAX_DELAY_MS = Long.getLong("login.throttle.maxDelayMs", 15 * 60_000L);
+
+    // Compteurs par rangée (puissance de deux) et tranches de la fenêtre glissante
+    static final int STRIPES = Integer.highestOneBit(Math.max(1, Integer.getInteger("login.throttle.stripes", 4096)));
+    private static final int ROWS = 2;
+    private static final int BUCKETS = 15;
+    private static final long BUCKET_MS = Math.max(1, WINDOW_MS / BUCKETS);
+
+    // Une tranche tient dans un long : numéro de tranche (bits hauts) et nombre d'échecs (COUNT_BITS bits bas)
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private static final AtomicLongArray COUNTS = new AtomicLongArray(ROWS * STRIPES * BUCKETS);
+    private static final AtomicLongArray LAST_FAILURE = new AtomicLongArray(ROWS * STRIPES);
+    // Tentatives en cours par compteur (réservées par check, rendues par release)
+    private static final AtomicLongArray IN_FLIGHT = new AtomicLongArray(ROWS * STRIPES);
+
+    // Graines tirées au démarrage : les collisions ne se calculent pas à l'avance
+    private static final long[] SEEDS = new SecureRandom().longs(ROWS).toArray();
+
+    private static final LongAdder CHECKED = new LongAdder();
+    private static final LongAdder REJECTED = new LongAdder();
+    private static final LongAdder FAILURES = new LongAdder();
+
+    private LoginThrottle() {
+    }
+
+    /**
+     * Réserver une tentative, ou la refuser si l'email a trop d'échecs récents ou de tentatives en cours.
+     * Une tentative acceptée doit être rendue par release une fois son issue connue (après recordFailure
+     * en cas d'échec), y compris si elle est interrompue par une erreur.
+     * @param email Email saisi
+     * @throws LoginThrottledException Si la tentative doit attendre (rien n'est alors réservé)
+     */
+    public static void check(String email) throws LoginThrottledException {
+        CHECKED.increment();
+        String key = key(email);
+        // Réserver avant de lire : de deux tentatives simultanées, au moins une voit l'autre
+        long inFlight = Long.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            inFlight = Math.min(inFlight, IN_FLIGHT.incrementAndGet(counter(key, row)));
+        }
+        long retryAfter = retryAfterMillis(key, System.currentTimeMillis(), inFlight - 1);
+        if (retryAfter > 0) {
+            releaseKey(key);
+            REJECTED.increment();
+            throw new LoginThrottledException(retryAfter);
+        }
+    }
+
+    /**
+     * Rendre la tentative réservée par check
+     * @param email Email saisi
+     */
+    public static void release(String email) {
+        releaseKey(key(email));
+    }
+
+    private static void releaseKey(String key) {
+        for (int row = 0; row < ROWS; row++) {
+            IN_FLIGHT.decrementAndGet(counter(key, row));
+        }
+    }
+
+    /**
+     * Enregistrer un échec (email inconnu ou mauvais mot de passe), avant de rendre la tentative
+     * @param email Email saisi
+     */
+    public static void recordFailure(String email) {
+        FAILURES.increment();
+        long now = System.currentTimeMillis();
+        long bucket = now / BUCKET_MS;
+        String key = key(email);
+        for (int row = 0; row < ROWS; row++) {
+            int counter = counter(key, row);
+            int slot = counter * BUCKETS + (int) (bucket % BUCKETS);
+            long current;
+            long updated;
+            do {
+                current = COUNTS.get(slot);
+                long count = (current >>> COUNT_BITS) == bucket ? current & COUNT_MASK : 0;
+                updated = (bucket << COUNT_BITS) | Math.min(count + 1, COUNT_MASK);
+            } while (!COUNTS.compareAndSet(slot, current, updated));
+            LAST_FAILURE.accumulateAndGet(counter, now, Math::max);
+        }
+    }
+
+    /**
+     * @param others Autres tentatives en cours pour cet email
+     */
+    static long retryAfterMillis(String key, long now, long others) {
+        long failures = Long.MAX_VALUE;
+        long lastFailure = Long.MAX_VALUE;
+        for (int row = 0; row < ROWS; row++) {
+            int counter = counter(key, row);
+            failures = Math.min(failures, failures(counter, now));
+            lastFailure = Math.min(lastFailure, LAST_FAILURE.get(counter));
+        }
+        // Tentatives en cours comptées comme des échecs possibles
+        if (failures + others < FREE_ATTEMPTS) {
+            return 0;
+        }
+        long wait = failures < FREE_ATTEMPTS ? 0 : Math.max(0, lastFailure + delayMillis(failures) - now);
+        // Au-delà des tentatives libres, une seule à la fois : les autres attendent au moins le délai de base
+        return others > 0 ? Math.max(wait, BASE_DELAY_MS) : wait;
+    }
+
+    /**
+     * Délai imposé après un nombre d'échecs dans la fenêtre (au moins FREE_ATTEMPTS)
+     */
+    static long delayMillis(long failures) {
+        long excess = failures - FREE_ATTEMPTS;
+        // Au-delà, le décalage dépasserait la capacité d'un long
+        if (excess >= Long.numberOfLeadingZeros(BASE_DELAY_MS) - 1) {
+            return MAX_DELAY_MS;
+        }
+        return Math.min(MAX_DELAY_MS, BASE_DELAY_MS << excess);
+    }
+
+    private static long failures(int counter, long now) {
+        long bucket = now / BUCKET_MS;
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long value = COUNTS.get(counter * BUCKETS + i);
+            if (bucket - (value >>> COUNT_BITS) < BUCKETS) {
+                total += value & COUNT_MASK;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Index du compteur d'un email dans une rangée (FNV-1a 64 bits à graine)
+     */
+    private static int counter(String key, int row) {
+        long hash = SEEDS[row] ^ 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 32;
+        return row * STRIPES + (int) (hash & (STRIPES - 1));
+    }
+
+    private static String key(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return Nombre de tentatives refusées sans lecture en base ni BCrypt
+     */
+    public static long getRejected() {
+        return REJECTED.sum();
+    }
+
+    /**
+     * @return Tentatives contrôlées, refusées et échecs enregistrés
+     */
+    public static String statistics() {
+        return "Login throttle: checked=" + CHECKED.sum() + " rejected=" + REJECTED.sum()
+                + " failures=" + FAILURES.sum();
+    }
+}
@@ -0,0 +1,29 @@
+package services;
+
+/**
+ * Tentative de connexion refusée par LoginThrottle, avant toute lecture en base ou vérification BCrypt :
+ * trop d'échecs récents pour cet email.
+ */
+public class LoginThrottledException extends RuntimeException {
+    private final long retryAfterMillis;
+
+    public LoginThrottledException(long retryAfterMillis) {
+        super("Too many failed login attempts. Please try again in " + describe(retryAfterMillis) + ".");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * @return Délai avant la prochaine tentative acceptée, en millisecondes
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    private static String describe(long millis) {
+        long seconds = Math.max(1, (millis + 999) / 1000);
+        if (seconds < 120) {
+            return seconds + " second" + (seconds > 1 ? "s" : "");
+        }
+        return (seconds + 59) / 60 + " minutes";
+    }
+}
@@ -2,18 +2,27 @@ package services;
 
 import entities.Rating;
 import entities.User;
+import utils.DatabaseExecutor;
 import utils.MyDatabase;
+import utils.ResultSetStream;
 
 import java.sql.*;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public class RatingService {
-    private final Connection connection;
+
+    private static final String RATINGS_RECEIVED_QUERY = """
+            SELECT r.*, u.name as rater_name 
+            FROM rating r 
+            JOIN user u ON r.rater_id = u.id 
+            WHERE r.rated_id = ? 
+            ORDER BY r.created_at DESC
+            """;
 
     public RatingService() {
-        connection = MyDatabase.getInstance().getConnection();
     }
 
     /**
@@ -22,7 +31,8 @@ public class RatingService {
     public void addRating(Rating rating) throws SQLException {
         String sql = "INSERT INTO rating (rater_id, rated_id, stars, comment, created_at) VALUES (?, ?, ?, ?, ?)";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, rating.getRaterId());
             stmt.setInt(2, rating.getRatedId());
             stmt.setInt(3, rating.getStars());
@@ -37,7 +47,6 @@ public class RatingService {
      * Get all ratings given by a user
      */
     public List<Rating> getRatingsGivenByUser(int userId) throws SQLException {
-        List<Rating> ratings = new ArrayList<>();
         String sql = """
             SELECT r.*, u.name as rated_name 
             FROM rating r 
@@ -46,57 +55,35 @@ public class RatingService {
             ORDER BY r.created_at DESC
             """;
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                Rating rating = new Rating();
-                rating.setId(rs.getInt("id"));
-                rating.setRaterId(rs.getInt("rater_id"));
-                rating.setRatedId(rs.getInt("rated_id"));
-                rating.setStars(rs.getInt("stars"));
-                rating.setComment(rs.getString("comment"));
-                rating.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                rating.setRatedName(rs.getString("rated_name"));
-                ratings.add(rating);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return EntityMappers.RATING.list(rs);
             }
         }
-        
-        return ratings;
     }
 
     /**
      * Get all ratings received by a user
      */
     public List<Rating> getRatingsReceivedByUser(int userId) throws SQLException {
-        List<Rating> ratings = new ArrayList<>();
-        String sql = """
-            SELECT r.*, u.name as rater_name 
-            FROM rating r 
-            JOIN user u ON r.rater_id = u.id 
-            WHERE r.rated_id = ? 
-            ORDER BY r.created_at DESC
-            """;
-        
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(RATINGS_RECEIVED_QUERY)) {
             stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                Rating rating = new Rating();
-                rating.setId(rs.getInt("id"));
-                rating.setRaterId(rs.getInt("rater_id"));
-                rating.setRatedId(rs.getInt("rated_id"));
-                rating.setStars(rs.getInt("stars"));
-                rating.setComment(rs.getString("comment"));
-                rating.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
-                rating.setRaterName(rs.getString("rater_name"));
-                ratings.add(rating);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return EntityMappers.RATING.list(rs);
             }
         }
-        
-        return ratings;
+    }
+
+    /**
+     * Stream ratings received by user, read row by row from the database
+     * The stream holds a connection until closed: use it in try-with-resources
+     */
+    public Stream<Rating> streamRatingsReceivedByUser(int userId) throws SQLException {
+        return ResultSetStream.query(MyDatabase.getInstance().getReadConnection(), RATINGS_RECEIVED_QUERY,
+                stmt -> stmt.setInt(1, userId), EntityMappers.RATING.rowMapper());
     }
 
     /**
@@ -105,12 +92,13 @@ public class RatingService {
     public int getRatingsGivenCount(int userId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM rating WHERE rater_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         }
         
@@ -123,12 +111,13 @@ public class RatingService {
     public int getRatingsReceivedCount(int userId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM rating WHERE rated_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
             }
         }
         
@@ -141,13 +130,14 @@ public class RatingService {
     public boolean hasUserRatedUser(int raterId, int ratedId) throws SQLException {
         String sql = "SELECT COUNT(*) FROM rating WHERE rater_id = ? AND rated_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, raterId);
             stmt.setInt(2, ratedId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
             }
         }
         
@@ -158,7 +148,6 @@ public class RatingService {
      * Get all users except the current user (for client list)
      */
     public List<User> getAllUsersExceptCurrent(int currentUserId) throws SQLException {
-        List<User> users = new ArrayList<>();
         String sql = """
             SELECT id, name, email, phone_number, is_verified, is_blocked, roles 
             FROM user 
@@ -166,32 +155,13 @@ public class RatingService {
             ORDER BY name
             """;
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, currentUserId);
-            ResultSet rs = stmt.executeQuery();
-            
-            while (rs.next()) {
-                User user = new User();
-                user.setId(rs.getInt("id"));
-                user.setName(rs.getString("name"));
-                user.setEmail(rs.getString("email"));
-                user.setPhone_number(rs.getString("phone_number"));
-                user.setVerified(rs.getBoolean("is_verified"));
-                user.setBlocked(rs.getBoolean("is_blocked"));
-                
-                // Parse roles JSON
-                String rolesJson = rs.getString("roles");
-                List<String> roles = new ArrayList<>();
-                if (rolesJson.contains("ROLE_USER")) roles.add("ROLE_USER");
-                if (rolesJson.contains("ROLE_ADMIN")) roles.add("ROLE_ADMIN");
-                if (rolesJson.contains("ROLE_SUPER_ADMIN")) roles.add("ROLE_SUPER_ADMIN");
-                user.setRole(roles);
-                
-                users.add(user);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return EntityMappers.USER.list(rs);
             }
         }
-        
-        return users;
     }
 
     /**
@@ -200,15 +170,75 @@ public class RatingService {
     public double getAverageRating(int userId) throws SQLException {
         String sql = "SELECT AVG(stars) FROM rating WHERE rated_id = ?";
         
-        try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement stmt = connection.prepareStatement(sql)) {
             stmt.setInt(1, userId);
-            ResultSet rs = stmt.executeQuery();
-            
-            if (rs.next()) {
-                return rs.getDouble(1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getDouble(1);
+                }
             }
         }
         
         return 0.0;
     }
+
+    // ============ ASYNCHRONOUS VARIANTS ============
+    // Run on DatabaseExecutor; the returned futures complete on the JavaFX thread.
+
+    /**
+     * Asynchronous {@link #addRating(Rating)}
+     */
+    public CompletableFuture<Void> addRatingAsync(Rating rating) {
+        return DatabaseExecutor.run(() -> addRating(rating));
+    }
+
+    /**
+     * Asynchronous {@link #getRatingsGivenByUser(int)}
+     */
+    public CompletableFuture<List<Rating>> getRatingsGivenByUserAsync(int userId) {
+        return DatabaseExecutor.supply(() -> getRatingsGivenByUser(userId));
+    }
+
+    /**
+     * Asynchronous {@link #getRatingsReceivedByUser(int)}
+     */
+    public CompletableFuture<List<Rating>> getRatingsReceivedByUserAsync(int userId) {
+        return DatabaseExecutor.supply(() -> getRatingsReceivedByUser(userId));
+    }
+
+    /**
+     * Asynchronous {@link #getRatingsGivenCount(int)}
+     */
+    public CompletableFuture<Integer> getRatingsGivenCountAsync(int userId) {
+        return DatabaseExecutor.supply(() -> getRatingsGivenCount(userId));
+    }
+
+    /**
+     * Asynchronous {@link #getRatingsReceivedCount(int)}
+     */
+    public CompletableFuture<Integer> getRatingsReceivedCountAsync(int userId) {
+        return DatabaseExecutor.supply(() -> getRatingsReceivedCount(userId));
+    }
+
+    /**
+     * Asynchronous {@link #hasUserRatedUser(int, int)}
+     */
+    public CompletableFuture<Boolean> hasUserRatedUserAsync(int raterId, int ratedId) {
+        return DatabaseExecutor.supply(() -> hasUserRatedUser(raterId, ratedId));
+    }
+
+    /**
+     * Asynchronous {@link #getAllUsersExceptCurrent(int)}
+     */
+    public CompletableFuture<List<User>> getAllUsersExceptCurrentAsync(int currentUserId) {
+        return DatabaseExecutor.supply(() -> getAllUsersExceptCurrent(currentUserId));
+    }
+
+    /**
+     * Asynchronous {@link #getAverageRating(int)}
+     */
+    public CompletableFuture<Double> getAverageRatingAsync(int userId) {
+        return DatabaseExecutor.supply(() -> getAverageRating(userId));
+    }
 }
@@ -1,5 +1,6 @@
 package services;
 
+import entities.Role;
 import entities.User;
 import utils.MyDatabase;
 
@@ -7,27 +8,22 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
 
 /**
  * Service pour gérer les rôles des utilisateurs
  */
 public class RoleService {
     private static RoleService instance;
-    private final Connection connection;
 
-    // Constants for roles
-    public static final String ROLE_SUPER_ADMIN = "ROLE_SUPER_ADMIN";
-    public static final String ROLE_ADMIN = "ROLE_ADMIN";
-    public static final String ROLE_USER = "ROLE_USER"; // Previously CLIENT
+    // Constants for roles (codes stored in user.roles)
+    public static final String ROLE_SUPER_ADMIN = Role.SUPER_ADMIN.getCode();
+    public static final String ROLE_ADMIN = Role.ADMIN.getCode();
+    public static final String ROLE_USER = Role.USER.getCode(); // Previously CLIENT
 
     /**
      * Constructeur privé pour le pattern Singleton
      */
     private RoleService() {
-        connection = MyDatabase.getInstance().getConnection();
     }
 
     /**
@@ -44,87 +40,74 @@ public class RoleService {
     /**
      * Récupérer les rôles d'un utilisateur
      * @param userId L'ID de l'utilisateur
-     * @return La liste des rôles de l'utilisateur
+     * @return Le masque des rôles (bits de Role), 0 si l'utilisateur n'existe pas
      * @throws SQLException En cas d'erreur SQL
      */
-    public List<String> getUserRoles(int userId) throws SQLException {
-        List<String> roles = new ArrayList<>();
+    public int getUserRoles(int userId) throws SQLException {
         String query = "SELECT roles FROM user WHERE id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setInt(1, userId);
             
             try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    String rolesJson = resultSet.getString("roles");
-                    if (rolesJson != null && !rolesJson.isEmpty()) {
-                        roles = parseRolesFromJson(rolesJson);
-                    }
-                }
+                Integer roles = EntityMappers.ROLES.first(resultSet);
+                return roles != null ? roles : 0;
             }
         }
-        
-        return roles;
     }
 
     /**
      * Ajouter un rôle à un utilisateur
      * @param userId L'ID de l'utilisateur
-     * @param roleName Le nom du rôle à ajouter
+     * @param role Le rôle à ajouter
      * @throws SQLException En cas d'erreur SQL
      */
-    public void addRoleToUser(int userId, String roleName) throws SQLException {
+    public void addRoleToUser(int userId, Role role) throws SQLException {
         // Récupérer les rôles actuels
-        List<String> currentRoles = getUserRoles(userId);
+        int currentRoles = getUserRoles(userId);
         
         // Vérifier si l'utilisateur a déjà ce rôle
-        if (currentRoles.contains(roleName)) {
+        if (role.in(currentRoles)) {
             return; // L'utilisateur a déjà ce rôle
         }
         
-        // Ajouter le nouveau rôle
-        currentRoles.add(roleName);
-        
         // Mettre à jour les rôles dans la base de données
-        updateUserRoles(userId, currentRoles);
+        updateUserRoles(userId, currentRoles | role.getMask());
     }
 
     /**
      * Supprimer un rôle d'un utilisateur
      * @param userId L'ID de l'utilisateur
-     * @param roleName Le nom du rôle à supprimer
+     * @param role Le rôle à supprimer
      * @throws SQLException En cas d'erreur SQL
      */
-    public void removeRoleFromUser(int userId, String roleName) throws SQLException {
+    public void removeRoleFromUser(int userId, Role role) throws SQLException {
         // Récupérer les rôles actuels
-        List<String> currentRoles = getUserRoles(userId);
+        int currentRoles = getUserRoles(userId);
         
         // Vérifier si l'utilisateur a ce rôle
-        if (!currentRoles.contains(roleName)) {
+        if (!role.in(currentRoles)) {
             return; // L'utilisateur n'a pas ce rôle
         }
         
-        // Supprimer le rôle
-        currentRoles.remove(roleName);
-        
         // Mettre à jour les rôles dans la base de données
-        updateUserRoles(userId, currentRoles);
+        updateUserRoles(userId, currentRoles & ~role.getMask());
     }
 
     /**
-     * Vérifier si un utilisateur a un rôle spécifique
+     * Vérifier si un utilisateur a un rôle spécifique (rôles relus en base)
      * @param user L'utilisateur
      * @param role Le rôle à vérifier
      * @return true si l'utilisateur a le rôle, false sinon
      * @throws SQLException En cas d'erreur SQL
      */
-    public boolean hasRole(User user, String role) throws SQLException {
+    public boolean hasRole(User user, Role role) throws SQLException {
         if (user == null) {
             return false;
         }
         
-        List<String> roles = getUserRoles(user.getId());
-        return roles.contains(role);
+        return role.in(getUserRoles(user.getId()));
     }
 
     /**
@@ -134,7 +117,7 @@ public class RoleService {
      * @throws SQLException En cas d'erreur SQL
      */
     public boolean isAdmin(User user) throws SQLException {
-        return hasRole(user, ROLE_ADMIN) || hasRole(user, ROLE_SUPER_ADMIN);
+        return user != null && (getUserRoles(user.getId()) & Role.ADMINISTRATORS) != 0;
     }
 
     /**
@@ -144,7 +127,7 @@ public class RoleService {
      * @throws SQLException En cas d'erreur SQL
      */
     public boolean isSuperAdmin(User user) throws SQLException {
-        return hasRole(user, ROLE_SUPER_ADMIN);
+        return hasRole(user, Role.SUPER_ADMIN);
     }
 
     /**
@@ -154,107 +137,39 @@ public class RoleService {
      * @throws SQLException In case of SQL error
      */
     public boolean isUser(User user) throws SQLException {
-        return hasRole(user, ROLE_USER);
+        return hasRole(user, Role.USER);
     }
 
     /**
-     * Determine user type (admin, super admin or user)
+     * Determine user type (admin, super admin or user), with a single read of the roles
      * @param user The user
-     * @return The user type (ROLE_ADMIN, ROLE_SUPER_ADMIN, ROLE_USER or null if no role)
+     * @return The highest role, or null if the user has no role
      * @throws SQLException En cas d'erreur SQL
      */
-    public String getUserType(User user) throws SQLException {
+    public Role getUserType(User user) throws SQLException {
         if (user == null) {
             return null;
         }
         
-        if (isSuperAdmin(user)) {
-            return ROLE_SUPER_ADMIN;
-        } else if (isAdmin(user)) {
-            return ROLE_ADMIN;
-        } else if (isUser(user)) {
-            return ROLE_USER;
-        }
-        
-        return null;
+        return Role.highest(getUserRoles(user.getId()));
     }
     
     /**
      * Mettre à jour les rôles d'un utilisateur dans la base de données
      * @param userId L'ID de l'utilisateur
-     * @param roles La liste des rôles
+     * @param roles Le masque des rôles
      * @throws SQLException En cas d'erreur SQL
      */
-    private void updateUserRoles(int userId, List<String> roles) throws SQLException {
-        String rolesJson = convertRolesToJson(roles);
+    private void updateUserRoles(int userId, int roles) throws SQLException {
+        String rolesJson = Role.encode(roles);
         String query = "UPDATE user SET roles = ? WHERE id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, rolesJson);
             statement.setInt(2, userId);
             statement.executeUpdate();
         }
-    }
-    
-    /**
-     * Convertir une liste de rôles en JSON
-     * @param roles La liste des rôles
-     * @return La chaîne JSON
-     */
-    private String convertRolesToJson(List<String> roles) {
-        if (roles == null || roles.isEmpty()) {
-            return "[\"ROLE_USER\"]";
-        }
-        
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < roles.size(); i++) {
-            json.append("\"").append(roles.get(i)).append("\"");
-            if (i < roles.size() - 1) {
-                json.append(",");
-            }
-        }
-        json.append("]");
-        
-        return json.toString();
-    }
-    
-    /**
-     * Parser les rôles depuis une chaîne JSON
-     * @param rolesJson La chaîne JSON contenant les rôles
-     * @return Liste des rôles
-     */
-    private List<String> parseRolesFromJson(String rolesJson) {
-        List<String> roles = new ArrayList<>();
-        
-        if (rolesJson != null && !rolesJson.isEmpty()) {
-            try {
-                // Enlever les crochets et guillemets
-                rolesJson = rolesJson.trim();
-                if (rolesJson.startsWith("[") && rolesJson.endsWith("]")) {
-                    rolesJson = rolesJson.substring(1, rolesJson.length() - 1);
-                }
-                
-                // Séparer les rôles par virgule
-                String[] roleArray = rolesJson.split(",");
-                for (String role : roleArray) {
-                    role = role.trim();
-                    // Enlever les guillemets
-                    if (role.startsWith("\"") && role.endsWith("\"")) {
-                        role = role.substring(1, role.length() - 1);
-                    }
-                    if (!role.isEmpty()) {
-                        roles.add(role);
-                    }
-                }
-            } catch (Exception e) {
-                // En cas d'erreur, assigner le rôle par défaut
-                roles.add("ROLE_USER");
-            }
-        } else {
-            // Si pas de rôles, assigner le rôle par défaut
-            roles.add("ROLE_USER");
-        }
-        
-        return roles;
+        UserCache.invalidate(userId);
     }
 }
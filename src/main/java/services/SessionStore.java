@@ -0,0 +1,425 @@
+package services;
+
+import entities.Session;
+import entities.User;
+import utils.DatabaseExecutor;
+import utils.MyDatabase;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sessions des utilisateurs connectés, par identifiant opaque (32 octets aléatoires, Base64 URL).
+ * Table concurrente : lecture de la session et de son utilisateur sans verrou, depuis n'importe quel thread.
+ * Une session expire après IDLE_TIMEOUT_MS sans activité ou ABSOLUTE_TIMEOUT_MS après sa création ;
+ * les sessions abandonnées sont retirées par une roue temporelle (TimerWheel) sur un thread dédié,
+ * les autres vérifiées à chaque lecture.
+ * Avec -Dsession.store=mysql, les sessions sont aussi enregistrées dans user_session (empreinte du jeton) :
+ * une autre instance retrouve une session par son identifiant, une déconnexion vaut pour toutes.
+ * Les écritures en base passent par DatabaseExecutor ; l'activité n'y est écrite qu'une fois par TOUCH_INTERVAL_MS.
+ */
+public final class SessionStore {
+
+    // Durées de vie (0 = sans limite)
+    static final long IDLE_TIMEOUT_MS = Long.getLong("session.idleTimeoutMs", 2 * 3_600_000L);
+    static final long ABSOLUTE_TIMEOUT_MS = Long.getLong("session.absoluteTimeoutMs", 12 * 3_600_000L);
+
+    // Sessions partagées en base, et intervalle minimal entre deux écritures de l'activité d'une session
+    static final boolean SHARED = "mysql".equalsIgnoreCase(System.getProperty("session.store", "memory"));
+    static final long TOUCH_INTERVAL_MS = Long.getLong("session.touchIntervalMs", 60_000L);
+
+    // Graduation et nombre de cases de la roue ; purge des sessions expirées en base
+    static final long TICK_MS = Math.max(10, Long.getLong("session.wheelTickMs", 1000L));
+    private static final int SLOTS = 512;
+    private static final long PURGE_INTERVAL_MS = 5 * 60_000L;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Créée après les réglages ci-dessus, qu'utilise le constructeur
+    private static final SessionStore INSTANCE = new SessionStore();
+
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final TimerWheel wheel = new TimerWheel();
+    private volatile long lastPurge;
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder invalidated = new LongAdder();
+
+    private SessionStore() {
+        ScheduledExecutorService ticker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        ticker.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Obtenir l'instance unique du stockage
+     * @return L'instance du stockage
+     */
+    public static SessionStore getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Ouvrir une session
+     * @param user L'utilisateur authentifié
+     * @return La session, dont l'identifiant est à transmettre aux appels suivants
+     */
+    public Session create(User user) {
+        long now = System.currentTimeMillis();
+        Session session = new Session(newId(), user, now, now);
+        sessions.put(session.getId(), session);
+        wheel.schedule(session, expiresAt(session));
+        created.increment();
+        if (SHARED) {
+            writeShared("enregistrement", connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO user_session (token_hash, user_id, created_at, last_access_at) VALUES (?, ?, ?, ?)")) {
+                    statement.setString(1, hash(session.getId()));
+                    statement.setInt(2, user.getId());
+                    statement.setTimestamp(3, new Timestamp(now));
+                    statement.setTimestamp(4, new Timestamp(now));
+                    statement.executeUpdate();
+                }
+            });
+        }
+        return session;
+    }
+
+    /**
+     * Retrouver une session active et noter l'activité
+     * @param id Identifiant de la session
+     * @return La session, ou null si elle n'existe pas, a expiré ou a été fermée
+     */
+    public Session find(String id) {
+        if (id == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Session session = sessions.get(id);
+        if (session == null && SHARED) {
+            session = load(id, now);
+        }
+        if (session == null) {
+            return null;
+        }
+        if (expiresAt(session) <= now) {
+            if (sessions.remove(id, session)) {
+                expired.increment();
+            }
+            return null;
+        }
+        session.touch(now);
+        if (SHARED && session.claimPersist(now, TOUCH_INTERVAL_MS)) {
+            touchShared(session, now);
+        }
+        return session;
+    }
+
+    /**
+     * Remplacer l'utilisateur d'une session par une version à jour (profil modifié)
+     * @return false si la session n'est plus active ou appartient à un autre utilisateur
+     */
+    public boolean replaceUser(String id, User user) {
+        Session session = find(id);
+        if (session == null || session.getUser().getId() != user.getId()) {
+            return false;
+        }
+        session.setUser(user);
+        return true;
+    }
+
+    /**
+     * Fermer une session (déconnexion)
+     * @param id Identifiant de la session
+     */
+    public void invalidate(String id) {
+        if (id == null) {
+            return;
+        }
+        if (sessions.remove(id) != null) {
+            invalidated.increment();
+        }
+        if (SHARED) {
+            writeShared("suppression", connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM user_session WHERE token_hash = ?")) {
+                    statement.setString(1, hash(id));
+                    statement.executeUpdate();
+                }
+            });
+        }
+    }
+
+    /**
+     * Fermer toutes les sessions d'un utilisateur (compte supprimé ou bloqué)
+     * @param userId L'ID de l'utilisateur
+     */
+    public void invalidateUser(int userId) {
+        invalidateUsers(List.of(userId));
+    }
+
+    /**
+     * Fermer toutes les sessions de plusieurs utilisateurs (actions groupées), en un parcours de la table
+     * et une seule suppression partagée
+     * @param userIds IDs des utilisateurs
+     */
+    public void invalidateUsers(Collection<Integer> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Set<Integer> ids = new HashSet<>(userIds);
+        sessions.values().removeIf(session -> {
+            boolean matches = ids.contains(session.getUser().getId());
+            if (matches) {
+                invalidated.increment();
+            }
+            return matches;
+        });
+        if (SHARED) {
+            writeShared("suppression", connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "DELETE FROM user_session WHERE user_id IN ("
+                                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")")) {
+                    int index = 1;
+                    for (int id : ids) {
+                        statement.setInt(index++, id);
+                    }
+                    statement.executeUpdate();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return Nombre de sessions en mémoire
+     */
+    public int size() {
+        return sessions.size();
+    }
+
+    /**
+     * @return Sessions en mémoire, ouvertes, expirées et fermées depuis le démarrage
+     */
+    public String statistics() {
+        return "Session store (" + (SHARED ? "mysql" : "memory") + "): active=" + sessions.size()
+                + " created=" + created.sum() + " expired=" + expired.sum() + " invalidated=" + invalidated.sum();
+    }
+
+    private long expiresAt(Session session) {
+        return session.getExpiresAt(IDLE_TIMEOUT_MS, ABSOLUTE_TIMEOUT_MS);
+    }
+
+    /**
+     * Passage de la roue sur une session : retirée si échue, sinon reportée à sa nouvelle échéance
+     */
+    private void expire(Session session, long now) {
+        if (sessions.get(session.getId()) != session) {
+            return;
+        }
+        long expiresAt = expiresAt(session);
+        if (expiresAt > now) {
+            wheel.schedule(session, expiresAt);
+        } else if (sessions.remove(session.getId(), session)) {
+            expired.increment();
+        }
+    }
+
+    private void tick() {
+        // Une exception arrêterait les passages suivants
+        try {
+            long now = System.currentTimeMillis();
+            wheel.advance(now);
+            if (SHARED && now - lastPurge >= PURGE_INTERVAL_MS) {
+                lastPurge = now;
+                purgeShared(now);
+            }
+        } catch (RuntimeException e) {
+            System.err.println("Expiration des sessions : " + e.getMessage());
+        }
+    }
+
+    // ============ SHARED STORE (session.store=mysql) ============
+
+    /**
+     * Session ouverte par une autre instance : lue en base, utilisateur lu par UserService (cache)
+     */
+    private Session load(String id, long now) {
+        String query = "SELECT user_id, created_at, last_access_at FROM user_session"
+                + " WHERE token_hash = ? AND last_access_at > ? AND created_at > ?";
+        try {
+            int userId;
+            long createdAt;
+            long lastAccessedAt;
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setString(1, hash(id));
+                statement.setTimestamp(2, cutoff(now, IDLE_TIMEOUT_MS));
+                statement.setTimestamp(3, cutoff(now, ABSOLUTE_TIMEOUT_MS));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (!resultSet.next()) {
+                        return null;
+                    }
+                    userId = resultSet.getInt("user_id");
+                    createdAt = resultSet.getTimestamp("created_at").getTime();
+                    lastAccessedAt = resultSet.getTimestamp("last_access_at").getTime();
+                }
+            }
+            User user = UserService.getInstance().getUserById(userId);
+            if (user == null || user.isBlocked()) {
+                return null;
+            }
+            Session session = new Session(id, user, createdAt, lastAccessedAt);
+            Session existing = sessions.putIfAbsent(id, session);
+            if (existing != null) {
+                return existing;
+            }
+            wheel.schedule(session, expiresAt(session));
+            return session;
+        } catch (SQLException e) {
+            System.err.println("Lecture de la session impossible : " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Enregistrer l'activité ; une session supprimée en base (déconnexion sur une autre instance) est retirée
+     */
+    private void touchShared(Session session, long now) {
+        writeShared("mise à jour", connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "UPDATE user_session SET last_access_at = ? WHERE token_hash = ?")) {
+                statement.setTimestamp(1, new Timestamp(now));
+                statement.setString(2, hash(session.getId()));
+                if (statement.executeUpdate() == 0 && sessions.remove(session.getId(), session)) {
+                    invalidated.increment();
+                }
+            }
+        });
+    }
+
+    private void purgeShared(long now) {
+        writeShared("purge", connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "DELETE FROM user_session WHERE last_access_at <= ? OR created_at <= ?")) {
+                statement.setTimestamp(1, cutoff(now, IDLE_TIMEOUT_MS));
+                statement.setTimestamp(2, cutoff(now, ABSOLUTE_TIMEOUT_MS));
+                statement.executeUpdate();
+            }
+        });
+    }
+
+    private static Timestamp cutoff(long now, long timeout) {
+        return new Timestamp(timeout > 0 ? now - timeout : 0);
+    }
+
+    @FunctionalInterface
+    private interface SharedWrite {
+        void write(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Écriture en base sur DatabaseExecutor ; un échec est journalisé, la session en mémoire reste valable
+     */
+    private static void writeShared(String operation, SharedWrite write) {
+        DatabaseExecutor.run(() -> {
+            try (Connection connection = MyDatabase.getInstance().getConnection()) {
+                write.write(connection);
+            } catch (SQLException e) {
+                System.err.println("Session (" + operation + ") : " + e.getMessage());
+            }
+        }).exceptionally(e -> {
+            // File de DatabaseExecutor pleine
+            System.err.println("Session (" + operation + ") : " + DatabaseExecutor.unwrap(e).getMessage());
+            return null;
+        });
+    }
+
+    private static String newId() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String id) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(id.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Roue temporelle : SLOTS files de sessions, une par graduation de TICK_MS. Une session est rangée dans la case
+     * de son échéance ; au passage de la case, elle est retirée, ou reportée si elle a servi entre-temps ou si son
+     * échéance est à plus d'un tour. L'activité d'une session ne touche donc pas la roue.
+     */
+    private final class TimerWheel {
+        private final Queue<Session>[] slots;
+        // Dernière graduation traitée
+        private volatile long currentTick = System.currentTimeMillis() / TICK_MS;
+
+        @SuppressWarnings("unchecked")
+        TimerWheel() {
+            slots = new Queue[SLOTS];
+            for (int i = 0; i < SLOTS; i++) {
+                slots[i] = new ConcurrentLinkedQueue<>();
+            }
+        }
+
+        void schedule(Session session, long expiresAt) {
+            if (expiresAt == Long.MAX_VALUE) {
+                return;
+            }
+            // Graduation arrondie au-dessus : au passage de la case, l'échéance est atteinte
+            long tick = Math.max((expiresAt + TICK_MS - 1) / TICK_MS, currentTick + 1);
+            slots[(int) Math.floorMod(tick, (long) SLOTS)].add(session);
+        }
+
+        /**
+         * Traiter les graduations écoulées ; appelé par le seul thread session-expiry
+         */
+        void advance(long now) {
+            long target = now / TICK_MS;
+            // Après une longue pause (veille), un tour complet suffit
+            long from = Math.max(currentTick + 1, target - SLOTS + 1);
+            for (long tick = from; tick <= target; tick++) {
+                currentTick = tick;
+                Queue<Session> slot = slots[(int) Math.floorMod(tick, (long) SLOTS)];
+                // Seules les sessions présentes au début : celles reportées dans la même case attendent le tour suivant
+                for (int remaining = slot.size(); remaining > 0; remaining--) {
+                    Session session = slot.poll();
+                    if (session == null) {
+                        break;
+                    }
+                    expire(session, now);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package services;
+
+import entities.User;
+import utils.LruCache;
+import utils.SqlSupplier;
+import utils.TransactionManager;
+
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Cache des utilisateurs lus par ID ou par email (UserService, AuthService), borné (LRU) et à durée de vie.
+ * Chaque écriture sur la table user l'invalide, une fois tout de suite et une fois après le commit :
+ * un chargement concurrent ne peut pas y remettre l'ancienne ligne.
+ * Les instances ne sont jamais partagées : une copie est stockée et une copie est rendue.
+ * Les lectures faites dans une transaction contournent le cache (elles peuvent voir des écritures non validées).
+ */
+public final class UserCache {
+
+    // Nombre d'utilisateurs gardés (0 : cache désactivé) et durée de vie d'une entrée
+    static final int CAPACITY = Integer.getInteger("user.cache.size", 1000);
+    static final long TTL_MS = Long.getLong("user.cache.ttlMs", 60000L);
+
+    private static final LruCache<Integer, User> BY_ID = new LruCache<>(CAPACITY, TTL_MS);
+    // Email en minuscules -> ID ; l'email de l'entrée trouvée est revérifié
+    private static final LruCache<String, Integer> ID_BY_EMAIL = new LruCache<>(CAPACITY, TTL_MS);
+
+    // Incrémenté à chaque invalidation : un chargement commencé avant n'est pas mis en cache
+    private static long generation;
+
+    private UserCache() {
+    }
+
+    /**
+     * Lecture par ID, en base seulement si l'utilisateur n'est pas en cache
+     * @param userId L'ID de l'utilisateur
+     * @param loader Lecture en base
+     * @return Une copie de l'utilisateur, ou null s'il n'existe pas (les absences ne sont pas mises en cache)
+     */
+    static User getById(int userId, SqlSupplier<User> loader) throws SQLException {
+        if (TransactionManager.isActive()) {
+            return loader.get();
+        }
+        User cached = BY_ID.get(userId);
+        if (cached != null) {
+            return new User(cached);
+        }
+        return load(loader);
+    }
+
+    /**
+     * Lecture par email, en base seulement si l'utilisateur n'est pas en cache
+     * @param email L'email de l'utilisateur
+     * @param loader Lecture en base
+     * @return Une copie de l'utilisateur, ou null s'il n'existe pas
+     */
+    static User getByEmail(String email, SqlSupplier<User> loader) throws SQLException {
+        if (email == null || TransactionManager.isActive()) {
+            return loader.get();
+        }
+        Integer userId = ID_BY_EMAIL.get(key(email));
+        if (userId != null) {
+            User cached = BY_ID.get(userId);
+            if (cached != null && cached.getEmail() != null && key(cached.getEmail()).equals(key(email))) {
+                return new User(cached);
+            }
+        }
+        return load(loader);
+    }
+
+    private static User load(SqlSupplier<User> loader) throws SQLException {
+        long startGeneration = currentGeneration();
+        User user = loader.get();
+        if (user != null) {
+            put(user, startGeneration);
+        }
+        return user;
+    }
+
+    private static synchronized long currentGeneration() {
+        return generation;
+    }
+
+    private static synchronized void put(User user, long startGeneration) {
+        if (generation != startGeneration) {
+            return;
+        }
+        BY_ID.put(user.getId(), new User(user));
+        if (user.getEmail() != null) {
+            ID_BY_EMAIL.put(key(user.getEmail()), user.getId());
+        }
+    }
+
+    /**
+     * Invalider un utilisateur modifié ou supprimé
+     */
+    static void invalidate(int userId) {
+        evict(userId);
+        TransactionManager.afterCommit(() -> evict(userId));
+    }
+
+    /**
+     * Invalider plusieurs utilisateurs (actions groupées)
+     */
+    static void invalidate(Collection<Integer> userIds) {
+        evict(userIds);
+        TransactionManager.afterCommit(() -> evict(userIds));
+    }
+
+    /**
+     * Invalider un utilisateur désigné par son email
+     */
+    static void invalidateEmail(String email) {
+        evictEmail(email);
+        TransactionManager.afterCommit(() -> evictEmail(email));
+    }
+
+    /**
+     * Vider le cache (écritures sans clé connue)
+     */
+    public static synchronized void invalidateAll() {
+        generation++;
+        BY_ID.clear();
+        ID_BY_EMAIL.clear();
+    }
+
+    private static synchronized void evict(int userId) {
+        generation++;
+        BY_ID.remove(userId);
+    }
+
+    private static synchronized void evict(Collection<Integer> userIds) {
+        generation++;
+        for (Integer userId : userIds) {
+            BY_ID.remove(userId);
+        }
+    }
+
+    private static synchronized void evictEmail(String email) {
+        generation++;
+        if (email == null) {
+            return;
+        }
+        String key = key(email);
+        ID_BY_EMAIL.remove(key);
+        BY_ID.removeIf((userId, user) -> user.getEmail() != null && key(user.getEmail()).equals(key));
+    }
+
+    private static String key(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return Taille, succès, échecs, évictions et expirations des lectures par ID et par email
+     */
+    public static String statistics() {
+        return "User cache by id: " + BY_ID + System.lineSeparator() + "User cache by email: " + ID_BY_EMAIL;
+    }
+}
@@ -0,0 +1,438 @@
+package services;
+
+import utils.DatabaseExecutor;
+import utils.MyDatabase;
+import utils.ResultSetStream;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.Normalizer;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Filtre de Bloom en mémoire des emails et téléphones de la table user, pour les vérifications d'unicité.
+ * Une valeur absente du filtre est libre sans requête ; une valeur présente (déjà prise, ou faux positif
+ * à FALSE_POSITIVE_RATE près) est confirmée en base par l'appelant.
+ * Construit au démarrage par une lecture en flux, complété à chaque écriture d'un utilisateur de cette instance
+ * et rattrapé d'après user.updated_at pour les écritures des autres (autre instance, application Symfony),
+ * par un thread de fond toutes les REFRESH_MS / 2. Une réponse « absent » suppose un rattrapage de moins
+ * de REFRESH_MS : le thread de fond le garantit d'ordinaire, sinon le rattrapage est fait avant de répondre
+ * (ou la vérification va en base, pour les variantes « Now » appelées depuis le thread JavaFX). Un filtre de Bloom ne sait pas retirer une valeur : suppressions et
+ * modifications laissent des bits en trop (faux positifs seulement), comptés jusqu'à une reconstruction
+ * en arrière-plan. Les clés uniques de la table restent la garantie ; le filtre évite les allers-retours.
+ */
+public class UserIdentifierFilter {
+    private static UserIdentifierFilter instance;
+
+    // Taux de faux positifs visé et délai minimal entre deux rattrapages des écritures extérieures
+    static final double FALSE_POSITIVE_RATE = Double.parseDouble(System.getProperty("user.identifierFilter.fpp", "0.01"));
+    static final long REFRESH_MS = Long.getLong("user.identifierFilter.refreshMs", 2000L);
+
+    // Marge de croissance à la construction, et part d'entrées périmées qui déclenche une reconstruction
+    private static final int GROWTH_FACTOR = 2;
+    private static final double MAX_STALE_RATIO = 0.25;
+    private static final long MIN_CAPACITY = 1024;
+
+    // Recouvrement du rattrapage, comme UserService.getUserChanges (horloges et transactions longues)
+    private static final long REFRESH_OVERLAP_MS = 5000;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private volatile Bits current;
+    // Filtre en cours de reconstruction : reçoit aussi les ajouts, pour n'en perdre aucun à la bascule
+    private volatile Bits pending;
+    private volatile Timestamp watermark;
+    // Heure locale de la dernière lecture intégrée au filtre (construction ou rattrapage terminé)
+    private volatile long refreshedAt;
+    private final Object refreshLock = new Object();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean refresherStarted = new AtomicBoolean();
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder absent = new LongAdder();
+    private final LongAdder waitedRefreshes = new LongAdder();
+
+    /**
+     * Constructeur privé pour le pattern Singleton
+     */
+    private UserIdentifierFilter() {
+    }
+
+    /**
+     * Obtenir l'instance unique du filtre
+     * @return L'instance du filtre
+     */
+    public static synchronized UserIdentifierFilter getInstance() {
+        if (instance == null) {
+            instance = new UserIdentifierFilter();
+        }
+        return instance;
+    }
+
+    /**
+     * Lancer la construction en arrière-plan ; en attendant, toutes les vérifications vont en base
+     */
+    public void initialize() {
+        rebuildInBackground();
+    }
+
+    /**
+     * Peut lire la base (rattrapage) si le filtre n'est pas à jour
+     * @param email Email à vérifier
+     * @return false si l'email n'est certainement pas en base, true s'il faut vérifier en base
+     */
+    public boolean mightContainEmail(String email) {
+        return mightContain('e', email, true);
+    }
+
+    /**
+     * Peut lire la base (rattrapage) si le filtre n'est pas à jour
+     * @param phoneNumber Téléphone à vérifier
+     * @return false si le téléphone n'est certainement pas en base, true s'il faut vérifier en base
+     */
+    public boolean mightContainPhone(String phoneNumber) {
+        return mightContain('p', phoneNumber, true);
+    }
+
+    /**
+     * Comme mightContainEmail, sans jamais attendre la base : true aussi quand le filtre n'est pas à jour
+     */
+    public boolean mightContainEmailNow(String email) {
+        return mightContain('e', email, false);
+    }
+
+    /**
+     * Comme mightContainPhone, sans jamais attendre la base : true aussi quand le filtre n'est pas à jour
+     */
+    public boolean mightContainPhoneNow(String phoneNumber) {
+        return mightContain('p', phoneNumber, false);
+    }
+
+    /**
+     * Ajouter l'email et le téléphone d'un utilisateur écrit ; à appeler avant l'écriture
+     * (un ajout annulé ne coûte qu'un faux positif)
+     */
+    public void add(String email, String phoneNumber) {
+        Bits bits = current;
+        Bits next = pending;
+        for (String key : new String[]{key('e', email), key('p', phoneNumber)}) {
+            if (key == null) {
+                continue;
+            }
+            if (bits != null) {
+                bits.add(key);
+            }
+            if (next != null) {
+                next.add(key);
+            }
+        }
+        if (bits != null && bits.isDegraded()) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * Compter les valeurs devenues inutiles (utilisateurs supprimés ou modifiés), restées dans le filtre
+     * @param users Nombre d'utilisateurs concernés
+     */
+    public void markStale(int users) {
+        Bits bits = current;
+        if (bits == null || users <= 0) {
+            return;
+        }
+        bits.stale.add(2L * users);
+        if (bits.isDegraded()) {
+            rebuildInBackground();
+        }
+    }
+
+    private boolean mightContain(char kind, String value, boolean waitForRefresh) {
+        checks.increment();
+        Bits bits = current;
+        String key = key(kind, value);
+        if (bits == null || key == null) {
+            return true;
+        }
+        if (bits.mightContain(key)) {
+            return true;
+        }
+        // Écritures extérieures pas encore rattrapées : « absent » n'est pas sûr
+        if (!isFresh()) {
+            if (!waitForRefresh || !refreshNow()) {
+                return true;
+            }
+            bits = current;
+            if (bits.mightContain(key)) {
+                return true;
+            }
+        }
+        absent.increment();
+        return false;
+    }
+
+    private boolean isFresh() {
+        return System.currentTimeMillis() - refreshedAt <= REFRESH_MS;
+    }
+
+    /**
+     * Rattraper tout de suite, sauf si un autre appel vient de le faire
+     * @return true si le filtre est à jour
+     */
+    private boolean refreshNow() {
+        synchronized (refreshLock) {
+            if (!isFresh()) {
+                waitedRefreshes.increment();
+                try {
+                    refresh();
+                } catch (SQLException e) {
+                    System.err.println("Rattrapage du filtre des emails et téléphones impossible : " + e.getMessage());
+                    return false;
+                }
+            }
+            return isFresh();
+        }
+    }
+
+    /**
+     * Reconstruire le filtre à partir de la table user (lecture en flux)
+     * @throws SQLException En cas d'erreur SQL
+     */
+    public void rebuild() throws SQLException {
+        long start = System.currentTimeMillis();
+        long users;
+        Timestamp since;
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT LOCALTIMESTAMP(3), (SELECT COUNT(*) FROM user)");
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            since = resultSet.getTimestamp(1);
+            users = resultSet.getLong(2);
+        }
+        Bits bits = new Bits(Math.max(MIN_CAPACITY, 2 * users * GROWTH_FACTOR));
+        pending = bits;
+        try {
+            // Connexion principale : un réplica en retard ferait manquer des valeurs
+            scan(bits, "SELECT email, phone_number FROM user", null);
+            current = bits;
+            watermark = since;
+            refreshedAt = start;
+        } finally {
+            pending = null;
+        }
+        startRefresher();
+        System.out.println("User identifier filter: " + bits.entries.sum() + " entries, " + bits.size + " bits, "
+                + bits.hashes + " hashes (" + (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    /**
+     * Ajouter les valeurs écrites depuis le dernier rattrapage, par cette instance ou une autre
+     * @throws SQLException En cas d'erreur SQL
+     */
+    void refresh() throws SQLException {
+        synchronized (refreshLock) {
+            Bits bits = current;
+            Timestamp since = watermark;
+            if (bits == null || since == null) {
+                return;
+            }
+            long start = System.currentTimeMillis();
+            Timestamp next;
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement statement = connection.prepareStatement("SELECT LOCALTIMESTAMP(3)");
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                next = resultSet.getTimestamp(1);
+            }
+            Timestamp from = new Timestamp(since.getTime() - REFRESH_OVERLAP_MS);
+            scan(bits, "SELECT email, phone_number FROM user WHERE updated_at > ?", from);
+            // Une reconstruction terminée entre-temps a son propre point de départ
+            if (current == bits) {
+                watermark = next;
+                refreshedAt = start;
+            }
+        }
+    }
+
+    private void scan(Bits bits, String sql, Timestamp from) throws SQLException {
+        try (Stream<String[]> rows = ResultSetStream.query(MyDatabase.getInstance().getConnection(), sql,
+                from == null ? null : statement -> statement.setTimestamp(1, from),
+                resultSet -> new String[]{resultSet.getString(1), resultSet.getString(2)})) {
+            Iterator<String[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                String[] row = iterator.next();
+                String email = key('e', row[0]);
+                String phone = key('p', row[1]);
+                if (email != null) {
+                    bits.add(email);
+                }
+                if (phone != null) {
+                    bits.add(phone);
+                }
+            }
+        }
+    }
+
+    private void rebuildInBackground() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        DatabaseExecutor.run(() -> {
+            try {
+                rebuild();
+            } catch (SQLException e) {
+                System.err.println("Construction du filtre des emails et téléphones impossible : " + e.getMessage());
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    /**
+     * Rattrapage périodique, deux fois par REFRESH_MS, pour que les vérifications n'attendent presque jamais la base
+     */
+    private void startRefresher() {
+        if (!refresherStarted.compareAndSet(false, true)) {
+            return;
+        }
+        ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-identifier-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, REFRESH_MS / 2);
+        refresher.scheduleWithFixedDelay(() -> {
+            try {
+                refresh();
+            } catch (SQLException e) {
+                System.err.println("Rattrapage du filtre des emails et téléphones impossible : " + e.getMessage());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Forme comparée : sans espaces autour, sans accents, en minuscules. Au moins aussi large que les collations
+     * de MySQL (insensibles à la casse et aux accents) : deux valeurs égales en base ont la même clé.
+     */
+    private static String key(char kind, String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(value.trim(), Normalizer.Form.NFD)).replaceAll("");
+        return kind + normalized.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @return Réponses « libre » données sans requête
+     */
+    public long getAnsweredLocally() {
+        return absent.sum();
+    }
+
+    /**
+     * @return Rattrapages faits sur le thread appelant (deux requêtes chacun)
+     */
+    public long getWaitedRefreshes() {
+        return waitedRefreshes.sum();
+    }
+
+    /**
+     * @return Vérifications, réponses « libre » sans requête, rattrapages attendus, entrées et entrées périmées
+     * du filtre courant
+     */
+    public String statistics() {
+        Bits bits = current;
+        return "User identifier filter: checks=" + checks.sum() + " answeredLocally=" + absent.sum()
+                + " waitedRefreshes=" + waitedRefreshes.sum()
+                + (bits == null ? " (not built)" : " entries=" + bits.entries.sum() + " stale=" + bits.stale.sum()
+                + " capacity=" + bits.capacity);
+    }
+
+    /**
+     * Tableau de bits sans verrou, dimensionné pour capacity clés au taux FALSE_POSITIVE_RATE ;
+     * hashes positions par clé par double hachage (FNV-1a 64 bits et un second mélange)
+     */
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashes;
+        private final long capacity;
+        private final LongAdder entries = new LongAdder();
+        private final LongAdder stale = new LongAdder();
+
+        Bits(long capacity) {
+            double bitsPerKey = -Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2));
+            long words = Math.min(Integer.MAX_VALUE, Math.max(1, ((long) Math.ceil(capacity * bitsPerKey) + 63) / 64));
+            this.words = new AtomicLongArray((int) words);
+            this.size = words * 64;
+            this.hashes = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        void add(String key) {
+            long hash = hash(key);
+            long step = mix(hash) | 1;
+            boolean added = false;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash + i * step, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                if ((words.get(word) & mask) == 0) {
+                    added |= (words.getAndAccumulate(word, mask, (value, m) -> value | m) & mask) == 0;
+                }
+            }
+            // Une clé déjà présente (rattrapage, réécriture) n'est comptée qu'une fois
+            if (added) {
+                entries.increment();
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash(key);
+            long step = mix(hash) | 1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = Math.floorMod(hash + i * step, size);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Plus de clés que prévu, ou trop de clés périmées : le taux de faux positifs n'est plus tenu
+         */
+        boolean isDegraded() {
+            return entries.sum() > capacity || stale.sum() > capacity * MAX_STALE_RATIO;
+        }
+
+        private static long hash(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            return hash ^ (hash >>> 33);
+        }
+    }
+}
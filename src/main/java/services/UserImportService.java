@@ -0,0 +1,604 @@
+package services;
+
+import entities.Role;
+import entities.User;
+import entities.UserImportReport;
+import utils.CryptoExecutor;
+import utils.DatabaseExecutor;
+import utils.MyDatabase;
+import utils.PasswordHasher;
+import utils.TransactionManager;
+import utils.ValidationUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Import d'utilisateurs en masse depuis un fichier CSV.
+ * Le fichier est lu en flux et traité par lots de BATCH_SIZE lignes : validation (ValidationUtils),
+ * doublons dans le fichier, unicité en base par une requête IN par colonne, hachage BCrypt en parallèle
+ * sur tous les cœurs (CryptoExecutor.hashAll, en alternance avec les connexions), puis insertion du lot par un batch JDBC dans une transaction (jetons de recherche compris).
+ * Un lot est inséré pendant que le suivant est haché.
+ * En-tête attendu : name, email, phone_number (ou phone), password ; colonnes facultatives role et verified.
+ * Séparateur « , » ou « ; » (déduit de l'en-tête), champs entre guillemets acceptés.
+ */
+public class UserImportService {
+    private static UserImportService instance;
+
+    // Lignes par lot : une requête d'unicité par colonne et une transaction par lot
+    static final int BATCH_SIZE = Integer.getInteger("user.import.batchSize", 500);
+
+    private static final String INSERT_QUERY = "INSERT INTO user (name, email, phone_number, password, is_verified, "
+            + "is_blocked, created_at, roles) VALUES (?, ?, ?, ?, ?, false, NOW(), ?)";
+
+    /**
+     * Avancement d'un import, notifié après chaque lot inséré, sur le thread de l'import
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        void onProgress(int processed, int imported, int failed);
+    }
+
+    // Ligne validée, en attente d'insertion
+    private static final class Row {
+        final int line;
+        final User user;
+        final String password;
+        CompletableFuture<String> hash;
+
+        Row(int line, User user, String password) {
+            this.line = line;
+            this.user = user;
+            this.password = password;
+        }
+    }
+
+    // Position des colonnes de l'en-tête (-1 : colonne facultative absente)
+    private static final class Columns {
+        int name = -1;
+        int email = -1;
+        int phone = -1;
+        int password = -1;
+        int role = -1;
+        int verified = -1;
+    }
+
+    /**
+     * Constructeur privé pour le pattern Singleton
+     */
+    private UserImportService() {
+    }
+
+    /**
+     * Obtenir l'instance unique du service
+     * @return L'instance du service
+     */
+    public static UserImportService getInstance() {
+        if (instance == null) {
+            instance = new UserImportService();
+        }
+        return instance;
+    }
+
+    /**
+     * Importer des utilisateurs depuis un CSV.
+     * Les lignes invalides ou déjà présentes sont rejetées une à une ; les lots déjà insérés restent en base
+     * si l'import s'arrête sur une erreur SQL.
+     * @param source Contenu CSV (lu en flux)
+     * @param currentUserRole Rôle de l'administrateur qui importe (mêmes restrictions que addUser)
+     * @param listener Avancement, peut être null
+     * @return Le bilan de l'import
+     * @throws IOException En cas d'erreur de lecture
+     * @throws SQLException En cas d'erreur SQL autre qu'un doublon
+     * @throws IllegalArgumentException Si le fichier est vide ou qu'une colonne obligatoire manque
+     */
+    public UserImportReport importCsv(Reader source, Role currentUserRole, ProgressListener listener)
+            throws IOException, SQLException {
+        long start = System.currentTimeMillis();
+        UserImportReport report = new UserImportReport();
+        CsvReader csv = new CsvReader(source);
+        List<String> header = csv.next();
+        if (header == null) {
+            throw new IllegalArgumentException("The file is empty");
+        }
+        Columns columns = columns(header);
+
+        Set<String> seenEmails = new HashSet<>();
+        Set<String> seenPhones = new HashSet<>();
+        List<Row> batch = new ArrayList<>(BATCH_SIZE);
+        List<Row> hashing = Collections.emptyList();
+        int processed = 0;
+        List<String> record;
+        while ((record = csv.next()) != null) {
+            if (isBlank(record)) {
+                continue;
+            }
+            report.setProcessed(++processed);
+            Row row = validate(record, csv.getRecordLine(), columns, currentUserRole, seenEmails, seenPhones, report);
+            if (row != null) {
+                batch.add(row);
+            }
+            if (batch.size() == BATCH_SIZE) {
+                // Le lot précédent est inséré pendant que celui-ci est haché
+                List<Row> next = hashAsync(removeExisting(batch, report));
+                insert(hashing, report, listener);
+                hashing = next;
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        List<Row> last = hashAsync(removeExisting(batch, report));
+        insert(hashing, report, listener);
+        insert(last, report, listener);
+        if (listener != null) {
+            listener.onProgress(report.getProcessed(), report.getImported(), report.getFailed());
+        }
+
+        report.setDurationMillis(System.currentTimeMillis() - start);
+        System.out.println("User import: " + report.getImported() + " imported, " + report.getFailed()
+                + " rejected out of " + report.getProcessed() + " rows in " + report.getDurationMillis() + " ms");
+        return report;
+    }
+
+    private Columns columns(List<String> header) {
+        Columns columns = new Columns();
+        for (int i = 0; i < header.size(); i++) {
+            switch (header.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "name" -> columns.name = i;
+                case "email" -> columns.email = i;
+                case "phone_number", "phone" -> columns.phone = i;
+                case "password" -> columns.password = i;
+                case "role" -> columns.role = i;
+                case "verified", "is_verified" -> columns.verified = i;
+                default -> {
+                    // Colonne ignorée
+                }
+            }
+        }
+        List<String> missing = new ArrayList<>();
+        if (columns.name < 0) {
+            missing.add("name");
+        }
+        if (columns.email < 0) {
+            missing.add("email");
+        }
+        if (columns.phone < 0) {
+            missing.add("phone_number");
+        }
+        if (columns.password < 0) {
+            missing.add("password");
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing column(s): " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    /**
+     * Valider une ligne ; les erreurs sont ajoutées au bilan
+     * @return La ligne à insérer, ou null si elle est rejetée
+     */
+    private Row validate(List<String> record, int line, Columns columns, Role currentUserRole,
+                         Set<String> seenEmails, Set<String> seenPhones, UserImportReport report) {
+        String name = ValidationUtils.cleanString(field(record, columns.name));
+        String email = ValidationUtils.cleanString(field(record, columns.email));
+        String phone = ValidationUtils.cleanString(field(record, columns.phone));
+        String password = field(record, columns.password);
+
+        List<String> errors = new ArrayList<>();
+        addError(errors, ValidationUtils.getNameValidationError(name));
+        addError(errors, ValidationUtils.getEmailValidationError(email));
+        addError(errors, ValidationUtils.getPhoneValidationError(phone));
+        addError(errors, ValidationUtils.getPasswordValidationError(password));
+
+        Role role = Role.USER;
+        String roleValue = ValidationUtils.cleanString(field(record, columns.role));
+        if (!ValidationUtils.isNullOrEmpty(roleValue)) {
+            role = Role.fromCode(roleValue.toUpperCase(Locale.ROOT));
+            if (role == null) {
+                role = Role.fromCode("ROLE_" + roleValue.toUpperCase(Locale.ROOT));
+            }
+            if (role == null) {
+                errors.add("Unknown role '" + roleValue + "'");
+            } else if (role == Role.SUPER_ADMIN) {
+                errors.add("Cannot create super admin users");
+            } else if (role == Role.ADMIN && currentUserRole != Role.SUPER_ADMIN) {
+                errors.add("Only super admin can create admin users");
+            }
+        }
+
+        // Doublons dans le fichier : la première occurrence valide l'emporte ; une ligne rejetée ne réserve
+        // ni son email ni son téléphone
+        String emailKey = ValidationUtils.isValidEmail(email) ? emailKey(email) : null;
+        if (emailKey != null && seenEmails.contains(emailKey)) {
+            errors.add("Email appears earlier in the file");
+        }
+        if (ValidationUtils.isValidPhoneNumber(phone) && seenPhones.contains(phone)) {
+            errors.add("Phone number appears earlier in the file");
+        }
+
+        if (!errors.isEmpty()) {
+            report.addError(line, String.join("; ", errors));
+            return null;
+        }
+        seenEmails.add(emailKey);
+        seenPhones.add(phone);
+
+        User user = new User();
+        user.setName(name);
+        user.setEmail(email);
+        user.setPhone_number(phone);
+        user.setVerified(isTrue(field(record, columns.verified)));
+        user.setBlocked(false);
+        user.setRoles(role.getMask());
+        return new Row(line, user, password);
+    }
+
+    /**
+     * Rejeter les lignes dont l'email ou le téléphone existe déjà en base (une requête par colonne)
+     * @return Les lignes restantes
+     */
+    private List<Row> removeExisting(List<Row> rows, UserImportReport report) throws SQLException {
+        if (rows.isEmpty()) {
+            return rows;
+        }
+        // Seules les valeurs présentes dans le filtre sont vérifiées en base
+        UserIdentifierFilter filter = UserIdentifierFilter.getInstance();
+        List<String> emails = new ArrayList<>(rows.size());
+        List<String> phones = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            if (filter.mightContainEmail(row.user.getEmail())) {
+                emails.add(row.user.getEmail());
+            }
+            if (filter.mightContainPhone(row.user.getPhone_number())) {
+                phones.add(row.user.getPhone_number());
+            }
+        }
+        Set<String> existingEmails = existing("email", emails);
+        Set<String> existingPhones = existing("phone_number", phones);
+        if (existingEmails.isEmpty() && existingPhones.isEmpty()) {
+            return rows;
+        }
+
+        List<Row> remaining = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            boolean emailTaken = existingEmails.contains(emailKey(row.user.getEmail()));
+            boolean phoneTaken = existingPhones.contains(row.user.getPhone_number());
+            if (emailTaken && phoneTaken) {
+                report.addError(row.line, "Email already exists; Phone number already exists");
+            } else if (emailTaken) {
+                report.addError(row.line, "Email already exists");
+            } else if (phoneTaken) {
+                report.addError(row.line, "Phone number already exists");
+            } else {
+                remaining.add(row);
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Valeurs déjà présentes dans une colonne de user (emails sous forme de clé, voir emailKey)
+     */
+    private Set<String> existing(String column, List<String> values) throws SQLException {
+        if (values.isEmpty()) {
+            return new HashSet<>();
+        }
+        String query = "SELECT " + column + " FROM user WHERE " + column + " IN ("
+                + String.join(", ", Collections.nCopies(values.size(), "?")) + ")";
+        Set<String> existing = new HashSet<>();
+        // Connexion principale : un réplica en retard laisserait passer un doublon
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setString(i + 1, values.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    String value = resultSet.getString(1);
+                    existing.add(column.equals("email") ? emailKey(value) : value);
+                }
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * Lancer le hachage des mots de passe d'un lot sur CryptoExecutor
+     */
+    private List<Row> hashAsync(List<Row> rows) {
+        List<String> passwords = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            passwords.add(row.password);
+        }
+        CompletableFuture<List<String>> hashes = CryptoExecutor.hashAll(passwords);
+        for (int i = 0; i < rows.size(); i++) {
+            int index = i;
+            rows.get(i).hash = hashes.thenApply(list -> list.get(index));
+        }
+        return rows;
+    }
+
+    /**
+     * Insérer un lot haché, puis notifier l'avancement
+     */
+    private void insert(List<Row> rows, UserImportReport report, ProgressListener listener) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        // Hachages attendus avant d'emprunter une connexion
+        List<String> hashes = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            hashes.add(awaitHash(row));
+        }
+        insertHashed(rows, hashes, report);
+        if (listener != null) {
+            listener.onProgress(report.getProcessed(), report.getImported(), report.getFailed());
+        }
+    }
+
+    /**
+     * Hash d'une ligne ; si CryptoExecutor a refusé le lot (file pleine), le hash est fait sur le thread de l'import
+     */
+    private static String awaitHash(Row row) {
+        try {
+            return row.hash.join();
+        } catch (CompletionException e) {
+            if (!(e.getCause() instanceof RejectedExecutionException)) {
+                throw e;
+            }
+            String hash = PasswordHasher.hashPassword(row.password);
+            row.hash = CompletableFuture.completedFuture(hash);
+            return hash;
+        }
+    }
+
+    /**
+     * Insérer des lignes hachées en une transaction. Si une contrainte d'unicité refuse le lot (doublon apparu
+     * entre-temps dans une autre session), les lignes déjà présentes en base sont rejetées et le reste est réessayé ;
+     * si aucune n'est trouvée, les lignes sont réessayées une à une, de sorte que les erreurs restent par ligne.
+     * Toute autre erreur SQL interrompt l'import.
+     */
+    private void insertHashed(List<Row> rows, List<String> hashes, UserImportReport report) throws SQLException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            TransactionManager.inTransaction(() -> {
+                for (Row row : rows) {
+                    UserIdentifierFilter.getInstance().add(row.user.getEmail(), row.user.getPhone_number());
+                }
+                try (Connection connection = MyDatabase.getInstance().getConnection();
+                     PreparedStatement statement = connection.prepareStatement(INSERT_QUERY,
+                             Statement.RETURN_GENERATED_KEYS)) {
+                    for (int i = 0; i < rows.size(); i++) {
+                        Row row = rows.get(i);
+                        statement.setString(1, row.user.getName());
+                        statement.setString(2, row.user.getEmail());
+                        statement.setString(3, row.user.getPhone_number());
+                        statement.setString(4, hashes.get(i));
+                        statement.setBoolean(5, row.user.isVerified());
+                        statement.setString(6, Role.encode(row.user.getRoles()));
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    int index = 0;
+                    try (ResultSet keys = statement.getGeneratedKeys()) {
+                        while (keys.next() && index < rows.size()) {
+                            rows.get(index++).user.setId(keys.getInt(1));
+                        }
+                    }
+                    if (index != rows.size()) {
+                        throw new SQLException("Expected " + rows.size() + " generated keys, got " + index);
+                    }
+                }
+                List<User> users = new ArrayList<>(rows.size());
+                for (Row row : rows) {
+                    users.add(row.user);
+                }
+                UserSearchIndex.getInstance().indexNew(users);
+            });
+            report.addImported(rows.size());
+        } catch (SQLException e) {
+            if (!isConstraintViolation(e)) {
+                throw e;
+            }
+            if (rows.size() == 1) {
+                report.addError(rows.get(0).line, "Not imported: " + e.getMessage());
+                return;
+            }
+            System.err.println("User import: batch rejected, retrying without duplicates: " + e.getMessage());
+            List<Row> remaining = removeExisting(rows, report);
+            if (remaining.size() < rows.size()) {
+                insertHashed(remaining, hashesOf(remaining), report);
+            } else {
+                for (Row row : rows) {
+                    insertHashed(List.of(row), hashesOf(List.of(row)), report);
+                }
+            }
+        }
+    }
+
+    private static List<String> hashesOf(List<Row> rows) {
+        List<String> hashes = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            hashes.add(row.hash.join());
+        }
+        return hashes;
+    }
+
+    /**
+     * Violation de contrainte (SQLState 23xxx), y compris dans la chaîne d'un BatchUpdateException
+     */
+    private static boolean isConstraintViolation(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            if (current.getSQLState() != null && current.getSQLState().startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Clé d'unicité d'un email, comme la collation utf8mb4_unicode_ci de la colonne : sans casse ni accents
+     */
+    private static String emailKey(String email) {
+        return Normalizer.normalize(email, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static String field(List<String> record, int column) {
+        return column >= 0 && column < record.size() ? record.get(column) : null;
+    }
+
+    private static void addError(List<String> errors, String error) {
+        if (error != null) {
+            errors.add(error);
+        }
+    }
+
+    private static boolean isBlank(List<String> record) {
+        for (String value : record) {
+            if (!value.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTrue(String value) {
+        if (value == null) {
+            return false;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("1") || normalized.equals("true") || normalized.equals("yes");
+    }
+
+    /**
+     * Lecture CSV en flux : un enregistrement à la fois, champs entre guillemets (« "" » pour un guillemet,
+     * retours à la ligne permis). Le séparateur est déduit de la première ligne.
+     */
+    private static final class CsvReader {
+        private final BufferedReader in;
+        private char separator;
+        private int line;
+        private int recordLine;
+
+        CsvReader(Reader source) {
+            this.in = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source);
+        }
+
+        /**
+         * @return Ligne du fichier où commence le dernier enregistrement lu
+         */
+        int getRecordLine() {
+            return recordLine;
+        }
+
+        /**
+         * @return Les champs du prochain enregistrement, ou null en fin de fichier
+         */
+        List<String> next() throws IOException {
+            String text = in.readLine();
+            if (text == null) {
+                return null;
+            }
+            recordLine = ++line;
+            if (separator == 0) {
+                if (!text.isEmpty() && text.charAt(0) == '\uFEFF') {
+                    text = text.substring(1);
+                }
+                separator = count(text, ';') > count(text, ',') ? ';' : ',';
+            }
+
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i == text.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // Guillemet ouvert : le champ continue sur la ligne suivante
+                    String more = in.readLine();
+                    if (more == null) {
+                        break;
+                    }
+                    line++;
+                    field.append('\n');
+                    text = more;
+                    i = 0;
+                    continue;
+                }
+                char c = text.charAt(i++);
+                if (quoted) {
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < text.length() && text.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else if (c == '"' && field.length() == 0) {
+                    quoted = true;
+                } else if (c == separator) {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private static int count(String text, char c) {
+            int count = 0;
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) == c) {
+                    count++;
+                }
+            }
+            return count;
+        }
+    }
+
+    // ============ ASYNCHRONOUS VARIANTS ============
+
+    /**
+     * Asynchronous {@link #importCsv(Reader, Role, ProgressListener)} from a UTF-8 file
+     * (the listener is still called on the import thread)
+     */
+    public CompletableFuture<UserImportReport> importCsvAsync(Path file, Role currentUserRole,
+                                                               ProgressListener listener) {
+        return DatabaseExecutor.supply(() -> {
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                return importCsv(reader, currentUserRole, listener);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,324 @@
+package services;
+
+import entities.User;
+import utils.MyDatabase;
+import utils.ResultSetStream;
+import utils.TransactionManager;
+import utils.UncheckedSQLException;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Index de recherche des utilisateurs (table user_search_token).
+ * Le nom, la partie locale de l'email et les chiffres du téléphone sont ramenés en minuscules sans accents,
+ * puis indexés par mots entiers et par suffixes de mots : « rig » est un début du suffixe « rigue » de « rodrigue ».
+ * Début et milieu de mot se cherchent ainsi par préfixe sur un index trié : le coût dépend des termes,
+ * pas de la taille de la table user.
+ */
+public class UserSearchIndex {
+    private static UserSearchIndex instance;
+
+    // Champs indexés, par poids décroissant dans le classement
+    static final int FIELD_NAME = 1;
+    static final int FIELD_EMAIL = 2;
+    static final int FIELD_PHONE = 3;
+
+    // Longueur minimale d'un terme cherché en milieu de mot (et des suffixes indexés)
+    static final int MIN_INFIX_LENGTH = 3;
+
+    // Jetons qui commencent par un terme (sans caractère spécial de LIKE : les termes sont des lettres et des chiffres)
+    private static final String PREFIX_CONDITION = " AND token >= ? AND token < ? AND token LIKE ?";
+
+    private static final int MAX_TOKEN_LENGTH = 64;
+    private static final int BATCH_SIZE = 500;
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Constructeur privé pour le pattern Singleton
+     */
+    private UserSearchIndex() {
+    }
+
+    /**
+     * Obtenir l'instance unique de l'index
+     * @return L'instance de l'index
+     */
+    public static UserSearchIndex getInstance() {
+        if (instance == null) {
+            instance = new UserSearchIndex();
+        }
+        return instance;
+    }
+
+    /**
+     * (Ré)indexer un utilisateur ; à appeler dans la transaction qui écrit l'utilisateur
+     * @param userId L'ID de l'utilisateur
+     * @param name Nom
+     * @param email Email (seule la partie locale est indexée)
+     * @param phoneNumber Téléphone (seuls les chiffres sont indexés)
+     * @throws SQLException En cas d'erreur SQL
+     */
+    public void index(int userId, String name, String email, String phoneNumber) throws SQLException {
+        TransactionManager.inTransaction(() -> {
+            try (Connection connection = MyDatabase.getInstance().getConnection()) {
+                try (PreparedStatement delete = connection.prepareStatement(
+                        "DELETE FROM user_search_token WHERE user_id = ?")) {
+                    delete.setInt(1, userId);
+                    delete.executeUpdate();
+                }
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO user_search_token (kind, token, user_id, field) VALUES (?, ?, ?, ?)")) {
+                    addTokens(insert, userId, name, email, phoneNumber);
+                    insert.executeBatch();
+                }
+            }
+        });
+    }
+
+    /**
+     * Indexer des utilisateurs qui viennent d'être créés (aucun jeton existant), en un seul lot ;
+     * à appeler dans la transaction qui les insère
+     * @param users Utilisateurs avec leur ID
+     * @throws SQLException En cas d'erreur SQL
+     */
+    public void indexNew(List<User> users) throws SQLException {
+        if (users.isEmpty()) {
+            return;
+        }
+        TransactionManager.inTransaction(() -> {
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT INTO user_search_token (kind, token, user_id, field) VALUES (?, ?, ?, ?)")) {
+                for (User user : users) {
+                    addTokens(insert, user.getId(), user.getName(), user.getEmail(), user.getPhone_number());
+                }
+                insert.executeBatch();
+            }
+        });
+    }
+
+    /**
+     * Reconstruire l'index si la table est vide alors que des utilisateurs existent
+     * (première installation, ou utilisateurs insérés sans passer par les services)
+     * @return true si l'index a été reconstruit
+     * @throws SQLException En cas d'erreur SQL
+     */
+    public boolean rebuildIfEmpty() throws SQLException {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT EXISTS (SELECT 1 FROM user_search_token), EXISTS (SELECT 1 FROM user)");
+             ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next() || resultSet.getBoolean(1) || !resultSet.getBoolean(2)) {
+                return false;
+            }
+        }
+        rebuild();
+        return true;
+    }
+
+    /**
+     * Reconstruire tout l'index à partir de la table user
+     * @throws SQLException En cas d'erreur SQL
+     */
+    public void rebuild() throws SQLException {
+        long start = System.currentTimeMillis();
+        int[] indexed = {0};
+        TransactionManager.inTransaction(() -> {
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT INTO user_search_token (kind, token, user_id, field) VALUES (?, ?, ?, ?)")) {
+                try (PreparedStatement delete = connection.prepareStatement("DELETE FROM user_search_token")) {
+                    delete.executeUpdate();
+                }
+                // Lecture en flux sur une connexion à part : la table peut être grande
+                try (Stream<User> users = ResultSetStream.query(MyDatabase.getInstance().getDataSource().getConnection(),
+                        "SELECT id, name, email, phone_number FROM user", null, resultSet -> {
+                            User user = new User();
+                            user.setId(resultSet.getInt("id"));
+                            user.setName(resultSet.getString("name"));
+                            user.setEmail(resultSet.getString("email"));
+                            user.setPhone_number(resultSet.getString("phone_number"));
+                            return user;
+                        })) {
+                    Iterator<User> iterator = users.iterator();
+                    while (iterator.hasNext()) {
+                        User user = iterator.next();
+                        addTokens(insert, user.getId(), user.getName(), user.getEmail(), user.getPhone_number());
+                        if (++indexed[0] % BATCH_SIZE == 0) {
+                            insert.executeBatch();
+                        }
+                    }
+                } catch (UncheckedSQLException e) {
+                    throw e.getCause();
+                }
+                insert.executeBatch();
+            }
+        });
+        System.out.println("User search index rebuilt: " + indexed[0] + " users in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void addTokens(PreparedStatement insert, int userId, String name, String email, String phoneNumber)
+            throws SQLException {
+        for (Token token : tokens(name, email, phoneNumber)) {
+            insert.setString(1, token.kind);
+            insert.setString(2, token.value);
+            insert.setInt(3, userId);
+            insert.setInt(4, token.field);
+            insert.addBatch();
+        }
+    }
+
+    /**
+     * Sous-requête des utilisateurs dont les champs contiennent tous les termes, avec leur pertinence
+     * (colonnes user_id et score). Pour chaque terme, le meilleur jeton compte (mot identique > début de mot >
+     * milieu de mot, puis nom > email > téléphone) ; le score est la somme sur les termes.
+     * L'intersection et le classement se font en base : aucun candidat n'est écarté avant le filtre de l'appelant.
+     * @param terms Termes normalisés (terms), au moins un
+     * @param parameters Paramètres de la requête, complétés dans l'ordre du texte renvoyé
+     * @return Le texte SQL de la sous-requête
+     */
+    String matchQuery(List<String> terms, List<Object> parameters) {
+        // Un parcours d'intervalle sur la clé primaire (kind, token, ...) par terme et par sorte de jeton ;
+        // les bornes explicites donnent l'intervalle même quand l'optimiseur ne le déduit pas d'un LIKE paramétré.
+        // Chaque ligne porte sa pertinence dans la colonne de son terme (best0, best1...), NULL dans les autres :
+        // 30 mot identique, 20 début de mot, 10 milieu de mot, plus 3 nom, 2 email, 1 téléphone (4 - field).
+        StringBuilder tokens = new StringBuilder();
+        StringBuilder score = new StringBuilder();
+        StringBuilder allTerms = new StringBuilder();
+        for (int i = 0; i < terms.size(); i++) {
+            String term = terms.get(i);
+            if (i > 0) {
+                tokens.append(" UNION ALL ");
+                score.append(" + ");
+                allTerms.append(" AND ");
+            }
+            tokens.append("SELECT user_id").append(termColumns(terms.size(), i,
+                            "CASE WHEN token = ? THEN 30 ELSE 20 END + 4 - field"))
+                    .append(" FROM user_search_token WHERE kind = 'W'").append(PREFIX_CONDITION);
+            parameters.add(term);
+            addPrefixParameters(parameters, term);
+            if (term.length() >= MIN_INFIX_LENGTH) {
+                tokens.append(" UNION ALL SELECT user_id").append(termColumns(terms.size(), i, "14 - field"))
+                        .append(" FROM user_search_token WHERE kind = 'S'").append(PREFIX_CONDITION);
+                addPrefixParameters(parameters, term);
+            }
+            // Meilleur jeton du terme ; tous les termes doivent correspondre
+            score.append("MAX(best").append(i).append(")");
+            allTerms.append("COUNT(best").append(i).append(") > 0");
+        }
+        return "SELECT user_id, " + score + " AS score FROM (" + tokens + ") tokens GROUP BY user_id HAVING "
+                + allTerms;
+    }
+
+    private static String termColumns(int termCount, int term, String best) {
+        StringBuilder columns = new StringBuilder();
+        for (int i = 0; i < termCount; i++) {
+            columns.append(", ").append(i == term ? best : "NULL").append(" AS best").append(i);
+        }
+        return columns.toString();
+    }
+
+    private static void addPrefixParameters(List<Object> parameters, String term) {
+        parameters.add(term);
+        parameters.add(term + Character.MAX_VALUE);
+        parameters.add(term + "%");
+    }
+
+    /**
+     * Découper une recherche en termes normalisés (minuscules, sans accents)
+     * @param text Texte saisi
+     * @return Les termes, sans doublons
+     */
+    static List<String> terms(String text) {
+        // Email complet saisi : seule la partie locale est indexée
+        String withoutDomains = text == null ? "" : text.replaceAll("@\\S*", " ");
+        return new ArrayList<>(new LinkedHashSet<>(words(withoutDomains)));
+    }
+
+    private static List<Token> tokens(String name, String email, String phoneNumber) {
+        Set<Token> tokens = new LinkedHashSet<>();
+        addFieldTokens(tokens, FIELD_NAME, words(name));
+        addFieldTokens(tokens, FIELD_EMAIL, words(localPart(email)));
+        addFieldTokens(tokens, FIELD_PHONE, words(digits(phoneNumber)));
+        return new ArrayList<>(tokens);
+    }
+
+    private static void addFieldTokens(Set<Token> tokens, int field, List<String> words) {
+        for (String word : words) {
+            tokens.add(new Token("W", word, field));
+            for (int i = 1; i + MIN_INFIX_LENGTH <= word.length(); i++) {
+                tokens.add(new Token("S", word.substring(i), field));
+            }
+        }
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : SEPARATORS.split(normalize(text))) {
+            if (!word.isEmpty()) {
+                words.add(word.length() > MAX_TOKEN_LENGTH ? word.substring(0, MAX_TOKEN_LENGTH) : word);
+            }
+        }
+        return words;
+    }
+
+    private static String localPart(String email) {
+        if (email == null) {
+            return "";
+        }
+        int at = email.indexOf('@');
+        return at < 0 ? email : email.substring(0, at);
+    }
+
+    private static String digits(String phoneNumber) {
+        return phoneNumber == null ? "" : phoneNumber.replaceAll("\\D", "");
+    }
+
+    private static final class Token {
+        private final String kind;
+        private final String value;
+        private final int field;
+
+        Token(String kind, String value, int field) {
+            this.kind = kind;
+            this.value = value;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Token)) {
+                return false;
+            }
+            Token other = (Token) o;
+            return kind.equals(other.kind) && value.equals(other.value) && field == other.field;
+        }
+
+        @Override
+        public int hashCode() {
+            return (kind.hashCode() * 31 + value.hashCode()) * 31 + field;
+        }
+    }
+}
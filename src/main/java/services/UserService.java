@@ -1,28 +1,82 @@
 package services;
 
+import entities.BulkActionResult;
+import entities.Role;
 import entities.User;
+import entities.UserChanges;
+import entities.UserFilter;
+import entities.UserPage;
+import entities.UserSummary;
+import utils.CryptoExecutor;
+import utils.DatabaseExecutor;
 import utils.MyDatabase;
-import utils.PasswordHasher;
+import utils.ResultSetStream;
+import utils.RowMapper;
+import utils.TransactionManager;
+import utils.UncheckedSQLException;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 /**
  * Service pour gérer les opérations liées aux utilisateurs
  */
 public class UserService {
+    // Plafond du comptage de la liste paginée : au-delà, le total affiché est un minimum
+    public static final int USER_COUNT_LIMIT = 10000;
+
+    // Nombre maximal de résultats d'une recherche, les plus pertinents d'abord
+    public static final int SEARCH_RESULT_LIMIT = 200;
+
+    // Colonnes des listes (UserSummary)
+    static final String SUMMARY_COLUMNS = "id, name, email, phone_number, is_verified, is_blocked, roles";
+
+    // Colonnes de l'entité User, sans le hash du mot de passe ni les secrets (2FA, réinitialisation)
+    static final String USER_COLUMNS = SUMMARY_COLUMNS + ", created_at, image";
+
+    // Clients (User.isClient) : ROLE_USER sans rôle d'administration ; garde des actions groupées
+    static final String CLIENT_CONDITION = "JSON_CONTAINS(roles, '\"ROLE_USER\"')"
+            + " AND NOT JSON_CONTAINS(roles, '\"ROLE_ADMIN\"') AND NOT JSON_CONTAINS(roles, '\"ROLE_SUPER_ADMIN\"')";
+
+    static final String NOT_SUPER_ADMIN_CONDITION = "NOT JSON_CONTAINS(roles, '\"ROLE_SUPER_ADMIN\"')";
+
+    // Users still referenced by a rating (written or received) or a password reset request are never deleted:
+    // the foreign keys do not cascade and the ratings belong to other users too
+    static final String UNREFERENCED_CONDITION = "id NOT IN (SELECT rater_id FROM rating)"
+            + " AND id NOT IN (SELECT rated_id FROM rating)"
+            + " AND id NOT IN (SELECT user_id FROM reset_password_request)";
+
+    // IDs par liste IN d'une action groupée ; au-delà, plusieurs instructions dans la même transaction
+    private static final int BULK_CHUNK_SIZE = 1000;
+
+    // Rafraîchissement incrémental : au-delà de CHANGE_LIMIT lignes modifiées, la liste est relue en entier.
+    // Les lignes écrites peu avant le repère sont relues (CHANGE_OVERLAP_MS) : une transaction validée après
+    // une lecture apparaît ainsi dans la suivante. Les traces de suppression sont gardées TOMBSTONE_RETENTION_MS.
+    public static final int CHANGE_LIMIT = Integer.getInteger("user.changes.limit", 500);
+    static final long CHANGE_OVERLAP_MS = Long.getLong("user.changes.overlapMs", 5000L);
+    static final long TOMBSTONE_RETENTION_MS = Long.getLong("user.tombstone.retentionMs", 7L * 24 * 3600 * 1000);
+
     private static UserService instance;
-    private final Connection connection;
 
     /**
      * Constructeur privé pour le pattern Singleton
      */
     private UserService() {
-        connection = MyDatabase.getInstance().getConnection();
     }
 
     /**
@@ -43,18 +97,17 @@ public class UserService {
      * @throws SQLException En cas d'erreur SQL
      */
     public User getUserById(int userId) throws SQLException {
-        String query = "SELECT * FROM user WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, userId);
-            
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return createUserFromResultSet(resultSet);
+        return UserCache.getById(userId, () -> {
+            String query = "SELECT " + USER_COLUMNS + " FROM user WHERE id = ?";
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setInt(1, userId);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return EntityMappers.USER.first(resultSet);
                 }
             }
-        }
-        
-        return null;
+        });
     }
 
     /**
@@ -64,18 +117,17 @@ public class UserService {
      * @throws SQLException En cas d'erreur SQL
      */
     public User getUserByEmail(String email) throws SQLException {
-        String query = "SELECT * FROM user WHERE email = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, email);
-            
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return createUserFromResultSet(resultSet);
+        return UserCache.getByEmail(email, () -> {
+            String query = "SELECT " + USER_COLUMNS + " FROM user WHERE email = ?";
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setString(1, email);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    return EntityMappers.USER.first(resultSet);
                 }
             }
-        }
-        
-        return null;
+        });
     }
 
     /**
@@ -85,17 +137,63 @@ public class UserService {
      */
     public void updateUser(User user) throws SQLException {
         String query = "UPDATE user SET name = ?, email = ?, phone_number = ?, image = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, user.getName());
-            statement.setString(2, user.getEmail());
-            statement.setString(3, user.getPhone_number());
-            statement.setString(4, user.getImage());
-            statement.setInt(5, user.getId());
-            
-            statement.executeUpdate();
+        // The search index is updated with the row
+        TransactionManager.inTransaction(() -> {
+            // The previous email and phone number stay in the filter until it is rebuilt
+            UserIdentifierFilter.getInstance().add(user.getEmail(), user.getPhone_number());
+            UserIdentifierFilter.getInstance().markStale(1);
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement statement = connection.prepareStatement(query)) {
+                statement.setString(1, user.getName());
+                statement.setString(2, user.getEmail());
+                statement.setString(3, user.getPhone_number());
+                statement.setString(4, user.getImage());
+                statement.setInt(5, user.getId());
+
+                statement.executeUpdate();
+            }
+            UserCache.invalidate(user.getId());
+            UserSearchIndex.getInstance().index(user.getId(), user.getName(), user.getEmail(), user.getPhone_number());
+        });
+    }
+
+    /**
+     * Lire le hash du mot de passe d'un utilisateur, chargé à la demande (absent des entités User)
+     * @param userId L'ID de l'utilisateur
+     * @return Le hash, ou null si l'utilisateur n'existe pas ou n'a pas de mot de passe
+     * @throws SQLException En cas d'erreur SQL
+     */
+    public String getPasswordHash(int userId) throws SQLException {
+        String query = "SELECT password FROM user WHERE id = ?";
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
+            statement.setInt(1, userId);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getString("password") : null;
+            }
         }
     }
 
+    /**
+     * Vérifier le mot de passe actuel d'un utilisateur (toujours contre le hash en base, absent de la session)
+     * @param userId L'ID de l'utilisateur
+     * @param password Le mot de passe saisi
+     * @return true si le mot de passe correspond
+     * @throws SQLException En cas d'erreur SQL
+     * @throws IllegalStateException Si l'utilisateur n'a pas de mot de passe
+     */
+    public boolean verifyPassword(int userId, String password) throws SQLException, IllegalStateException {
+        return CryptoExecutor.verifyPassword(password, requirePasswordHash(getPasswordHash(userId)));
+    }
+
+    private static String requirePasswordHash(String passwordHash) {
+        if (passwordHash == null || passwordHash.isEmpty()) {
+            throw new IllegalStateException("User password is not set. Please contact administrator.");
+        }
+        return passwordHash;
+    }
+
     /**
      * Mettre à jour le mot de passe d'un utilisateur
      * @param userId L'ID de l'utilisateur
@@ -103,16 +201,20 @@ public class UserService {
      * @throws SQLException En cas d'erreur SQL
      */
     public void updatePassword(int userId, String newPassword) throws SQLException {
-        // Hacher le mot de passe avec notre PasswordHasher au format $2y$
-        String hashedPassword = PasswordHasher.hashPassword(newPassword);
-        
+        // Hacher le mot de passe au format $2y$ sur CryptoExecutor
+        writePassword(userId, CryptoExecutor.hashPassword(newPassword));
+    }
+
+    private void writePassword(int userId, String hashedPassword) throws SQLException {
         String query = "UPDATE user SET password = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, hashedPassword);
             statement.setInt(2, userId);
             
             statement.executeUpdate();
         }
+        UserCache.invalidate(userId);
     }
 
     /**
@@ -123,8 +225,13 @@ public class UserService {
      * @throws SQLException En cas d'erreur SQL
      */
     public boolean emailExistsForOtherUser(String email, int userId) throws SQLException {
+        // Absent du filtre : libre sans requête
+        if (!UserIdentifierFilter.getInstance().mightContainEmail(email)) {
+            return false;
+        }
         String query = "SELECT COUNT(*) FROM user WHERE email = ? AND id != ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, email);
             statement.setInt(2, userId);
             
@@ -144,19 +251,47 @@ public class UserService {
      * @throws SQLException En cas d'erreur SQL
      */
     public List<User> getAllUsers() throws SQLException {
-        List<User> users = new ArrayList<>();
-        String query = "SELECT * FROM user ORDER BY name";
+        String query = "SELECT " + USER_COLUMNS + " FROM user ORDER BY name";
         
-        try (PreparedStatement statement = connection.prepareStatement(query);
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(query);
              ResultSet resultSet = statement.executeQuery()) {
             
-            while (resultSet.next()) {
-                User user = createUserFromResultSet(resultSet);
-                users.add(user);
-            }
+            return EntityMappers.USER.list(resultSet);
         }
-        
-        return users;
+    }
+
+    /**
+     * Stream all users ordered by name, read row by row instead of loaded into a list
+     * The stream holds a database connection until closed: use it in try-with-resources
+     * @return Lazily-read stream of users
+     * @throws SQLException In case of SQL error
+     */
+    public Stream<User> streamAllUsers() throws SQLException {
+        return ResultSetStream.query(MyDatabase.getInstance().getReadConnection(),
+                "SELECT " + USER_COLUMNS + " FROM user ORDER BY name", null, EntityMappers.USER.rowMapper());
+    }
+
+    /**
+     * Count users by their highest role (ROLE_SUPER_ADMIN, ROLE_ADMIN, ROLE_USER) in constant memory
+     * @return Number of users per role
+     * @throws SQLException In case of SQL error
+     */
+    public Map<String, Long> countUsersByRole() throws SQLException {
+        Map<String, Long> counts = new HashMap<>();
+        // Only the roles column is read
+        try (Stream<Integer> userRoles = ResultSetStream.query(MyDatabase.getInstance().getReadConnection(),
+                "SELECT roles FROM user", null, EntityMappers.ROLES.rowMapper())) {
+            userRoles.forEach(roles -> {
+                Role role = Role.highest(roles);
+                if (role != null) {
+                    counts.merge(role.getCode(), 1L, Long::sum);
+                }
+            });
+        } catch (UncheckedSQLException e) {
+            throw e.getCause();
+        }
+        return counts;
     }
 
     /**
@@ -166,27 +301,252 @@ public class UserService {
      * @throws SQLException In case of SQL error
      */
     public List<User> getAllUsersExcludingCurrentAndSuperAdmin(int currentUserId) throws SQLException {
-        List<User> users = new ArrayList<>();
-        String query = "SELECT * FROM user WHERE id != ? ORDER BY name";
+        // Super admins are excluded by the database instead of being fetched and dropped
+        String query = "SELECT " + USER_COLUMNS + " FROM user WHERE id != ? AND NOT JSON_CONTAINS(roles, '\"ROLE_SUPER_ADMIN\"') ORDER BY name";
         
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setInt(1, currentUserId);
             
             try (ResultSet resultSet = statement.executeQuery()) {
+                return EntityMappers.USER.list(resultSet);
+            }
+        }
+    }
+
+    /**
+     * Get the page of users that follows a key, ordered by (name, id)
+     * Seek pagination: the database starts reading at the key, so a page costs the same at any depth
+     * @param filter Search, status and role criteria, evaluated in SQL
+     * @param after Key of the last user of the previous page, or null for the first page
+     * @param pageSize Number of users per page
+     * @return The page, telling whether a next page exists
+     * @throws SQLException In case of SQL error
+     */
+    public UserPage getUserPageAfter(UserFilter filter, UserPage.Key after, int pageSize) throws SQLException {
+        // One extra row tells whether another page follows
+        List<UserSummary> users = queryUserPage(filter, after, false, pageSize + 1);
+        boolean hasNext = users.size() > pageSize;
+        if (hasNext) {
+            users.remove(pageSize);
+        }
+        return new UserPage(users, after != null, hasNext);
+    }
+
+    /**
+     * Get the page of users that precedes a key, ordered by (name, id)
+     * @param filter Search, status and role criteria, evaluated in SQL
+     * @param before Key of the first user of the next page, or null for the last page
+     * @param pageSize Number of users per page
+     * @return The page, telling whether a previous page exists
+     * @throws SQLException In case of SQL error
+     */
+    public UserPage getUserPageBefore(UserFilter filter, UserPage.Key before, int pageSize) throws SQLException {
+        List<UserSummary> users = queryUserPage(filter, before, true, pageSize + 1);
+        boolean hasPrevious = users.size() > pageSize;
+        if (hasPrevious) {
+            users.remove(pageSize);
+        } else if (before != null && users.size() < pageSize) {
+            // Start of the list reached with a partial page (rows added or removed meanwhile): show a full first page
+            return getUserPageAfter(filter, null, pageSize);
+        }
+        Collections.reverse(users);
+        return new UserPage(users, hasPrevious, before != null);
+    }
+
+    /**
+     * Count the users matching a filter, stopping at USER_COUNT_LIMIT
+     * @param filter Search, status and role criteria
+     * @return Exact count, or USER_COUNT_LIMIT when there are at least that many users
+     * @throws SQLException In case of SQL error
+     */
+    public long countUsers(UserFilter filter) throws SQLException {
+        StringBuilder query = new StringBuilder("SELECT COUNT(*) FROM (SELECT 1 FROM user WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        appendUserFilter(filter, query, parameters);
+        query.append(" LIMIT ?) capped");
+        parameters.add(USER_COUNT_LIMIT);
+
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(query.toString())) {
+            bindParameters(statement, parameters);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() ? resultSet.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Search users by name, email local part or phone digits, best matches first
+     * Accents and case are ignored; each term may match the start or the middle of a word.
+     * Candidates come from the user_search_token index, so the cost depends on the terms, not on the table size
+     * @param filter Search text plus status and role criteria
+     * @param limit Maximum number of users returned
+     * @return Matching users ordered by relevance, then name
+     * @throws SQLException In case of SQL error
+     */
+    public List<UserSummary> searchUsers(UserFilter filter, int limit) throws SQLException {
+        List<String> terms = UserSearchIndex.terms(filter.getSearchText());
+        List<UserSummary> users = new ArrayList<>();
+        if (terms.isEmpty()) {
+            return users;
+        }
+
+        // Intersection of the terms, status/role filter and ranking in one query: the limit applies last
+        List<Object> parameters = new ArrayList<>();
+        StringBuilder query = new StringBuilder("SELECT " + SUMMARY_COLUMNS + " FROM (")
+                .append(UserSearchIndex.getInstance().matchQuery(terms, parameters))
+                .append(") ranked JOIN user u ON u.id = ranked.user_id WHERE 1 = 1");
+        appendUserFilter(new UserFilter(null, filter.getBlocked(), filter.getRole(), filter.getExcludedUserId(),
+                filter.isExcludeSuperAdmins()), query, parameters);
+        query.append(" ORDER BY ranked.score DESC, name, id LIMIT ?");
+        parameters.add(limit);
+
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(query.toString())) {
+            bindParameters(statement, parameters);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                RowMapper<UserSummary> mapper = EntityMappers.USER_SUMMARY.rowMapper();
                 while (resultSet.next()) {
-                    User user = createUserFromResultSet(resultSet);
-                    
-                    // Exclude super admin users
-                    if (!user.getRole().contains("ROLE_SUPER_ADMIN")) {
-                        users.add(user);
-                    }
+                    users.add(mapper.map(resultSet));
                 }
             }
         }
-        
         return users;
     }
 
+    /**
+     * Users written or deleted since a previous call, for refreshing a list without reloading it.
+     * Reads updated_at (set by the database on every write) and the user_tombstone table filled by the deletions;
+     * each changed row is tested against the filter in the same query.
+     * @param filter Criteria of the displayed list (the search text is applied as in countUsers)
+     * @param since Watermark of the previous call, or null to get a first watermark only
+     * @return Changes since the watermark, or fullReloadRequired when they cannot all be returned
+     * @throws SQLException In case of SQL error
+     */
+    public UserChanges getUserChanges(UserFilter filter, Timestamp since) throws SQLException {
+        // Primary connection: a lagging replica could hide recent writes behind the new watermark
+        try (Connection connection = MyDatabase.getInstance().getConnection()) {
+            Timestamp watermark;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT LOCALTIMESTAMP(3)");
+                 ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                watermark = resultSet.getTimestamp(1);
+            }
+            if (since == null || since.getTime() < watermark.getTime() - TOMBSTONE_RETENTION_MS) {
+                return UserChanges.watermarkOnly(watermark, since != null);
+            }
+            Timestamp from = new Timestamp(since.getTime() - CHANGE_OVERLAP_MS);
+
+            StringBuilder query = new StringBuilder("SELECT " + SUMMARY_COLUMNS + ", CASE WHEN 1 = 1");
+            List<Object> parameters = new ArrayList<>();
+            appendUserFilter(filter, query, parameters);
+            query.append(" THEN 1 ELSE 0 END AS matches_filter FROM user WHERE updated_at > ? LIMIT ?");
+            parameters.add(from);
+            parameters.add(CHANGE_LIMIT + 1);
+
+            List<UserSummary> changed = new ArrayList<>();
+            Set<Integer> removedIds = new HashSet<>();
+            try (PreparedStatement statement = connection.prepareStatement(query.toString())) {
+                bindParameters(statement, parameters);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    RowMapper<UserSummary> mapper = EntityMappers.USER_SUMMARY.rowMapper();
+                    int rows = 0;
+                    while (resultSet.next()) {
+                        if (++rows > CHANGE_LIMIT) {
+                            return UserChanges.watermarkOnly(watermark, true);
+                        }
+                        UserSummary user = mapper.map(resultSet);
+                        if (resultSet.getBoolean("matches_filter")) {
+                            changed.add(user);
+                        } else {
+                            removedIds.add(user.getId());
+                        }
+                    }
+                }
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT user_id FROM user_tombstone WHERE deleted_at > ? LIMIT ?")) {
+                statement.setTimestamp(1, from);
+                statement.setInt(2, CHANGE_LIMIT + 1);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        removedIds.add(resultSet.getInt(1));
+                    }
+                }
+            }
+            if (changed.size() + removedIds.size() > CHANGE_LIMIT) {
+                return UserChanges.watermarkOnly(watermark, true);
+            }
+            return new UserChanges(changed, removedIds, watermark, false);
+        }
+    }
+
+    private List<UserSummary> queryUserPage(UserFilter filter, UserPage.Key key, boolean backward, int limit)
+            throws SQLException {
+        StringBuilder query = new StringBuilder("SELECT " + SUMMARY_COLUMNS + " FROM user WHERE 1 = 1");
+        List<Object> parameters = new ArrayList<>();
+        appendUserFilter(filter, query, parameters);
+        if (key != null) {
+            // (name, id) > (?, ?) written so that the optimizer sees a range on the name index
+            String operator = backward ? "<" : ">";
+            query.append(" AND name ").append(operator).append("= ? AND (name ").append(operator)
+                    .append(" ? OR id ").append(operator).append(" ?)");
+            parameters.add(key.getName());
+            parameters.add(key.getName());
+            parameters.add(key.getId());
+        }
+        query.append(backward ? " ORDER BY name DESC, id DESC" : " ORDER BY name, id").append(" LIMIT ?");
+        parameters.add(limit);
+
+        try (Connection connection = MyDatabase.getInstance().getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(query.toString())) {
+            bindParameters(statement, parameters);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return EntityMappers.USER_SUMMARY.list(resultSet);
+            }
+        }
+    }
+
+    /**
+     * Translate a UserFilter into SQL predicates
+     */
+    private void appendUserFilter(UserFilter filter, StringBuilder query, List<Object> parameters) {
+        if (filter.getExcludedUserId() != null) {
+            query.append(" AND id <> ?");
+            parameters.add(filter.getExcludedUserId());
+        }
+        if (filter.isExcludeSuperAdmins()) {
+            query.append(" AND NOT JSON_CONTAINS(roles, '\"ROLE_SUPER_ADMIN\"')");
+        }
+        if (filter.getRole() != null) {
+            query.append(" AND JSON_CONTAINS(roles, ?)");
+            parameters.add("\"" + filter.getRole().getCode() + "\"");
+        }
+        if (filter.getBlocked() != null) {
+            query.append(" AND is_blocked = ?");
+            parameters.add(filter.getBlocked());
+        }
+        if (filter.getSearchText() != null) {
+            query.append(" AND (name LIKE ? OR email LIKE ? OR phone_number LIKE ?)");
+            String pattern = "%" + escapeLike(filter.getSearchText()) + "%";
+            parameters.add(pattern);
+            parameters.add(pattern);
+            parameters.add(pattern);
+        }
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static void bindParameters(PreparedStatement statement, List<Object> parameters) throws SQLException {
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
     /**
      * Block or unblock a user (only clients can be blocked)
      * @param userId The ID of the user to block/unblock
@@ -202,88 +562,23 @@ public class UserService {
         }
         
         // Only clients (ROLE_USER) can be blocked
-        if (!user.getRole().contains("ROLE_USER") || user.getRole().contains("ROLE_ADMIN") || user.getRole().contains("ROLE_SUPER_ADMIN")) {
+        if (!user.isClient()) {
             throw new IllegalArgumentException("Only client users can be blocked");
         }
         
         String query = "UPDATE user SET is_blocked = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setBoolean(1, isBlocked);
             statement.setInt(2, userId);
             
             statement.executeUpdate();
         }
-    }
-
-    /**
-     * Créer un objet User à partir d'un ResultSet
-     * @param resultSet Le ResultSet contenant les données de l'utilisateur
-     * @return L'objet User créé
-     * @throws SQLException En cas d'erreur SQL
-     */
-    private User createUserFromResultSet(ResultSet resultSet) throws SQLException {
-        User user = new User();
-        user.setId(resultSet.getInt("id"));
-        user.setName(resultSet.getString("name"));
-        user.setEmail(resultSet.getString("email"));
-        user.setPhone_number(resultSet.getString("phone_number"));
-        user.setVerified(resultSet.getBoolean("is_verified"));
-        user.setBlocked(resultSet.getBoolean("is_blocked"));
-        user.setCreated_at(resultSet.getTimestamp("created_at"));
-        user.setPassword(resultSet.getString("password"));
-        user.setImage(resultSet.getString("image"));
-        user.setSecretKey(resultSet.getString("secret_key"));
-        
-        // Récupérer les rôles depuis le champ JSON
-        String rolesJson = resultSet.getString("roles");
-        if (rolesJson != null && !rolesJson.isEmpty()) {
-            user.setRole(parseRolesFromJson(rolesJson));
-        } else {
-            // Set default role for user
-            user.getRole().add("ROLE_USER");
+        UserCache.invalidate(userId);
+        if (isBlocked) {
+            // A blocked user is logged out everywhere, once the block is committed
+            TransactionManager.afterCommit(() -> SessionStore.getInstance().invalidateUser(userId));
         }
-        
-        return user;
-    }
-
-    /**
-     * Parser les rôles depuis une chaîne JSON
-     * @param rolesJson La chaîne JSON contenant les rôles
-     * @return Liste des rôles
-     */
-    private List<String> parseRolesFromJson(String rolesJson) {
-        List<String> roles = new ArrayList<>();
-        
-        if (rolesJson != null && !rolesJson.isEmpty()) {
-            try {
-                // Enlever les crochets et guillemets
-                rolesJson = rolesJson.trim();
-                if (rolesJson.startsWith("[") && rolesJson.endsWith("]")) {
-                    rolesJson = rolesJson.substring(1, rolesJson.length() - 1);
-                }
-                
-                // Séparer les rôles par virgule
-                String[] roleArray = rolesJson.split(",");
-                for (String role : roleArray) {
-                    role = role.trim();
-                    // Enlever les guillemets
-                    if (role.startsWith("\"") && role.endsWith("\"")) {
-                        role = role.substring(1, role.length() - 1);
-                    }
-                    if (!role.isEmpty()) {
-                        roles.add(role);
-                    }
-                }
-            } catch (Exception e) {
-                // En cas d'erreur, assigner le rôle par défaut
-                roles.add("ROLE_USER");
-            }
-        } else {
-            // Si pas de rôles, assigner le rôle par défaut
-            roles.add("ROLE_USER");
-        }
-        
-        return roles;
     }
 
     /**
@@ -293,13 +588,13 @@ public class UserService {
      * @throws SQLException In case of SQL error
      * @throws IllegalArgumentException If role restrictions are violated
      */
-    public void addUser(User user, String currentUserRole) throws SQLException, IllegalArgumentException {
+    public void addUser(User user, Role currentUserRole) throws SQLException, IllegalArgumentException {
         // Validate role restrictions
-        if (user.getRole().contains("ROLE_SUPER_ADMIN")) {
+        if (user.hasRole(Role.SUPER_ADMIN)) {
             throw new IllegalArgumentException("Cannot create super admin users");
         }
         
-        if (user.getRole().contains("ROLE_ADMIN") && !currentUserRole.equals("ROLE_SUPER_ADMIN")) {
+        if (user.hasRole(Role.ADMIN) && currentUserRole != Role.SUPER_ADMIN) {
             throw new IllegalArgumentException("Only super admin can create admin users");
         }
         
@@ -313,24 +608,34 @@ public class UserService {
             throw new IllegalArgumentException("Phone number already exists");
         }
         
-        // Hash password with our PasswordHasher au format $2y$
-        String hashedPassword = PasswordHasher.hashPassword(user.getPassword());
+        // Hash password au format $2y$ on CryptoExecutor
+        String hashedPassword = CryptoExecutor.hashPassword(user.getPassword());
         
         // Convert roles to JSON
-        String rolesJson = convertRolesToJson(user.getRole());
+        String rolesJson = Role.encode(user.getRoles());
         
         String query = "INSERT INTO user (name, email, phone_number, password, is_verified, is_blocked, created_at, roles) VALUES (?, ?, ?, ?, ?, ?, NOW(), ?)";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setString(1, user.getName());
-            statement.setString(2, user.getEmail());
-            statement.setString(3, user.getPhone_number());
-            statement.setString(4, hashedPassword);
-            statement.setBoolean(5, user.isVerified());
-            statement.setBoolean(6, user.isBlocked());
-            statement.setString(7, rolesJson);
-            
-            statement.executeUpdate();
-        }
+        TransactionManager.inTransaction(() -> {
+            UserIdentifierFilter.getInstance().add(user.getEmail(), user.getPhone_number());
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 PreparedStatement statement = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, user.getName());
+                statement.setString(2, user.getEmail());
+                statement.setString(3, user.getPhone_number());
+                statement.setString(4, hashedPassword);
+                statement.setBoolean(5, user.isVerified());
+                statement.setBoolean(6, user.isBlocked());
+                statement.setString(7, rolesJson);
+
+                statement.executeUpdate();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        user.setId(keys.getInt(1));
+                    }
+                }
+            }
+            UserSearchIndex.getInstance().index(user.getId(), user.getName(), user.getEmail(), user.getPhone_number());
+        });
     }
     
     /**
@@ -340,8 +645,13 @@ public class UserService {
      * @throws SQLException In case of SQL error
      */
     private boolean emailExists(String email) throws SQLException {
+        // Not in the filter: free without a round trip
+        if (!UserIdentifierFilter.getInstance().mightContainEmail(email)) {
+            return false;
+        }
         String query = "SELECT COUNT(*) FROM user WHERE email = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, email);
             
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -360,8 +670,12 @@ public class UserService {
      * @throws SQLException In case of SQL error
      */
     private boolean phoneExists(String phone) throws SQLException {
+        if (!UserIdentifierFilter.getInstance().mightContainPhone(phone)) {
+            return false;
+        }
         String query = "SELECT COUNT(*) FROM user WHERE phone_number = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, phone);
             
             try (ResultSet resultSet = statement.executeQuery()) {
@@ -373,55 +687,34 @@ public class UserService {
         return false;
     }
     
-    /**
-     * Convert list of roles to JSON string
-     * @param roles List of roles
-     * @return JSON string representation
-     */
-    private String convertRolesToJson(List<String> roles) {
-        if (roles == null || roles.isEmpty()) {
-            return "[\"ROLE_USER\"]";
-        }
-        
-        StringBuilder json = new StringBuilder("[");
-        for (int i = 0; i < roles.size(); i++) {
-            if (i > 0) {
-                json.append(",");
-            }
-            json.append("\"").append(roles.get(i)).append("\"");
-        }
-        json.append("]");
-        
-        return json.toString();
-    }
-
     /**
      * Update user role (used for role toggling by super admin)
      * @param userId User ID
      * @param newRole New role to assign
      * @throws SQLException In case of SQL error
      */
-    public void updateUserRole(int userId, String newRole) throws SQLException {
-        // Create a list with the single new role
-        List<String> roles = new ArrayList<>();
-        roles.add(newRole);
-        
-        // Convert to JSON and update in database
-        String rolesJson = convertRolesToJson(roles);
+    public void updateUserRole(int userId, Role newRole) throws SQLException {
+        // The user keeps the new role only
+        String rolesJson = Role.encode(newRole.getMask());
         String query = "UPDATE user SET roles = ? WHERE id = ?";
         
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(query)) {
             statement.setString(1, rolesJson);
             statement.setInt(2, userId);
             statement.executeUpdate();
         }
+        UserCache.invalidate(userId);
+        // Open sessions hold the old roles: the user logs in again, once the change is committed
+        TransactionManager.afterCommit(() -> SessionStore.getInstance().invalidateUser(userId));
     }
 
     /**
-     * Delete user (only regular users can be deleted, not admins or super admins)
+     * Delete user (only regular users can be deleted, not admins or super admins).
+     * A user who still has ratings or password reset requests is not deleted.
      * @param userId User ID to delete
      * @throws SQLException In case of SQL error
-     * @throws IllegalArgumentException If trying to delete admin or super admin
+     * @throws IllegalArgumentException If trying to delete admin or super admin, or a user still referenced
      */
     public void deleteUser(int userId) throws SQLException, IllegalArgumentException {
         // First check if the user is a client (ROLE_USER)
@@ -431,22 +724,19 @@ public class UserService {
         }
         
         // Only clients (ROLE_USER) can be deleted
-        if (!user.getRole().contains("ROLE_USER") || user.getRole().contains("ROLE_ADMIN") || user.getRole().contains("ROLE_SUPER_ADMIN")) {
+        if (!user.isClient()) {
             throw new IllegalArgumentException("Only client users can be deleted");
         }
         
-        String query = "DELETE FROM user WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, userId);
-            statement.executeUpdate();
-        }
+        deleteUserRow(userId);
     }
 
     /**
      * Delete user as super admin. Allows deleting admins and users; forbids deleting super admins.
+     * A user who still has ratings or password reset requests is not deleted.
      * @param userId User ID to delete
      * @throws SQLException In case of SQL error
-     * @throws IllegalArgumentException If trying to delete super admin or user not found
+     * @throws IllegalArgumentException If trying to delete super admin, a user still referenced or user not found
      */
     public void deleteUserAsSuperAdmin(int userId) throws SQLException, IllegalArgumentException {
         User user = getUserById(userId);
@@ -455,14 +745,355 @@ public class UserService {
         }
         
         // Forbid deleting super admins
-        if (user.getRole().contains("ROLE_SUPER_ADMIN")) {
+        if (user.hasRole(Role.SUPER_ADMIN)) {
             throw new IllegalArgumentException("Cannot delete super admin users");
         }
         
-        String query = "DELETE FROM user WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(query)) {
-            statement.setInt(1, userId);
-            statement.executeUpdate();
+        deleteUserRow(userId);
+    }
+
+    /**
+     * Delete one user row and record its tombstone in the same transaction
+     * @throws IllegalArgumentException If the user still has ratings or password reset requests
+     */
+    private void deleteUserRow(int userId) throws SQLException {
+        List<Integer> ids = List.of(userId);
+        TransactionManager.inTransaction(() -> {
+            try (Connection connection = MyDatabase.getInstance().getConnection()) {
+                recordTombstones(connection, UNREFERENCED_CONDITION, ids);
+                if (executeForIds(connection, "DELETE FROM user WHERE " + UNREFERENCED_CONDITION + " AND id IN "
+                        + placeholders(1), null, ids, 1) == 0) {
+                    throw new IllegalArgumentException(
+                            "Cannot delete a user who still has ratings or password reset requests");
+                }
+            }
+        });
+        UserCache.invalidate(userId);
+        UserIdentifierFilter.getInstance().markStale(1);
+        TransactionManager.afterCommit(() -> SessionStore.getInstance().invalidateUser(userId));
+    }
+
+    // ============ BULK ACTIONS ============
+    // One transaction per action; role guards are SQL predicates, so no user is read beforehand.
+    // Ids that do not exist or are not eligible are skipped and counted in the result.
+
+    /**
+     * Block or unblock several users; only clients are affected, as in {@link #updateUserBlockStatus(int, boolean)}
+     * @param userIds IDs of the users
+     * @param isBlocked The new blocked status
+     * @return Requested and affected user counts
+     * @throws SQLException In case of SQL error
+     */
+    public BulkActionResult updateUsersBlockStatus(Collection<Integer> userIds, boolean isBlocked)
+            throws SQLException {
+        // Blocked users are logged out everywhere, once the block is committed
+        return bulkUpdate(userIds, "UPDATE user SET is_blocked = ? WHERE " + CLIENT_CONDITION + " AND id IN ",
+                isBlocked, isBlocked ? CLIENT_CONDITION : null);
+    }
+
+    /**
+     * Give several users a single role (role toggling by super admin); super admins are never affected
+     * @param userIds IDs of the users
+     * @param newRole New role, USER or ADMIN
+     * @return Requested and affected user counts
+     * @throws SQLException In case of SQL error
+     * @throws IllegalArgumentException If newRole is SUPER_ADMIN
+     */
+    public BulkActionResult updateUsersRole(Collection<Integer> userIds, Role newRole)
+            throws SQLException, IllegalArgumentException {
+        if (newRole == Role.SUPER_ADMIN) {
+            throw new IllegalArgumentException("Cannot grant the super admin role");
+        }
+        // Open sessions hold the old roles: users whose role changes log in again, once the change is committed
+        String roleChanges = newRole == Role.ADMIN
+                ? "NOT JSON_CONTAINS(roles, '\"ROLE_ADMIN\"')"
+                : "JSON_CONTAINS(roles, '\"ROLE_ADMIN\"')";
+        return bulkUpdate(userIds, "UPDATE user SET roles = ? WHERE " + NOT_SUPER_ADMIN_CONDITION + " AND id IN ",
+                Role.encode(newRole.getMask()), NOT_SUPER_ADMIN_CONDITION + " AND " + roleChanges);
+    }
+
+    /**
+     * Delete several users with the rules of {@link #deleteUser(int)} (clients only) or, for a super admin,
+     * of {@link #deleteUserAsSuperAdmin(int)} (anyone but super admins).
+     * Users who still have ratings or password reset requests are skipped, as the single delete refuses them.
+     * @param userIds IDs of the users
+     * @param currentUserRole Highest role of the admin performing the deletion
+     * @return Requested and deleted user counts
+     * @throws SQLException In case of SQL error
+     */
+    public BulkActionResult deleteUsers(Collection<Integer> userIds, Role currentUserRole) throws SQLException {
+        String condition = (currentUserRole == Role.SUPER_ADMIN ? NOT_SUPER_ADMIN_CONDITION : CLIENT_CONDITION)
+                + " AND " + UNREFERENCED_CONDITION;
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        int deleted = TransactionManager.inTransaction(() -> {
+            UserCache.invalidate(ids);
+            int total = 0;
+            try (Connection connection = MyDatabase.getInstance().getConnection()) {
+                for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                    List<Integer> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+                    recordTombstones(connection, condition, chunk);
+                    invalidateSessionsAfterCommit(connection, condition, chunk);
+                    total += executeForIds(connection, "DELETE FROM user WHERE " + condition + " AND id IN "
+                            + placeholders(chunk.size()), null, chunk, 1);
+                }
+            }
+            return total;
+        });
+        UserIdentifierFilter.getInstance().markStale(deleted);
+        return new BulkActionResult(ids.size(), deleted);
+    }
+
+    /**
+     * Run an UPDATE whose SQL ends with "id IN " over all ids, one statement per chunk, in one transaction
+     * @param logoutCondition If not null, users matching it among the ids are logged out after the commit
+     */
+    private BulkActionResult bulkUpdate(Collection<Integer> userIds, String sqlPrefix, Object value,
+                                        String logoutCondition) throws SQLException {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(userIds));
+        int affected = TransactionManager.inTransaction(() -> {
+            UserCache.invalidate(ids);
+            int total = 0;
+            try (Connection connection = MyDatabase.getInstance().getConnection()) {
+                for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+                    List<Integer> chunk = ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size()));
+                    if (logoutCondition != null) {
+                        invalidateSessionsAfterCommit(connection, logoutCondition, chunk);
+                    }
+                    total += executeForIds(connection, sqlPrefix + placeholders(chunk.size()), value, chunk, 1);
+                }
+            }
+            return total;
+        });
+        return new BulkActionResult(ids.size(), affected);
+    }
+
+    /**
+     * Execute a statement with an optional leading value followed by idLists copies of the ids
+     * @return The update count
+     */
+    private static int executeForIds(Connection connection, String sql, Object value, List<Integer> ids, int idLists)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            if (value != null) {
+                statement.setObject(index++, value);
+            }
+            for (int list = 0; list < idLists; list++) {
+                for (int id : ids) {
+                    statement.setInt(index++, id);
+                }
+            }
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Record the deletion of the users matching the condition among the ids (read by getUserChanges),
+     * before the DELETE in the same transaction; tombstones older than the retention are purged
+     */
+    private static void recordTombstones(Connection connection, String condition, List<Integer> ids)
+            throws SQLException {
+        try (PreparedStatement purge = connection.prepareStatement(
+                "DELETE FROM user_tombstone WHERE deleted_at < ?")) {
+            purge.setTimestamp(1, new Timestamp(System.currentTimeMillis() - TOMBSTONE_RETENTION_MS));
+            purge.executeUpdate();
+        }
+        executeForIds(connection, "DELETE FROM user_tombstone WHERE user_id IN " + placeholders(ids.size()),
+                null, ids, 1);
+        executeForIds(connection, "INSERT INTO user_tombstone (user_id, deleted_at) SELECT id, LOCALTIMESTAMP(3)"
+                + " FROM user WHERE " + condition + " AND id IN " + placeholders(ids.size()), null, ids, 1);
+    }
+
+    /**
+     * Close the sessions of the users matching the condition among the ids once the transaction commits;
+     * the users are read before the statement that changes them, in the same transaction
+     */
+    private static void invalidateSessionsAfterCommit(Connection connection, String condition, List<Integer> ids)
+            throws SQLException {
+        List<Integer> affected = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id FROM user WHERE " + condition + " AND id IN " + placeholders(ids.size()))) {
+            for (int i = 0; i < ids.size(); i++) {
+                statement.setInt(i + 1, ids.get(i));
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    affected.add(resultSet.getInt(1));
+                }
+            }
+        }
+        if (!affected.isEmpty()) {
+            TransactionManager.afterCommit(() -> SessionStore.getInstance().invalidateUsers(affected));
+        }
+    }
+
+    private static String placeholders(int count) {
+        return "(" + String.join(", ", Collections.nCopies(count, "?")) + ")";
+    }
+
+    // ============ ASYNCHRONOUS VARIANTS ============
+    // Run on DatabaseExecutor; the returned futures complete on the JavaFX thread.
+
+    /**
+     * Asynchronous {@link #getUserById(int)}
+     */
+    public CompletableFuture<User> getUserByIdAsync(int userId) {
+        return DatabaseExecutor.supply(() -> getUserById(userId));
+    }
+
+    /**
+     * Asynchronous {@link #getUserByEmail(String)}
+     */
+    public CompletableFuture<User> getUserByEmailAsync(String email) {
+        return DatabaseExecutor.supply(() -> getUserByEmail(email));
+    }
+
+    /**
+     * Asynchronous {@link #updateUser(User)}
+     */
+    public CompletableFuture<Void> updateUserAsync(User user) {
+        return DatabaseExecutor.run(() -> updateUser(user));
+    }
+
+    /**
+     * Asynchronous {@link #updatePassword(int, String)}
+     */
+    public CompletableFuture<Void> updatePasswordAsync(int userId, String newPassword) {
+        // Hashed on CryptoExecutor, then written on DatabaseExecutor
+        return DatabaseExecutor.onFx(CryptoExecutor.hash(newPassword)
+                .thenCompose(hashedPassword -> DatabaseExecutor.run(() -> writePassword(userId, hashedPassword))));
+    }
+
+    /**
+     * Asynchronous {@link #verifyPassword(int, String)}
+     */
+    public CompletableFuture<Boolean> verifyPasswordAsync(int userId, String password) {
+        // Hash read on DatabaseExecutor, checked on CryptoExecutor
+        return DatabaseExecutor.onFx(DatabaseExecutor.supply(() -> getPasswordHash(userId))
+                .thenCompose(passwordHash -> CryptoExecutor.verify(password, requirePasswordHash(passwordHash))));
+    }
+
+    /**
+     * Asynchronous {@link #emailExistsForOtherUser(String, int)}
+     */
+    public CompletableFuture<Boolean> emailExistsForOtherUserAsync(String email, int userId) {
+        // A value absent from the filter is answered at once, without a database thread
+        if (!UserIdentifierFilter.getInstance().mightContainEmailNow(email)) {
+            return CompletableFuture.completedFuture(false);
         }
+        return DatabaseExecutor.supply(() -> emailExistsForOtherUser(email, userId));
+    }
+
+    /**
+     * Asynchronous {@link #getAllUsers()}
+     */
+    public CompletableFuture<List<User>> getAllUsersAsync() {
+        return DatabaseExecutor.supply(() -> getAllUsers());
+    }
+
+    /**
+     * Asynchronous {@link #getAllUsersExcludingCurrentAndSuperAdmin(int)}
+     */
+    public CompletableFuture<List<User>> getAllUsersExcludingCurrentAndSuperAdminAsync(int currentUserId) {
+        return DatabaseExecutor.supply(() -> getAllUsersExcludingCurrentAndSuperAdmin(currentUserId));
+    }
+
+    /**
+     * Asynchronous {@link #getUserPageAfter(UserFilter, UserPage.Key, int)}
+     */
+    public CompletableFuture<UserPage> getUserPageAfterAsync(UserFilter filter, UserPage.Key after, int pageSize) {
+        return DatabaseExecutor.supply(() -> getUserPageAfter(filter, after, pageSize));
+    }
+
+    /**
+     * Asynchronous {@link #getUserPageBefore(UserFilter, UserPage.Key, int)}
+     */
+    public CompletableFuture<UserPage> getUserPageBeforeAsync(UserFilter filter, UserPage.Key before, int pageSize) {
+        return DatabaseExecutor.supply(() -> getUserPageBefore(filter, before, pageSize));
+    }
+
+    /**
+     * Asynchronous {@link #searchUsers(UserFilter, int)}
+     */
+    public CompletableFuture<List<UserSummary>> searchUsersAsync(UserFilter filter, int limit) {
+        return DatabaseExecutor.supply(() -> searchUsers(filter, limit));
+    }
+
+    /**
+     * Asynchronous {@link #countUsers(UserFilter)}
+     */
+    public CompletableFuture<Long> countUsersAsync(UserFilter filter) {
+        return DatabaseExecutor.supply(() -> countUsers(filter));
+    }
+
+    /**
+     * Asynchronous {@link #updateUserBlockStatus(int, boolean)}
+     */
+    public CompletableFuture<Void> updateUserBlockStatusAsync(int userId, boolean isBlocked) {
+        return DatabaseExecutor.run(() -> updateUserBlockStatus(userId, isBlocked));
+    }
+
+    /**
+     * Asynchronous {@link #addUser(User, Role)}
+     */
+    public CompletableFuture<Void> addUserAsync(User user, Role currentUserRole) {
+        return DatabaseExecutor.run(() -> addUser(user, currentUserRole));
+    }
+
+    /**
+     * Asynchronous {@link #updateUserRole(int, Role)}
+     */
+    public CompletableFuture<Void> updateUserRoleAsync(int userId, Role newRole) {
+        return DatabaseExecutor.run(() -> updateUserRole(userId, newRole));
+    }
+
+    /**
+     * Asynchronous {@link #deleteUser(int)}
+     */
+    public CompletableFuture<Void> deleteUserAsync(int userId) {
+        return DatabaseExecutor.run(() -> deleteUser(userId));
+    }
+
+    /**
+     * Asynchronous {@link #deleteUserAsSuperAdmin(int)}
+     */
+    public CompletableFuture<Void> deleteUserAsSuperAdminAsync(int userId) {
+        return DatabaseExecutor.run(() -> deleteUserAsSuperAdmin(userId));
+    }
+
+    /**
+     * Asynchronous {@link #updateUsersBlockStatus(Collection, boolean)}
+     */
+    public CompletableFuture<BulkActionResult> updateUsersBlockStatusAsync(Collection<Integer> userIds,
+                                                                          boolean isBlocked) {
+        return DatabaseExecutor.supply(() -> updateUsersBlockStatus(userIds, isBlocked));
+    }
+
+    /**
+     * Asynchronous {@link #updateUsersRole(Collection, Role)}
+     */
+    public CompletableFuture<BulkActionResult> updateUsersRoleAsync(Collection<Integer> userIds, Role newRole) {
+        return DatabaseExecutor.supply(() -> updateUsersRole(userIds, newRole));
+    }
+
+    /**
+     * Asynchronous {@link #deleteUsers(Collection, Role)}
+     */
+    public CompletableFuture<BulkActionResult> deleteUsersAsync(Collection<Integer> userIds, Role currentUserRole) {
+        return DatabaseExecutor.supply(() -> deleteUsers(userIds, currentUserRole));
+    }
+
+    /**
+     * Asynchronous {@link #getUserChanges(UserFilter, Timestamp)}
+     */
+    public CompletableFuture<UserChanges> getUserChangesAsync(UserFilter filter, Timestamp since) {
+        return DatabaseExecutor.supply(() -> getUserChanges(filter, since));
+    }
+
+    /**
+     * Asynchronous {@link #countUsersByRole()}
+     */
+    public CompletableFuture<Map<String, Long>> countUsersByRoleAsync() {
+        return DatabaseExecutor.supply(this::countUsersByRole);
     }
 }
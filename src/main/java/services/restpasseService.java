@@ -1,7 +1,9 @@
 package services;
-import utils.PasswordHasher;
+import utils.CryptoExecutor;
+import utils.DatabaseExecutor;
 import utils.MyDatabase;
 import utils.EmailConfig;
+import utils.TransactionManager;
 import java.sql.Connection;
 
 import javax.mail.*;
@@ -10,9 +12,9 @@ import javax.mail.internet.MimeMessage;
 import java.sql.*;
 import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 public class restpasseService {
-    private final Connection connection;
 
     // Configuration pour Gmail - utilise EmailConfig
     private static final String EMAIL_USERNAME = EmailConfig.EMAIL_USERNAME;
@@ -29,13 +31,7 @@ public class restpasseService {
 
     public restpasseService() {
         try {
-            this.connection = MyDatabase.getInstance().getConnection();
-            if (this.connection == null) {
-                System.err.println("Erreur: Impossible d'obtenir une connexion à la base de données");
-            } else {
-                System.out.println("Connexion à la base de données établie avec succès");
-                createTokenTableIfNotExists();
-            }
+            createTokenTableIfNotExists();
         } catch (Exception e) {
             System.err.println("Erreur lors de l'initialisation du service de réinitialisation de mot de passe: " + e.getMessage());
             e.printStackTrace();
@@ -47,11 +43,6 @@ public class restpasseService {
      * Crée la table des tokens de réinitialisation si elle n'exi-ste pas
      */
     private void createTokenTableIfNotExists() {
-        if (connection == null) {
-            System.err.println("Erreur: La connexion à la base de données est null");
-            return;
-        }
-
         String query = "CREATE TABLE IF NOT EXISTS password_reset_tokens (" +
                 "id INT AUTO_INCREMENT PRIMARY KEY, " +
                 "email VARCHAR(255) NOT NULL, " +
@@ -61,7 +52,8 @@ public class restpasseService {
                 "UNIQUE KEY unique_token (token)" +
                 ")";
 
-        try (Statement stmt = connection.createStatement()) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             Statement stmt = connection.createStatement()) {
             stmt.execute(query);
             System.out.println("Table password_reset_tokens vérifiée/créée avec succès");
 
@@ -117,16 +109,26 @@ public class restpasseService {
             return false;
         }
 
-        // Hacher le nouveau mot de passe avec notre PasswordHasher au format $2y$
-        String hashedPassword = PasswordHasher.hashPassword(newPassword);
+        // Hacher le nouveau mot de passe au format $2y$ sur CryptoExecutor (avant d'ouvrir la transaction)
+        return applyReset(token, email, CryptoExecutor.hashPassword(newPassword));
+    }
 
-        // Mettre à jour le mot de passe dans la base de données
-        if (!updatePassword(email, hashedPassword)) {
+    private boolean applyReset(String token, String email, String hashedPassword) {
+        // Invalider le token puis mettre à jour le mot de passe en une seule transaction :
+        // si le token a été consommé entre-temps, le mot de passe n'est pas modifié
+        try {
+            return TransactionManager.inTransaction(() -> {
+                if (!invalidateToken(token) || !updatePassword(email, hashedPassword)) {
+                    TransactionManager.setRollbackOnly();
+                    return false;
+                }
+                return true;
+            });
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la réinitialisation du mot de passe: " + e.getMessage());
+            e.printStackTrace();
             return false;
         }
-
-        // Invalider le token
-        return invalidateToken(token);
     }
 
     /**
@@ -144,26 +146,27 @@ public class restpasseService {
      * @return true si l'enregistrement a réussi, false sinon
      */
     private boolean saveToken(String email, String token) {
-        // D'abord, supprimer les anciens tokens pour cet email
         String deleteQuery = "DELETE FROM password_reset_tokens WHERE email = ?";
-        try (PreparedStatement pst = connection.prepareStatement(deleteQuery)) {
-            pst.setString(1, email);
-            pst.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Erreur lors de la suppression des anciens tokens: " + e.getMessage());
-            // Continuer malgré l'erreur
-        }
-
-        // Ensuite, insérer le nouveau token
         String insertQuery = "INSERT INTO password_reset_tokens (email, token, expiry_date) VALUES (?, ?, ?)";
-        try (PreparedStatement pst = connection.prepareStatement(insertQuery)) {
-            pst.setString(1, email);
-            pst.setString(2, token);
-            // Expiration dans 24 heures
-            pst.setTimestamp(3, new Timestamp(System.currentTimeMillis() + 86400000));
-
-            int rowsAffected = pst.executeUpdate();
-            return rowsAffected > 0;
+        try {
+            // Supprimer les anciens tokens pour cet email puis insérer le nouveau, en une seule transaction
+            return TransactionManager.inTransaction(() -> {
+                try (Connection connection = MyDatabase.getInstance().getConnection()) {
+                    try (PreparedStatement pst = connection.prepareStatement(deleteQuery)) {
+                        pst.setString(1, email);
+                        pst.executeUpdate();
+                    }
+                    try (PreparedStatement pst = connection.prepareStatement(insertQuery)) {
+                        pst.setString(1, email);
+                        pst.setString(2, token);
+                        // Expiration dans 24 heures
+                        pst.setTimestamp(3, new Timestamp(System.currentTimeMillis() + 86400000));
+
+                        int rowsAffected = pst.executeUpdate();
+                        return rowsAffected > 0;
+                    }
+                }
+            });
         } catch (SQLException e) {
             System.err.println("Erreur lors de l'enregistrement du token: " + e.getMessage());
             e.printStackTrace();
@@ -246,13 +249,15 @@ public class restpasseService {
      */
     public String getEmailFromToken(String token) {
         String query = "SELECT email FROM password_reset_tokens WHERE token = ? AND expiry_date > ?";
-        try (PreparedStatement pst = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement pst = connection.prepareStatement(query)) {
             pst.setString(1, token);
             pst.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
 
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getString("email");
+            try (ResultSet rs = pst.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getString("email");
+                }
             }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la récupération du token: " + e.getMessage());
@@ -269,7 +274,8 @@ public class restpasseService {
      */
     private boolean updatePassword(String email, String hashedPassword) {
         String query = "UPDATE user SET password = ? WHERE email = ?";
-        try (PreparedStatement pst = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement pst = connection.prepareStatement(query)) {
             pst.setString(1, hashedPassword);
             pst.setString(2, email);
 
@@ -289,7 +295,8 @@ public class restpasseService {
      */
     private boolean invalidateToken(String token) {
         String query = "DELETE FROM password_reset_tokens WHERE token = ?";
-        try (PreparedStatement pst = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement pst = connection.prepareStatement(query)) {
             pst.setString(1, token);
 
             int rowsAffected = pst.executeUpdate();
@@ -308,12 +315,14 @@ public class restpasseService {
      */
     private boolean emailExists(String email) {
         String query = "SELECT COUNT(*) FROM user WHERE email = ?";
-        try (PreparedStatement pst = connection.prepareStatement(query)) {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement pst = connection.prepareStatement(query)) {
             pst.setString(1, email);
 
-            ResultSet rs = pst.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            try (ResultSet rs = pst.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
             }
         } catch (SQLException e) {
             System.err.println("Erreur lors de la vérification de l'email: " + e.getMessage());
@@ -321,4 +330,24 @@ public class restpasseService {
         }
         return false;
     }
+
+    // ============ ASYNCHRONOUS VARIANTS ============
+    // Run on DatabaseExecutor; the returned futures complete on the JavaFX thread.
+
+    /**
+     * Version asynchrone de {@link #resetPassword(String, String)} : token lu et mot de passe écrit
+     * sur DatabaseExecutor, hachage sur CryptoExecutor
+     */
+    public CompletableFuture<Boolean> resetPasswordAsync(String token, String newPassword) {
+        return DatabaseExecutor.onFx(DatabaseExecutor.supply(() -> getEmailFromToken(token))
+                .thenCompose(email -> {
+                    if (email == null) {
+                        System.out.println("Token invalide ou expiré: " + token);
+                        return CompletableFuture.completedFuture(false);
+                    }
+                    return CryptoExecutor.hash(newPassword)
+                            .thenCompose(hashedPassword -> DatabaseExecutor.supply(
+                                    () -> applyReset(token, email, hashedPassword)));
+                }));
+    }
 }
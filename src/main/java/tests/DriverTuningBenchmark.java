@@ -0,0 +1,111 @@
+package tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Comparaison des profils du driver ("default" puis "tuned") sur les appels de ServiceBenchmark.
+ * Chaque profil tourne dans sa propre JVM, les options du driver étant fixées à l'ouverture des connexions.
+ * Usage : DriverTuningBenchmark [arguments de ServiceBenchmark]
+ * Profil de base mysql par défaut (les options ne concernent que MySQL) ; les -Ddb.* sont transmis aux deux JVM.
+ */
+public class DriverTuningBenchmark {
+
+    private static final List<String> PROFILES = List.of("default", "tuned");
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Map<String, double[]>> results = new LinkedHashMap<>();
+        for (String profile : PROFILES) {
+            System.out.println("=== Driver profile: " + profile + " ===");
+            results.put(profile, run(profile, args));
+        }
+
+        Map<String, double[]> baseline = results.get(PROFILES.get(0));
+        Map<String, double[]> tuned = results.get(PROFILES.get(1));
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-42s %12s %12s %8s %12s %12s %8s%n", "scenario (us, load-test ops/s)",
+                "default p50", "tuned p50", "change", "default p95", "tuned p95", "change");
+        for (Map.Entry<String, double[]> entry : baseline.entrySet()) {
+            double[] before = entry.getValue();
+            double[] after = tuned.get(entry.getKey());
+            if (after == null) {
+                continue;
+            }
+            if (before.length == 1) {
+                System.out.printf(Locale.ROOT, "%-42s %12.0f %12.0f %7.1f%%%n", entry.getKey(), before[0], after[0],
+                        change(before[0], after[0]));
+            } else {
+                System.out.printf(Locale.ROOT, "%-42s %12.0f %12.0f %7.1f%% %12.0f %12.0f %7.1f%%%n", entry.getKey(),
+                        before[1], after[1], change(before[1], after[1]),
+                        before[2], after[2], change(before[2], after[2]));
+            }
+        }
+    }
+
+    /**
+     * Lancer ServiceBenchmark dans une JVM fille avec le profil donné
+     * @return Pour chaque ligne RESULT : {mean, p50, p95, p99} en µs, ou {ops/s} pour le test de charge
+     */
+    private static Map<String, double[]> run(String profile, String[] args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-Ddb.profile=" + System.getProperty("db.profile", "mysql"));
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("db.") && !name.equals("db.profile") && !name.equals("db.driverProfile")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-Ddb.driverProfile=" + profile);
+        command.add(ServiceBenchmark.class.getName());
+        command.addAll(Arrays.asList(args));
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, double[]> results = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                System.out.println(line);
+                if (line.startsWith("RESULT ")) {
+                    parseResult(line, results);
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("ServiceBenchmark exited with code " + exitCode + " for profile " + profile);
+        }
+        return results;
+    }
+
+    /**
+     * "RESULT nom mean X us p50 X us p95 X us p99 X us" ou "RESULT load-test X ops/s ..."
+     */
+    private static void parseResult(String line, Map<String, double[]> results) {
+        String[] tokens = line.trim().split("\\s+");
+        String name = tokens[1];
+        if (tokens.length > 3 && tokens[3].equals("ops/s")) {
+            results.put(name, new double[]{Double.parseDouble(tokens[2])});
+            return;
+        }
+        double[] values = new double[4];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Double.parseDouble(tokens[3 + i * 3]);
+        }
+        results.put(name, values);
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+}
@@ -5,11 +5,15 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import services.UserIdentifierFilter;
+import services.UserSearchIndex;
 import utils.DatabaseUpdater;
+import utils.PasswordCostCalibration;
 
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.sql.SQLException;
 
 public class Main extends Application {
 
@@ -47,6 +51,19 @@ public class Main extends Application {
             System.err.println("Erreur lors de la mise à jour de la structure de la base de données.");
         }
 
+        // Indexer les utilisateurs existants pour la recherche (première installation)
+        try {
+            UserSearchIndex.getInstance().rebuildIfEmpty();
+        } catch (SQLException e) {
+            System.err.println("Erreur lors de la construction de l'index de recherche : " + e.getMessage());
+        }
+
+        // Filtre des emails et téléphones pour les vérifications d'unicité, construit en arrière-plan
+        UserIdentifierFilter.getInstance().initialize();
+
+        // Choisir le coût BCrypt pour cette machine (budget de latence par hash)
+        PasswordCostCalibration.initialize();
+
         // Lancer l'application
         launch(args);
     }
@@ -0,0 +1,183 @@
+package tests;
+
+import entities.Contact;
+import entities.Rating;
+import entities.Role;
+import entities.User;
+import services.EntityMappers;
+import utils.ColumnMapper;
+import utils.DatabaseConfig;
+import utils.DatabaseProfile;
+import utils.MyDatabase;
+import utils.RowMapper;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Comparaison des conversions ligne -> entité : lecture par libellé (anciens mappers des services)
+ * contre EntityMappers (index résolus une fois par ResultSet).
+ * Le ResultSet est parcouru plusieurs fois (curseur scrollable) pour ne mesurer que la conversion,
+ * puis la requête complète est mesurée pour situer le gain dans un appel réel.
+ * Usage : RowMapperBenchmark [utilisateurs=5000] [passes=200]
+ * Chaque cas produit une ligne "RESULT nom mean p50 p95 ns/ligne".
+ */
+public class RowMapperBenchmark {
+
+    private static final String USER_QUERY =
+            "SELECT id, name, email, phone_number, is_verified, is_blocked, roles, created_at, image FROM user";
+    private static final String RATING_QUERY =
+            "SELECT r.*, u.name as rater_name FROM rating r JOIN user u ON r.rater_id = u.id";
+    private static final String CONTACT_QUERY = "SELECT * FROM contact";
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("db.profile") == null) {
+            System.setProperty("db.profile", "memory");
+        }
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int passes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        System.out.println("=== Row mapper benchmark: profile=" + DatabaseConfig.PROFILE.name().toLowerCase()
+                + " url=" + DatabaseConfig.URL + " ===");
+        MyDatabase database = MyDatabase.getInstance();
+        if (DatabaseConfig.PROFILE == DatabaseProfile.MEMORY) {
+            ServiceBenchmark.seed(userCount);
+        }
+
+        try (Connection connection = database.getReadConnection()) {
+            compare(connection, "user", USER_QUERY, RowMapperBenchmark::legacyUser, EntityMappers.USER, passes);
+            compare(connection, "rating", RATING_QUERY, RowMapperBenchmark::legacyRating, EntityMappers.RATING, passes);
+            compare(connection, "contact", CONTACT_QUERY, RowMapperBenchmark::legacyContact, EntityMappers.CONTACT,
+                    passes);
+        }
+    }
+
+    private static <T> void compare(Connection connection, String name, String sql, RowMapper<T> legacy,
+                                    ColumnMapper<T> indexed, int passes) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
+                ResultSet.CONCUR_READ_ONLY);
+             ResultSet resultSet = statement.executeQuery()) {
+            // Les deux variantes alternent à chaque passe : même état du JIT et des caches
+            long[] byLabel = new long[passes];
+            long[] byIndex = new long[passes];
+            int rows = 0;
+            for (int pass = -Math.max(10, passes / 10); pass < passes; pass++) {
+                long start = System.nanoTime();
+                resultSet.beforeFirst();
+                List<T> legacyRows = new ArrayList<>();
+                while (resultSet.next()) {
+                    legacyRows.add(legacy.map(resultSet));
+                }
+                long middle = System.nanoTime();
+                resultSet.beforeFirst();
+                List<T> indexedRows = indexed.list(resultSet);
+                long end = System.nanoTime();
+                if (legacyRows.size() != indexedRows.size()) {
+                    throw new IllegalStateException(name + ": " + legacyRows.size() + " vs " + indexedRows.size());
+                }
+                rows = indexedRows.size();
+                if (pass >= 0) {
+                    byLabel[pass] = middle - start;
+                    byIndex[pass] = end - middle;
+                }
+            }
+            if (rows == 0) {
+                System.out.println("No " + name + " rows, skipped");
+                return;
+            }
+            report(name + ".byLabel", byLabel, rows);
+            report(name + ".byIndex", byIndex, rows);
+        }
+
+        // Appel complet : exécution de la requête comprise
+        long[] byLabel = new long[passes];
+        long[] byIndex = new long[passes];
+        int rows = 0;
+        for (int pass = -Math.max(10, passes / 10); pass < passes; pass++) {
+            long start = System.nanoTime();
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    legacy.map(resultSet);
+                }
+            }
+            long middle = System.nanoTime();
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+                rows = indexed.list(resultSet).size();
+            }
+            long end = System.nanoTime();
+            if (pass >= 0) {
+                byLabel[pass] = middle - start;
+                byIndex[pass] = end - middle;
+            }
+        }
+        report(name + ".query.byLabel", byLabel, rows);
+        report(name + ".query.byIndex", byIndex, rows);
+    }
+
+    private static void report(String name, long[] samples, int rows) {
+        Arrays.sort(samples);
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        System.out.printf(Locale.ROOT, "RESULT %-28s mean %7.1f ns  p50 %7.1f ns  p95 %7.1f ns  per row (%d rows)%n",
+                name, (double) total / samples.length / rows, (double) percentile(samples, 0.50) / rows,
+                (double) percentile(samples, 0.95) / rows, rows);
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    // Anciens mappers des services, lecture par libellé
+
+    private static User legacyUser(ResultSet resultSet) throws SQLException {
+        User user = new User();
+        user.setId(resultSet.getInt("id"));
+        user.setName(resultSet.getString("name"));
+        user.setEmail(resultSet.getString("email"));
+        user.setPhone_number(resultSet.getString("phone_number"));
+        user.setVerified(resultSet.getBoolean("is_verified"));
+        user.setBlocked(resultSet.getBoolean("is_blocked"));
+        user.setCreated_at(resultSet.getTimestamp("created_at"));
+        user.setImage(resultSet.getString("image"));
+        user.setRoles(Role.decode(resultSet.getString("roles")));
+        return user;
+    }
+
+    private static Rating legacyRating(ResultSet rs) throws SQLException {
+        Rating rating = new Rating();
+        rating.setId(rs.getInt("id"));
+        rating.setRaterId(rs.getInt("rater_id"));
+        rating.setRatedId(rs.getInt("rated_id"));
+        rating.setStars(rs.getInt("stars"));
+        rating.setComment(rs.getString("comment"));
+        rating.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        rating.setRaterName(rs.getString("rater_name"));
+        return rating;
+    }
+
+    private static Contact legacyContact(ResultSet rs) throws SQLException {
+        Contact contact = new Contact();
+        contact.setId(rs.getInt("id"));
+        contact.setUserEmail(rs.getString("user_email"));
+        contact.setSubject(rs.getString("subject"));
+        contact.setContent(rs.getString("content"));
+        try {
+            contact.setStatus(rs.getString("status"));
+        } catch (SQLException ignored) {
+            // Colonne absente des anciens schémas
+        }
+        contact.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        return contact;
+    }
+}
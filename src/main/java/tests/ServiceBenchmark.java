@@ -0,0 +1,317 @@
+package tests;
+
+import entities.UserFilter;
+import entities.UserPage;
+import services.AuthService;
+import services.ContactService;
+import services.LoginThrottle;
+import services.RatingService;
+import services.RoleService;
+import services.UserCache;
+import services.UserIdentifierFilter;
+import services.UserSearchIndex;
+import services.UserService;
+import utils.CryptoExecutor;
+import utils.DatabaseConfig;
+import utils.DatabaseProfile;
+import utils.MyDatabase;
+import utils.SqlAction;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark des appels de service, autonome par défaut (profil "memory" : H2 en mémoire).
+ * Usage : ServiceBenchmark [utilisateurs=2000] [itérations=200] [threads=4]
+ * Avec -Ddb.profile=mysql, les données existantes sont utilisées et rien n'est inséré.
+ * Chaque scénario produit une ligne "RESULT nom mean p50 p95 p99" (µs).
+ * -Duser.cache.size=0 désactive UserCache pour mesurer les lectures par ID et par email en base.
+ * En profil "memory", -Dbenchmark.logins=N lance N connexions simultanées
+ * (AuthService.loginAsync, JavaFX requis dans le classpath) : débit BCrypt de CryptoExecutor.
+ * -Dbenchmark.idleChecks=N (3 par défaut, 0 pour l'omettre) : N emails libres vérifiés chacun après une pause
+ * plus longue que le rattrapage du filtre (application inactive), en allers-retours par appel.
+ */
+public class ServiceBenchmark {
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("db.profile") == null) {
+            System.setProperty("db.profile", "memory");
+        }
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        System.out.println("=== Service benchmark: profile=" + DatabaseConfig.PROFILE.name().toLowerCase()
+                + " driver=" + DatabaseConfig.DRIVER_PROFILE.name().toLowerCase() + " url=" + DatabaseConfig.URL + " ===");
+        MyDatabase database = MyDatabase.getInstance();
+
+        if (DatabaseConfig.PROFILE == DatabaseProfile.MEMORY) {
+            long start = System.nanoTime();
+            seed(userCount);
+            UserSearchIndex.getInstance().rebuild();
+            System.out.printf("Seeded %d users, %d ratings, %d contacts in %d ms%n", userCount, userCount * 3,
+                    userCount, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        // Filtre des emails et téléphones construit avant les mesures (en arrière-plan dans l'application)
+        UserIdentifierFilter.getInstance().rebuild();
+        int[] userIds = userIdRange();
+        if (userIds[1] == 0) {
+            System.err.println("No users in the database, nothing to benchmark");
+            return;
+        }
+
+        Map<String, SqlAction> scenarios = scenarios(userIds[0], userIds[1]);
+        for (Map.Entry<String, SqlAction> scenario : scenarios.entrySet()) {
+            measure(scenario.getKey(), scenario.getValue(), iterations);
+        }
+        loadTest(new ArrayList<>(scenarios.values()), threads, iterations);
+        idleCheckTest(Integer.getInteger("benchmark.idleChecks", 3));
+        if (DatabaseConfig.PROFILE == DatabaseProfile.MEMORY) {
+            loginTest(Integer.getInteger("benchmark.logins", 0), userCount);
+        }
+
+        if (database.getQueryMetrics() != null) {
+            database.getQueryMetrics().dump(System.out);
+        }
+        System.out.println(database.getPoolStatistics());
+        System.out.println(UserCache.statistics());
+        System.out.println(LoginThrottle.statistics());
+        System.out.println(UserIdentifierFilter.getInstance().statistics());
+        CryptoExecutor.dump(System.out);
+        System.exit(0);
+    }
+
+    /**
+     * Appels de service en lecture, sur des identifiants tirés au hasard parmi les utilisateurs existants
+     */
+    static Map<String, SqlAction> scenarios(int minUserId, int maxUserId) {
+        UserService userService = UserService.getInstance();
+        AuthService authService = AuthService.getInstance();
+        RoleService roleService = RoleService.getInstance();
+        RatingService ratingService = new RatingService();
+        ContactService contactService = new ContactService();
+
+        Map<String, SqlAction> scenarios = new LinkedHashMap<>();
+        scenarios.put("UserService.getUserById", () -> userService.getUserById(randomId(minUserId, maxUserId)));
+        // Comptes très consultés : servis par UserCache sans aller en base
+        scenarios.put("UserService.getUserById (hot)", () -> userService.getUserById(randomId(minUserId, Math.min(maxUserId, minUserId + 15))));
+        scenarios.put("UserService.getUserByEmail", () -> userService.getUserByEmail(email(randomId(minUserId, maxUserId))));
+        scenarios.put("AuthService.emailExists", () -> authService.emailExists(email(randomId(minUserId, maxUserId))));
+        // Inscription : email encore libre, réponse du filtre sans requête (sauf faux positif)
+        scenarios.put("AuthService.emailExists (free)", () -> authService.emailExists("new" + ThreadLocalRandom.current().nextInt() + "@benchmark.test"));
+        scenarios.put("RoleService.getUserRoles", () -> roleService.getUserRoles(randomId(minUserId, maxUserId)));
+        scenarios.put("RatingService.getRatingsReceivedByUser", () -> ratingService.getRatingsReceivedByUser(randomId(minUserId, maxUserId)));
+        scenarios.put("RatingService.getAverageRating", () -> ratingService.getAverageRating(randomId(minUserId, maxUserId)));
+        scenarios.put("RatingService.getAllUsersExceptCurrent", () -> ratingService.getAllUsersExceptCurrent(randomId(minUserId, maxUserId)));
+        // Liste admin paginée : la page au curseur d'un utilisateur tiré au hasard coûte autant que la première
+        UserFilter adminList = new UserFilter(null, null, null, minUserId, true);
+        scenarios.put("UserService.getUserPageAfter", () -> {
+            int id = randomId(minUserId, maxUserId);
+            userService.getUserPageAfter(adminList, new UserPage.Key("User" + id, id), 20);
+        });
+        scenarios.put("UserService.countUsers", () -> userService.countUsers(adminList));
+        // Recherche indexée : début de nom, milieu d'email, chiffres du téléphone
+        scenarios.put("UserService.searchUsers", () -> {
+            int n = randomId(minUserId, maxUserId) - minUserId + 1;
+            String[] queries = {"User" + n, "er" + n, String.format("%08d", n).substring(3)};
+            userService.searchUsers(new UserFilter(queries[n % queries.length], null, null, null, false),
+                    UserService.SEARCH_RESULT_LIMIT);
+        });
+        scenarios.put("UserService.getAllUsers", userService::getAllUsers);
+        scenarios.put("ContactService.afficher", contactService::afficher);
+        return scenarios;
+    }
+
+    private static void measure(String name, SqlAction action, int iterations) throws SQLException {
+        // Échauffement : JIT, cache de statements, pages de la base
+        for (int i = 0; i < Math.max(10, iterations / 10); i++) {
+            action.run();
+        }
+        long[] samples = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            action.run();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        long total = 0;
+        for (long sample : samples) {
+            total += sample;
+        }
+        System.out.printf(Locale.ROOT, "RESULT %-42s mean %8d us  p50 %8d us  p95 %8d us  p99 %8d us%n", name,
+                total / iterations / 1000, percentile(samples, 0.50), percentile(samples, 0.95),
+                percentile(samples, 0.99));
+    }
+
+    private static long percentile(long[] sortedNanos, double quantile) {
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(0, Math.min(index, sortedNanos.length - 1))] / 1000;
+    }
+
+    /**
+     * Tous les scénarios en parallèle, pour mesurer le débit avec le pool de connexions
+     */
+    private static void loadTest(List<SqlAction> actions, int threads, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    actions.get(ThreadLocalRandom.current().nextInt(actions.size())).run();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "RESULT %-42s %8.0f ops/s (%d threads x %d calls)%n", "load-test",
+                threads * iterations / seconds, threads, iterations);
+    }
+
+    /**
+     * Vérifications d'emails libres après une pause : le filtre rattrapé en arrière-plan répond sans requête,
+     * là où chaque appel coûtait un COUNT(*) (ou deux requêtes de rattrapage sur le thread appelant)
+     */
+    private static void idleCheckTest(int checks) throws Exception {
+        if (checks <= 0) {
+            return;
+        }
+        AuthService authService = AuthService.getInstance();
+        UserIdentifierFilter filter = UserIdentifierFilter.getInstance();
+        long idleMillis = Long.getLong("user.identifierFilter.refreshMs", 2000L) + 500;
+        long answered = filter.getAnsweredLocally();
+        long waited = filter.getWaitedRefreshes();
+        for (int i = 0; i < checks; i++) {
+            Thread.sleep(idleMillis);
+            authService.emailExists("idle" + ThreadLocalRandom.current().nextInt() + "@benchmark.test");
+        }
+        // Une réponse hors filtre est un COUNT(*), un rattrapage attendu deux requêtes
+        long roundTrips = (checks - (filter.getAnsweredLocally() - answered))
+                + 2 * (filter.getWaitedRefreshes() - waited);
+        System.out.printf(Locale.ROOT, "RESULT %-42s %8.2f round trips/call (COUNT(*): 1.00, %d calls after %d ms idle)%n",
+                "AuthService.emailExists (free, idle)", (double) roundTrips / checks, checks, idleMillis);
+    }
+
+    /**
+     * Connexions simultanées : lecture sur DatabaseExecutor, vérification BCrypt répartie sur les cœurs
+     */
+    private static void loginTest(int logins, int userCount) {
+        if (logins <= 0) {
+            return;
+        }
+        AuthService authService = AuthService.getInstance();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < logins; i++) {
+            // Comptes bloqués compris : la vérification a lieu avant le refus
+            futures.add(authService.loginAsync(email(1 + i % userCount), "benchmark").handle((user, error) -> null));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "RESULT %-42s %8.1f ops/s (%d concurrent, %d crypto threads)%n",
+                "AuthService.loginAsync", logins / seconds, logins, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Jeu de données reproductible : utilisateurs, notes et messages de contact
+     */
+    static void seed(int userCount) throws SQLException {
+        // Un seul hachage : BCrypt est volontairement lent
+        String password = CryptoExecutor.hashPassword("benchmark");
+        Random random = new Random(SEED);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        try (Connection connection = MyDatabase.getInstance().getConnection()) {
+            connection.setAutoCommit(false);
+            try (PreparedStatement users = connection.prepareStatement(
+                    "INSERT INTO user (email, roles, password, is_verified, created_at, name, phone_number, is_blocked) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= userCount; i++) {
+                    int roll = random.nextInt(100);
+                    users.setString(1, email(i));
+                    users.setString(2, roll == 0 ? "[\"ROLE_SUPER_ADMIN\"]" : roll < 10 ? "[\"ROLE_ADMIN\"]" : "[\"ROLE_USER\"]");
+                    users.setString(3, password);
+                    users.setBoolean(4, true);
+                    users.setTimestamp(5, now);
+                    users.setString(6, "User" + i);
+                    users.setString(7, String.format("%08d", i));
+                    users.setBoolean(8, random.nextInt(50) == 0);
+                    users.addBatch();
+                }
+                users.executeBatch();
+            }
+            // Identifiants attribués par AUTO_INCREMENT (le schéma ne commence pas à 1)
+            int firstUserId = userIdRange(connection)[0];
+            try (PreparedStatement ratings = connection.prepareStatement(
+                    "INSERT INTO rating (rater_id, rated_id, stars, comment, created_at) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 0; i < userCount * 3; i++) {
+                    ratings.setInt(1, firstUserId + random.nextInt(userCount));
+                    ratings.setInt(2, firstUserId + random.nextInt(userCount));
+                    ratings.setInt(3, 1 + random.nextInt(5));
+                    ratings.setString(4, "Benchmark rating " + i);
+                    ratings.setTimestamp(5, now);
+                    ratings.addBatch();
+                }
+                ratings.executeBatch();
+            }
+            try (PreparedStatement contacts = connection.prepareStatement(
+                    "INSERT INTO contact (user_email, subject, content, status, created_at) VALUES (?, ?, ?, ?, ?)")) {
+                for (int i = 1; i <= userCount; i++) {
+                    contacts.setString(1, email(i));
+                    contacts.setString(2, "Subject " + i);
+                    contacts.setString(3, "Benchmark message " + i);
+                    contacts.setString(4, "pending");
+                    contacts.setTimestamp(5, now);
+                    contacts.addBatch();
+                }
+                contacts.executeBatch();
+            }
+            connection.commit();
+        }
+    }
+
+    private static int[] userIdRange() throws SQLException {
+        try (Connection connection = MyDatabase.getInstance().getConnection()) {
+            return userIdRange(connection);
+        }
+    }
+
+    private static int[] userIdRange(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), 0) FROM user");
+             ResultSet resultSet = statement.executeQuery()) {
+            resultSet.next();
+            return new int[]{resultSet.getInt(1), resultSet.getInt(2)};
+        }
+    }
+
+    private static int randomId(int minUserId, int maxUserId) {
+        return ThreadLocalRandom.current().nextInt(minUserId, maxUserId + 1);
+    }
+
+    private static String email(int id) {
+        return "user" + id + "@benchmark.test";
+    }
+}
@@ -0,0 +1,123 @@
+package utils;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Conversion de lignes en objets par index de colonne.
+ * Les index des colonnes déclarées sont résolus une seule fois par ResultSet (métadonnées),
+ * puis chaque ligne est lue par position, sans recherche de libellé ni réflexion.
+ * Une colonne suffixée par « ? » est facultative : son index vaut 0 si la requête ne la sélectionne pas.
+ * Une instance est immuable et partageable entre threads.
+ * @param <T> Type des objets produits
+ */
+public final class ColumnMapper<T> {
+
+    /**
+     * Lecture de la ligne courante
+     * @param <T> Type de l'objet produit
+     */
+    @FunctionalInterface
+    public interface Reader<T> {
+        /**
+         * @param resultSet ResultSet positionné sur la ligne
+         * @param columns Index des colonnes, dans l'ordre de déclaration (0 : colonne facultative absente)
+         */
+        T read(ResultSet resultSet, int[] columns) throws SQLException;
+    }
+
+    private final String[] labels;
+    private final boolean[] optional;
+    private final Reader<T> reader;
+
+    /**
+     * @param reader Lecture d'une ligne à partir des index résolus
+     * @param columns Libellés des colonnes lues, dans l'ordre des index passés au reader
+     */
+    public ColumnMapper(Reader<T> reader, String... columns) {
+        this.reader = reader;
+        this.labels = new String[columns.length];
+        this.optional = new boolean[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            optional[i] = columns[i].endsWith("?");
+            labels[i] = optional[i] ? columns[i].substring(0, columns[i].length() - 1) : columns[i];
+        }
+    }
+
+    /**
+     * Résoudre les index des colonnes d'un ResultSet
+     * @throws SQLException Si une colonne obligatoire est absente
+     */
+    public int[] resolve(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = metaData.getColumnCount(); i >= 1; i--) {
+            // Libellé en double : le premier l'emporte, comme pour findColumn
+            positions.put(metaData.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+        }
+        int[] columns = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            Integer position = positions.get(labels[i].toLowerCase(Locale.ROOT));
+            if (position == null && !optional[i]) {
+                throw new SQLException("Column '" + labels[i] + "' not found in result set");
+            }
+            columns[i] = position == null ? 0 : position;
+        }
+        return columns;
+    }
+
+    /**
+     * Lire la ligne courante avec des index déjà résolus
+     */
+    public T read(ResultSet resultSet, int[] columns) throws SQLException {
+        return reader.read(resultSet, columns);
+    }
+
+    /**
+     * RowMapper pour ResultSetStream ou une boucle existante ; les index sont résolus à la première ligne
+     * (et de nouveau si le ResultSet change). À utiliser par un seul thread.
+     */
+    public RowMapper<T> rowMapper() {
+        return new RowMapper<>() {
+            private ResultSet resolvedFor;
+            private int[] columns;
+
+            @Override
+            public T map(ResultSet resultSet) throws SQLException {
+                if (resultSet != resolvedFor) {
+                    columns = resolve(resultSet);
+                    resolvedFor = resultSet;
+                }
+                return reader.read(resultSet, columns);
+            }
+        };
+    }
+
+    /**
+     * Lire toutes les lignes restantes
+     */
+    public List<T> list(ResultSet resultSet) throws SQLException {
+        List<T> rows = new ArrayList<>();
+        if (resultSet.next()) {
+            int[] columns = resolve(resultSet);
+            do {
+                rows.add(reader.read(resultSet, columns));
+            } while (resultSet.next());
+        }
+        return rows;
+    }
+
+    /**
+     * Lire la ligne suivante
+     * @return L'objet, ou null s'il n'y a plus de ligne
+     */
+    public T first(ResultSet resultSet) throws SQLException {
+        return resultSet.next() ? reader.read(resultSet, resolve(resultSet)) : null;
+    }
+}
@@ -0,0 +1,922 @@
+package utils;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Pool de connexions JDBC borné.
+ * Chaque emprunt renvoie un proxy : close() rend la connexion physique au pool au lieu de la fermer.
+ * Les PreparedStatement sont gardés dans un cache LRU par connexion physique, indexé par le texte SQL.
+ */
+public class ConnectionPool implements DataSource, AutoCloseable {
+
+    // Une connexion rendue il y a moins longtemps n'est pas revalidée (évite un ping par requête)
+    private static final long VALIDATION_BYPASS_MS = 500;
+
+    // Réglages d'un Statement qui, modifiés par l'appelant, empêchent sa remise en cache
+    private static final Set<String> STATEMENT_SETTINGS = Set.of("setFetchSize", "setFetchDirection", "setMaxRows",
+            "setLargeMaxRows", "setMaxFieldSize", "setQueryTimeout", "setEscapeProcessing", "setPoolable", "setCursorName");
+
+    // Exécutions susceptibles de modifier des données (alimente la lecture de ses propres écritures)
+    private static final Set<String> WRITE_METHODS = Set.of("executeUpdate", "executeLargeUpdate", "executeBatch",
+            "executeLargeBatch", "execute");
+
+    // Exécutions mesurées par QueryMetrics et SlowQueryLog
+    private static final Set<String> EXECUTE_METHODS = Set.of("executeQuery", "executeUpdate", "executeLargeUpdate",
+            "executeBatch", "executeLargeBatch", "execute");
+
+    private final String url;
+    private final Properties connectionProperties;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+    private final QueryMetrics queryMetrics;
+    private final SlowQueryLog slowQueryLog;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+    private volatile long lastWriteMillis;
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowTimeoutCount = new LongAdder();
+    private final LongAdder borrowWaitNanos = new LongAdder();
+    private final LongAdder createdCount = new LongAdder();
+    private final LongAdder destroyedCount = new LongAdder();
+    private final LongAdder validationFailureCount = new LongAdder();
+    private final LongAdder leakedConnectionCount = new LongAdder();
+    private final LongAdder leakedStatementCount = new LongAdder();
+    private final LongAdder leakedResultSetCount = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private final LongAdder statementCacheEvictions = new LongAdder();
+
+    private PrintWriter logWriter;
+    private int loginTimeout;
+
+    public ConnectionPool(String url, Properties connectionProperties, int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis, int validationTimeoutSeconds,
+                          long leakThresholdMillis, long housekeepingPeriodMillis, int statementCacheSize,
+                          QueryMetrics queryMetrics, SlowQueryLog slowQueryLog) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool bounds: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.connectionProperties = connectionProperties;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.queryMetrics = queryMetrics;
+        this.slowQueryLog = slowQueryLog;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, housekeepingPeriodMillis,
+                housekeepingPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Ouvre les connexions minimales pour que les premières requêtes n'attendent pas l'établissement
+     * @throws SQLException Si aucune connexion ne peut être ouverte
+     */
+    public void warmUp() throws SQLException {
+        SQLException failure = null;
+        while (totalConnections.get() < minSize) {
+            if (!reserveSlot()) {
+                break;
+            }
+            try {
+                idleConnections.offerLast(createPhysical());
+            } catch (SQLException e) {
+                totalConnections.decrementAndGet();
+                failure = e;
+                break;
+            }
+        }
+        if (failure != null && totalConnections.get() == 0) {
+            throw failure;
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (!acquired) {
+            borrowTimeoutCount.increment();
+            throw new SQLTimeoutException("No database connection available after " + borrowTimeoutMillis
+                    + " ms (" + activeConnections.size() + "/" + maxSize + " in use)");
+        }
+
+        try {
+            PooledConnection pooled = acquirePhysical(start);
+            pooled.borrowedAt = System.currentTimeMillis();
+            pooled.borrowSite = leakThresholdMillis > 0 ? new Throwable("Connection borrowed here") : null;
+            activeConnections.add(pooled);
+            borrowCount.increment();
+            borrowWaitNanos.add(System.nanoTime() - start);
+            return pooled.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Prend une connexion libre (validée) ou en ouvre une nouvelle si le plafond le permet
+     */
+    private PooledConnection acquirePhysical(long start) throws SQLException {
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        while (true) {
+            PooledConnection pooled = idleConnections.pollFirst();
+            if (pooled == null && reserveSlot()) {
+                try {
+                    return createPhysical();
+                } catch (SQLException e) {
+                    totalConnections.decrementAndGet();
+                    throw e;
+                }
+            }
+            if (pooled == null) {
+                // Une connexion est en cours de restitution : l'attendre brièvement
+                long remaining = deadline - System.nanoTime();
+                try {
+                    pooled = remaining > 0 ? idleConnections.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SQLException("Interrupted while waiting for a database connection", e);
+                }
+                if (pooled == null) {
+                    borrowTimeoutCount.increment();
+                    throw new SQLTimeoutException("No database connection available after " + borrowTimeoutMillis + " ms");
+                }
+            }
+            if (isUsable(pooled)) {
+                return pooled;
+            }
+            validationFailureCount.increment();
+            destroy(pooled);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pooled) {
+        if (System.currentTimeMillis() - pooled.lastReturnedAt < VALIDATION_BYPASS_MS) {
+            return true;
+        }
+        try {
+            return pooled.physical.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int current = totalConnections.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (totalConnections.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PooledConnection createPhysical() throws SQLException {
+        Connection physical = DriverManager.getConnection(url, connectionProperties);
+        createdCount.increment();
+        return new PooledConnection(physical);
+    }
+
+    /**
+     * Restitution d'une connexion par son proxy : état remis à zéro puis retour dans la file libre
+     */
+    private void release(PooledConnection pooled, boolean broken) {
+        activeConnections.remove(pooled);
+        try {
+            if (broken || closed || !pooled.resetState()) {
+                destroy(pooled);
+            } else {
+                pooled.lastReturnedAt = System.currentTimeMillis();
+                idleConnections.offerFirst(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.increment();
+        try {
+            pooled.physical.close();
+        } catch (SQLException ignored) {
+            // La connexion est de toute façon abandonnée
+        }
+    }
+
+    /**
+     * Maintenance périodique : éviction des connexions inactives, remplissage jusqu'au minimum,
+     * signalement des connexions empruntées depuis trop longtemps
+     */
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        for (PooledConnection pooled : idleConnections) {
+            if (totalConnections.get() <= minSize) {
+                break;
+            }
+            if (now - pooled.lastReturnedAt > idleTimeoutMillis && idleConnections.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        try {
+            warmUp();
+        } catch (SQLException e) {
+            System.err.println("Pool: unable to restore minimum connections: " + e.getMessage());
+        }
+
+        if (leakThresholdMillis > 0) {
+            for (PooledConnection pooled : activeConnections) {
+                if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                    pooled.leakReported = true;
+                    leakedConnectionCount.increment();
+                    System.err.println("Pool: connection held for " + (now - pooled.borrowedAt)
+                            + " ms without being closed (possible leak)");
+                    if (pooled.borrowSite != null) {
+                        pooled.borrowSite.printStackTrace();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Instant de la dernière écriture (ou du dernier commit) passée par ce pool
+     * @return Horodatage en millisecondes, 0 si aucune écriture
+     */
+    public long getLastWriteMillis() {
+        return lastWriteMillis;
+    }
+
+    /**
+     * Obtenir un instantané des compteurs du pool
+     * @return Les statistiques courantes
+     */
+    public PoolStatistics getStatistics() {
+        long borrows = borrowCount.sum();
+        return new PoolStatistics(
+                totalConnections.get(),
+                activeConnections.size(),
+                idleConnections.size(),
+                permits.getQueueLength(),
+                borrows,
+                borrowTimeoutCount.sum(),
+                borrows == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(borrowWaitNanos.sum()) / borrows,
+                createdCount.sum(),
+                destroyedCount.sum(),
+                validationFailureCount.sum(),
+                leakedConnectionCount.sum(),
+                leakedStatementCount.sum(),
+                leakedResultSetCount.sum(),
+                statementCacheHits.sum(),
+                statementCacheMisses.sum(),
+                statementCacheEvictions.sum());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool credentials are fixed by configuration");
+    }
+
+    @Override
+    public PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) {
+            return iface.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    private static boolean isFatal(SQLException e) {
+        String state = e.getSQLState();
+        // Classe 08 : erreurs de connexion (lien rompu, serveur indisponible)
+        return state != null && state.startsWith("08");
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Connexion physique gérée par le pool
+     */
+    private final class PooledConnection {
+        final Connection physical;
+        volatile long lastReturnedAt;
+        volatile long borrowedAt;
+        volatile Throwable borrowSite;
+        volatile boolean leakReported;
+
+        // État modifié pendant l'emprunt, à restaurer avant la remise en pool
+        boolean autoCommitChanged;
+        boolean readOnlyChanged;
+        boolean isolationChanged;
+        int defaultIsolation = -1;
+
+        // Accès réservé à l'emprunteur courant : pas de synchronisation nécessaire
+        final Map<String, CachedStatement> statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= statementCacheSize) {
+                    return false;
+                }
+                statementCacheEvictions.increment();
+                CachedStatement cached = eldest.getValue();
+                cached.evicted = true;
+                if (!cached.inUse) {
+                    cached.closeQuietly();
+                }
+                return true;
+            }
+        };
+
+        PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.lastReturnedAt = System.currentTimeMillis();
+        }
+
+        Connection newHandle() {
+            leakReported = false;
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new ConnectionHandler(this));
+        }
+
+        /**
+         * Annule toute transaction ouverte et restaure les réglages par défaut
+         * @return false si la connexion n'est plus réutilisable
+         */
+        boolean resetState() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (autoCommitChanged) {
+                    if (!physical.getAutoCommit()) {
+                        physical.rollback();
+                        physical.setAutoCommit(true);
+                    }
+                    autoCommitChanged = false;
+                }
+                if (readOnlyChanged) {
+                    physical.setReadOnly(false);
+                    readOnlyChanged = false;
+                }
+                if (isolationChanged) {
+                    physical.setTransactionIsolation(defaultIsolation);
+                    isolationChanged = false;
+                }
+                physical.clearWarnings();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Proxy remis à l'appelant : intercepte close() et suit les Statement ouverts
+     */
+    private final class ConnectionHandler implements InvocationHandler {
+        private final PooledConnection pooled;
+        private final List<StatementHandler> openStatements = new ArrayList<>();
+        private Connection proxy;
+        private boolean handleClosed;
+        private boolean broken;
+
+        ConnectionHandler(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            this.proxy = (Connection) proxy;
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    closeHandle();
+                    return null;
+                case "isClosed":
+                    return handleClosed || pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + pooled.physical + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (handleClosed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            switch (name) {
+                case "setAutoCommit":
+                    pooled.autoCommitChanged = true;
+                    break;
+                case "commit":
+                    lastWriteMillis = System.currentTimeMillis();
+                    break;
+                case "setReadOnly":
+                    pooled.readOnlyChanged = true;
+                    break;
+                case "setTransactionIsolation":
+                    if (!pooled.isolationChanged) {
+                        pooled.defaultIsolation = pooled.physical.getTransactionIsolation();
+                        pooled.isolationChanged = true;
+                    }
+                    break;
+                default:
+                    break;
+            }
+
+            if (statementCacheSize > 0 && name.equals("prepareStatement") && isCacheable(method)) {
+                return prepareCached(method, args);
+            }
+
+            Object result;
+            try {
+                result = invokeTarget(pooled.physical, method, args);
+            } catch (SQLException e) {
+                failIfFatal(e);
+                throw e;
+            }
+
+            if (result instanceof Statement) {
+                return track((Statement) result, args != null && args.length > 0 && args[0] instanceof String
+                        ? (String) args[0] : null, null);
+            }
+            return result;
+        }
+
+        /**
+         * Seules les variantes prepareStatement(sql) et prepareStatement(sql, autoGeneratedKeys) sont mises en cache
+         */
+        private boolean isCacheable(Method method) {
+            Class<?>[] types = method.getParameterTypes();
+            return types.length == 1 || (types.length == 2 && types[1] == int.class);
+        }
+
+        private Object prepareCached(Method method, Object[] args) throws Throwable {
+            String sql = (String) args[0];
+            String key = args.length == 1 ? sql : sql + '\u0000' + args[1];
+            CachedStatement cached = pooled.statementCache.get(key);
+            if (cached != null && !cached.inUse) {
+                statementCacheHits.increment();
+                cached.inUse = true;
+                return track(cached.statement, sql, cached);
+            }
+
+            statementCacheMisses.increment();
+            PreparedStatement statement;
+            try {
+                statement = (PreparedStatement) invokeTarget(pooled.physical, method, args);
+            } catch (SQLException e) {
+                failIfFatal(e);
+                throw e;
+            }
+            if (cached != null) {
+                // Même requête déjà ouverte sur cette connexion : instance temporaire hors cache
+                return track(statement, sql, null);
+            }
+            cached = new CachedStatement(statement);
+            cached.inUse = true;
+            pooled.statementCache.put(key, cached);
+            return track(statement, sql, cached);
+        }
+
+        private Statement track(Statement statement, String sql, CachedStatement cached) {
+            StatementHandler handler = new StatementHandler(this, statement, sql, cached);
+            openStatements.add(handler);
+            Class<?> iface = statement instanceof CallableStatement ? CallableStatement.class
+                    : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+            return (Statement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{iface}, handler);
+        }
+
+        private void closeHandle() {
+            if (handleClosed) {
+                return;
+            }
+            handleClosed = true;
+            for (StatementHandler handler : new ArrayList<>(openStatements)) {
+                leakedStatementCount.increment();
+                System.err.println("Pool: statement not closed before connection release: " + handler.describe());
+                handler.closeQuietly();
+            }
+            openStatements.clear();
+            release(pooled, broken);
+        }
+
+        /**
+         * Erreur de connexion remontée par la connexion, un statement ou un result set :
+         * la connexion physique ne sera pas rendue au pool
+         */
+        void failIfFatal(SQLException e) {
+            if (isFatal(e)) {
+                broken = true;
+            }
+        }
+    }
+
+    /**
+     * PreparedStatement conservé ouvert entre deux emprunts de la même connexion physique
+     */
+    private static final class CachedStatement {
+        final PreparedStatement statement;
+        boolean inUse;
+        boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // Statement retiré du cache
+            }
+        }
+    }
+
+    /**
+     * Proxy de Statement : détecte les ResultSet laissés ouverts et remet les statements cachés en cache
+     */
+    private final class StatementHandler implements InvocationHandler {
+        private final ConnectionHandler owner;
+        private final Statement statement;
+        private final String sql;
+        private final CachedStatement cached;
+        private final List<ResultSet> resultSets = new ArrayList<>(1);
+        private final List<ResultSetHandler> countedResultSets = new ArrayList<>(1);
+        private QueryMetrics.Entry lastExecution;
+        // Paramètres liés, conservés seulement pour l'EXPLAIN du journal des requêtes lentes
+        private Map<Integer, Object> parameters;
+        private boolean closed;
+        private boolean settingsChanged;
+        private boolean batched;
+
+        StatementHandler(ConnectionHandler owner, Statement statement, String sql, CachedStatement cached) {
+            this.owner = owner;
+            this.statement = statement;
+            this.sql = sql;
+            this.cached = cached;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "close":
+                    close();
+                    return null;
+                case "isClosed":
+                    return closed || statement.isClosed();
+                case "getConnection":
+                    return owner.proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return describe();
+                default:
+                    break;
+            }
+            if (closed) {
+                throw new SQLException("Statement is closed");
+            }
+            if (STATEMENT_SETTINGS.contains(name)) {
+                settingsChanged = true;
+            } else if (name.equals("addBatch")) {
+                batched = true;
+            } else if (slowQueryLog != null) {
+                captureParameter(name, args);
+            }
+            Object result;
+            try {
+                result = (queryMetrics != null || slowQueryLog != null) && EXECUTE_METHODS.contains(name)
+                        ? executeMeasured(method, args)
+                        : invokeTarget(statement, method, args);
+            } catch (SQLException e) {
+                owner.failIfFatal(e);
+                throw e;
+            }
+            if (WRITE_METHODS.contains(name)) {
+                lastWriteMillis = System.currentTimeMillis();
+            }
+            if (result instanceof ResultSet) {
+                resultSets.add((ResultSet) result);
+                boolean counted = lastExecution != null
+                        && (name.equals("executeQuery") || name.equals("getResultSet"));
+                return wrapResultSet((Statement) proxy, (ResultSet) result, counted ? lastExecution : null);
+            }
+            return result;
+        }
+
+        private Object executeMeasured(Method method, Object[] args) throws Throwable {
+            // Statement.execute*(sql) : requête passée en argument, sans paramètres liés
+            boolean inlineSql = args != null && args.length > 0 && args[0] instanceof String;
+            String executedSql = inlineSql ? (String) args[0] : sql;
+            Map<Integer, Object> boundParameters = inlineSql ? null : parameters;
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = invokeTarget(statement, method, args);
+            } catch (Throwable e) {
+                recordExecution(executedSql, boundParameters, System.nanoTime() - start, 0, true);
+                throw e;
+            }
+            recordExecution(executedSql, boundParameters, System.nanoTime() - start, updatedRows(result), false);
+            return result;
+        }
+
+        private void recordExecution(String executedSql, Map<Integer, Object> boundParameters, long elapsedNanos,
+                                     long rows, boolean failed) {
+            if (queryMetrics != null) {
+                lastExecution = queryMetrics.record(executedSql, elapsedNanos, rows, failed);
+            }
+            if (slowQueryLog != null && slowQueryLog.isSlow(elapsedNanos)) {
+                slowQueryLog.record(executedSql, elapsedNanos, boundParameters, failed, ConnectionPool.this, url);
+            }
+        }
+
+        private void captureParameter(String name, Object[] args) {
+            if (name.equals("clearParameters")) {
+                parameters = null;
+            } else if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer
+                    && statement instanceof PreparedStatement) {
+                if (parameters == null) {
+                    parameters = new HashMap<>();
+                }
+                parameters.put((Integer) args[0], name.equals("setNull") ? null : args[1]);
+            }
+        }
+
+        private long updatedRows(Object result) {
+            if (result instanceof Integer || result instanceof Long) {
+                return ((Number) result).longValue();
+            }
+            long rows = 0;
+            if (result instanceof int[]) {
+                for (int count : (int[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result) {
+                    rows += Math.max(count, 0);
+                }
+            }
+            return rows;
+        }
+
+        private ResultSet wrapResultSet(Statement statementProxy, ResultSet resultSet, QueryMetrics.Entry execution) {
+            ResultSetHandler handler = new ResultSetHandler(owner, statementProxy, resultSet, execution);
+            if (execution != null) {
+                countedResultSets.add(handler);
+            }
+            return (ResultSet) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, handler);
+        }
+
+        private void close() throws SQLException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            owner.openStatements.remove(this);
+            // A cached statement must not go back to the cache with a result set still open on the connection
+            boolean resultSetsClosed = true;
+            for (ResultSet resultSet : resultSets) {
+                try {
+                    if (!resultSet.isClosed()) {
+                        leakedResultSetCount.increment();
+                        System.err.println("Pool: result set not closed before its statement: " + describe());
+                        resultSet.close();
+                    }
+                } catch (SQLException e) {
+                    owner.failIfFatal(e);
+                    resultSetsClosed = false;
+                }
+            }
+            resultSets.clear();
+            for (ResultSetHandler handler : countedResultSets) {
+                handler.flushRows();
+            }
+            countedResultSets.clear();
+
+            if (cached == null) {
+                statement.close();
+                return;
+            }
+            if (cached.evicted || settingsChanged || !resultSetsClosed || statement.isClosed()) {
+                owner.pooled.statementCache.values().remove(cached);
+                cached.inUse = false;
+                statement.close();
+                return;
+            }
+            try {
+                cached.statement.clearParameters();
+                if (batched) {
+                    statement.clearBatch();
+                }
+                cached.inUse = false;
+            } catch (SQLException e) {
+                owner.pooled.statementCache.values().remove(cached);
+                cached.inUse = false;
+                statement.close();
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                close();
+            } catch (SQLException ignored) {
+                // Fermeture de secours lors de la restitution de la connexion
+            }
+        }
+
+        String describe() {
+            return sql != null ? sql.replaceAll("\\s+", " ").trim() : "<unprepared statement>";
+        }
+    }
+
+    /**
+     * Proxy de ResultSet : compte les lignes lues pour QueryMetrics (si execution n'est pas null)
+     * et signale une connexion rompue pendant la lecture
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ConnectionHandler owner;
+        private final Statement statementProxy;
+        private final ResultSet resultSet;
+        private final QueryMetrics.Entry execution;
+        private long rows;
+
+        ResultSetHandler(ConnectionHandler owner, Statement statementProxy, ResultSet resultSet,
+                         QueryMetrics.Entry execution) {
+            this.owner = owner;
+            this.statementProxy = statementProxy;
+            this.resultSet = resultSet;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            try {
+                return invokeTracked(proxy, method, args);
+            } catch (SQLException e) {
+                owner.failIfFatal(e);
+                throw e;
+            }
+        }
+
+        private Object invokeTracked(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    boolean hasRow = resultSet.next();
+                    if (hasRow && execution != null) {
+                        rows++;
+                    }
+                    return hasRow;
+                case "close":
+                    flushRows();
+                    resultSet.close();
+                    return null;
+                case "getStatement":
+                    return statementProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return invokeTarget(resultSet, method, args);
+            }
+        }
+
+        void flushRows() {
+            if (execution == null) {
+                return;
+            }
+            execution.addRows(rows);
+            rows = 0;
+        }
+    }
+}
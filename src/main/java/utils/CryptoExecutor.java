@@ -0,0 +1,237 @@
+package utils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Exécution des calculs BCrypt (PasswordHasher), coûteux en CPU, sur un pool dédié.
+ * Autant de threads que de cœurs : les connexions simultanées se répartissent sur les cœurs sans jamais
+ * bloquer le thread JavaFX ni un thread de DatabaseExecutor ; au-delà de la file d'attente, rejet immédiat
+ * (RejectedExecutionException) plutôt qu'une attente qui s'allonge.
+ * Les futures sont complétées sur un thread du pool. Temps d'attente en file et temps de calcul sont mesurés
+ * (histogrammes de QueryMetrics).
+ */
+public final class CryptoExecutor {
+
+    static final int THREADS = Integer.getInteger("crypto.threads", Runtime.getRuntime().availableProcessors());
+    static final int QUEUE_CAPACITY = Integer.getInteger("crypto.queueCapacity", 64);
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static final QueryMetrics.Entry HASH_WAIT = new QueryMetrics.Entry("bcrypt hash: queue wait");
+    private static final QueryMetrics.Entry HASH_TIME = new QueryMetrics.Entry("bcrypt hash: compute");
+    private static final QueryMetrics.Entry VERIFY_WAIT = new QueryMetrics.Entry("bcrypt verify: queue wait");
+    private static final QueryMetrics.Entry VERIFY_TIME = new QueryMetrics.Entry("bcrypt verify: compute");
+    private static final LongAdder REJECTED = new LongAdder();
+
+    private CryptoExecutor() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                THREADS, THREADS,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "crypto-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Hacher un mot de passe (PasswordHasher.hashPassword) sur le pool
+     * @param password Le mot de passe en clair
+     * @return Future du hash au format $2y$, en échec avec RejectedExecutionException si la file est pleine
+     */
+    public static CompletableFuture<String> hash(String password) {
+        return submit(() -> PasswordHasher.hashPassword(password), HASH_WAIT, HASH_TIME);
+    }
+
+    /**
+     * Vérifier un mot de passe (PasswordHasher.verifyPassword) sur le pool
+     * @param password Le mot de passe en clair
+     * @param hash Le hash stocké en base
+     * @return Future du résultat, en échec avec RejectedExecutionException si la file est pleine
+     */
+    public static CompletableFuture<Boolean> verify(String password, String hash) {
+        return submit(() -> PasswordHasher.verifyPassword(password, hash), VERIFY_WAIT, VERIFY_TIME);
+    }
+
+    /**
+     * Hacher une série de mots de passe (import) : au plus une tâche par thread, chacune remise en fin de file
+     * après chaque hash, de sorte qu'une connexion n'attend jamais plus d'un hash par thread derrière un import
+     * @param passwords Les mots de passe en clair
+     * @return Future des hash, dans l'ordre des mots de passe
+     */
+    public static CompletableFuture<List<String>> hashAll(List<String> passwords) {
+        String[] hashes = new String[passwords.size()];
+        CompletableFuture<List<String>> result = new CompletableFuture<>();
+        if (passwords.isEmpty()) {
+            result.complete(new ArrayList<>());
+            return result;
+        }
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger remaining = new AtomicInteger(passwords.size());
+        int lanes = Math.min(THREADS, passwords.size());
+        try {
+            for (int i = 0; i < lanes; i++) {
+                EXECUTOR.execute(new HashLane(passwords, hashes, next, remaining, result, System.nanoTime()));
+            }
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+            // Les tâches déjà lancées s'arrêtent à leur prochain hash
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Hacher un mot de passe sur le pool en attendant le résultat (appels synchrones des services)
+     * @throws RejectedExecutionException Si la file est pleine
+     */
+    public static String hashPassword(String password) {
+        return await(hash(password));
+    }
+
+    /**
+     * Vérifier un mot de passe sur le pool en attendant le résultat (appels synchrones des services)
+     * @throws RejectedExecutionException Si la file est pleine
+     */
+    public static boolean verifyPassword(String password, String hash) {
+        return await(verify(password, hash));
+    }
+
+    private static <T> CompletableFuture<T> submit(Supplier<T> task, QueryMetrics.Entry wait,
+                                                   QueryMetrics.Entry time) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queued = System.nanoTime();
+        try {
+            EXECUTOR.execute(() -> {
+                long start = System.nanoTime();
+                wait.record(start - queued, 0, false);
+                try {
+                    T value = task.get();
+                    time.record(System.nanoTime() - start, 0, false);
+                    result.complete(value);
+                } catch (Throwable e) {
+                    time.record(System.nanoTime() - start, 0, true);
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            REJECTED.increment();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Tâche de hashAll : un hash, puis remise en file ; si la file est pleine, le hash suivant est fait sur place
+     */
+    private static final class HashLane implements Runnable {
+        private final List<String> passwords;
+        private final String[] hashes;
+        private final AtomicInteger next;
+        private final AtomicInteger remaining;
+        private final CompletableFuture<List<String>> result;
+        private long queued;
+
+        HashLane(List<String> passwords, String[] hashes, AtomicInteger next, AtomicInteger remaining,
+                 CompletableFuture<List<String>> result, long queued) {
+            this.passwords = passwords;
+            this.hashes = hashes;
+            this.next = next;
+            this.remaining = remaining;
+            this.result = result;
+            this.queued = queued;
+        }
+
+        @Override
+        public void run() {
+            while (!result.isDone()) {
+                int index = next.getAndIncrement();
+                if (index >= passwords.size()) {
+                    return;
+                }
+                long start = System.nanoTime();
+                HASH_WAIT.record(start - queued, 0, false);
+                try {
+                    hashes[index] = PasswordHasher.hashPassword(passwords.get(index));
+                    HASH_TIME.record(System.nanoTime() - start, 0, false);
+                } catch (Throwable e) {
+                    HASH_TIME.record(System.nanoTime() - start, 0, true);
+                    result.completeExceptionally(e);
+                    return;
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    result.complete(Arrays.asList(hashes));
+                    return;
+                }
+                queued = System.nanoTime();
+                try {
+                    EXECUTOR.execute(this);
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // File pleine : continuer sur ce thread
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Attente en file et temps de calcul des hachages et des vérifications
+     */
+    public static List<QueryStatistics> getStatistics() {
+        return List.of(HASH_WAIT.snapshot(), HASH_TIME.snapshot(), VERIFY_WAIT.snapshot(), VERIFY_TIME.snapshot());
+    }
+
+    /**
+     * @return Nombre de calculs refusés (file pleine)
+     */
+    public static long getRejected() {
+        return REJECTED.sum();
+    }
+
+    /**
+     * Écrire les mesures
+     * @param out Destination, par exemple System.out
+     */
+    public static void dump(PrintStream out) {
+        out.println("=== Crypto executor (" + THREADS + " threads, queue " + QUEUE_CAPACITY + ", rejected "
+                + getRejected() + ") ===");
+        for (QueryStatistics statistics : getStatistics()) {
+            out.println(statistics);
+        }
+    }
+}
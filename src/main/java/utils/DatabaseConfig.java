@@ -0,0 +1,91 @@
+package utils;
+
+import java.nio.file.Path;
+
+/**
+ * Configuration centrale de l'accès à la base de données.
+ * Chaque valeur peut être surchargée au lancement avec -Dpropriété=valeur.
+ */
+public class DatabaseConfig {
+    // Profil : "mysql" (serveur de l'application) ou "memory" (H2 en mémoire pour les benchmarks)
+    public static final DatabaseProfile PROFILE = DatabaseProfile.fromName(System.getProperty("db.profile", "mysql"));
+
+    // Connexion ; par défaut celle du profil
+    public static final String URL = System.getProperty("db.url", PROFILE.getDefaultUrl());
+    public static final String USERNAME = System.getProperty("db.username", PROFILE.getDefaultUsername());
+    public static final String PASSWORD = System.getProperty("db.password", PROFILE.getDefaultPassword());
+
+    // Scripts chargés dans la base en mémoire au démarrage, séparés par des virgules (fichiers ou ressources)
+    public static final String MEMORY_SCHEMA_SCRIPTS = System.getProperty("db.memory.scripts",
+            "java_ratrappage.sql,/sql/create_contact_table.sql,/sql/add_user_list_indexes.sql,"
+            + "/sql/create_user_search_token_table.sql,/sql/add_user_phone_unique.sql,"
+            + "/sql/add_user_change_tracking.sql,/sql/create_app_setting_table.sql,"
+            + "/sql/create_user_session_table.sql");
+
+    // Taille du pool : connexions ouvertes au démarrage et plafond absolu
+    public static final int POOL_MIN_SIZE = Integer.getInteger("db.pool.minSize", 2);
+    public static final int POOL_MAX_SIZE = Integer.getInteger("db.pool.maxSize", 10);
+
+    // Attente maximale pour obtenir une connexion avant d'abandonner
+    public static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("db.pool.borrowTimeoutMs", 5000L);
+
+    // Une connexion inutilisée depuis plus longtemps est fermée (au-delà du minimum)
+    public static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("db.pool.idleTimeoutMs", 300000L);
+
+    // Délai accordé au ping de validation lors de l'emprunt
+    public static final int POOL_VALIDATION_TIMEOUT_S = Integer.getInteger("db.pool.validationTimeoutS", 2);
+
+    // Une connexion empruntée plus longtemps est signalée comme fuite probable (0 = désactivé)
+    public static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("db.pool.leakThresholdMs", 30000L);
+
+    // Fréquence de la tâche de maintenance (éviction, remplissage, détection de fuites)
+    public static final long POOL_HOUSEKEEPING_PERIOD_MS = Long.getLong("db.pool.housekeepingPeriodMs", 30000L);
+
+    // Nombre de PreparedStatement gardés ouverts par connexion (0 = cache désactivé)
+    public static final int STATEMENT_CACHE_SIZE = Integer.getInteger("db.statementCacheSize", 64);
+
+    // Options du driver MySQL : "tuned" (caches, préparation serveur, batchs réécrits) ou "default" (URL nue)
+    public static final DriverProfile DRIVER_PROFILE = DriverProfile.fromName(
+            System.getProperty("db.driverProfile", "tuned"));
+
+    // Préparation côté serveur (MySQL) : la requête est analysée une seule fois par statement caché ;
+    // false la retire du profil "tuned"
+    public static final boolean SERVER_PREPARED_STATEMENTS = Boolean.parseBoolean(
+            System.getProperty("db.serverPreparedStatements", "true"));
+
+    // Réplicas en lecture seule, séparés par des virgules (vide = toutes les lectures sur le primaire)
+    public static final String REPLICA_URLS = System.getProperty("db.replicaUrls", "");
+
+    // Retard de réplication toléré au-delà duquel un réplica n'est plus interrogé
+    public static final long REPLICA_MAX_LAG_SECONDS = Long.getLong("db.replica.maxLagSeconds", 5L);
+
+    // Après une écriture, les lectures restent sur le primaire pendant cette durée
+    public static final long READ_YOUR_WRITES_MS = Long.getLong("db.replica.readYourWritesMs", 5000L);
+
+    // Fréquence de mesure du retard des réplicas
+    public static final long REPLICA_LAG_CHECK_PERIOD_MS = Long.getLong("db.replica.lagCheckPeriodMs", 5000L);
+
+    // Mesures par requête (nombre d'appels, lignes, latences p50/p95/p99)
+    public static final boolean QUERY_METRICS_ENABLED = Boolean.parseBoolean(
+            System.getProperty("db.metrics.enabled", "true"));
+
+    // Affiche le tableau des mesures à l'arrêt de l'application
+    public static final boolean QUERY_METRICS_DUMP_ON_EXIT = Boolean.getBoolean("db.metrics.dumpOnExit");
+
+    // Requêtes plus longues journalisées dans le fichier des requêtes lentes (0 = journal désactivé)
+    public static final long SLOW_QUERY_THRESHOLD_MS = Long.getLong("db.slowQuery.thresholdMs", 200L);
+
+    // Fichier du journal, tournant au-delà de la taille maximale ; par défaut dans le dossier de l'utilisateur,
+    // hors du répertoire de travail (et donc hors du dépôt)
+    public static final String SLOW_QUERY_LOG_FILE = System.getProperty("db.slowQuery.file",
+            Path.of(System.getProperty("user.home"), ".pi_dev_java", "logs", "slow-query.log").toString());
+    public static final int SLOW_QUERY_LOG_MAX_BYTES = Integer.getInteger("db.slowQuery.maxBytes", 5 * 1024 * 1024);
+    public static final int SLOW_QUERY_LOG_FILES = Integer.getInteger("db.slowQuery.files", 5);
+
+    // Capture du plan d'exécution (EXPLAIN) de chaque requête lente, une fois par empreinte
+    public static final boolean SLOW_QUERY_EXPLAIN = Boolean.parseBoolean(
+            System.getProperty("db.slowQuery.explain", "true"));
+
+    // Lignes lues par aller-retour pour les lectures en Stream hors MySQL (MySQL transmet ligne par ligne)
+    public static final int STREAM_FETCH_SIZE = Integer.getInteger("db.stream.fetchSize", 500);
+}
@@ -0,0 +1,132 @@
+package utils;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Exécution des appels JDBC hors du thread JavaFX.
+ * Le nombre de threads est celui du pool de connexions : une tâche ne reste jamais bloquée sur l'emprunt
+ * d'une connexion à cause d'une autre tâche asynchrone. Les futures sont complétées sur le thread JavaFX
+ * (ou sur le thread de travail si JavaFX n'est pas démarré, par exemple dans un benchmark).
+ */
+public class DatabaseExecutor {
+
+    private static final int QUEUE_CAPACITY = Integer.getInteger("db.async.queueCapacity", 500);
+
+    private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+
+    private static final Executor FX_EXECUTOR = command -> {
+        if (Platform.isFxApplicationThread()) {
+            command.run();
+            return;
+        }
+        try {
+            Platform.runLater(command);
+        } catch (IllegalStateException e) {
+            // Toolkit JavaFX non initialisé : livrer directement
+            command.run();
+        }
+    };
+
+    private DatabaseExecutor() {
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                DatabaseConfig.POOL_MAX_SIZE, DatabaseConfig.POOL_MAX_SIZE,
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "db-async-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Exécuter un traitement JDBC en arrière-plan
+     * @param task Le traitement
+     * @param <T> Type du résultat
+     * @return Future complétée sur le thread JavaFX avec le résultat ou l'exception levée
+     */
+    public static <T> CompletableFuture<T> supply(SqlSupplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            EXECUTOR.execute(() -> {
+                try {
+                    T value = task.get();
+                    FX_EXECUTOR.execute(() -> result.complete(value));
+                } catch (Throwable e) {
+                    FX_EXECUTOR.execute(() -> result.completeExceptionally(e));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    /**
+     * Exécuter un traitement JDBC sans résultat en arrière-plan
+     * @param action Le traitement
+     * @return Future complétée sur le thread JavaFX
+     */
+    public static CompletableFuture<Void> run(SqlAction action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Livrer sur le thread JavaFX le résultat d'une future complétée ailleurs (par exemple par CryptoExecutor)
+     * @param future La future d'origine
+     * @param <T> Type du résultat
+     * @return Future complétée sur le thread JavaFX avec le même résultat ou la même exception
+     */
+    public static <T> CompletableFuture<T> onFx(CompletableFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        future.whenComplete((value, error) -> FX_EXECUTOR.execute(() -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * Executor qui exécute sur le thread JavaFX, pour les étapes ...Async des futures
+     * @return L'executor JavaFX
+     */
+    public static Executor fx() {
+        return FX_EXECUTOR;
+    }
+
+    /**
+     * Retrouver l'exception d'origine d'une future échouée
+     * @param throwable L'exception reçue dans exceptionally/handle/whenComplete
+     * @return L'exception levée par le traitement
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
@@ -0,0 +1,50 @@
+package utils;
+
+/**
+ * Profils de base de données, choisis au lancement par -Ddb.profile=mysql|memory
+ */
+public enum DatabaseProfile {
+
+    // Serveur MySQL de l'application
+    MYSQL("jdbc:mysql://localhost:3306/java_ratrappage", "root", ""),
+
+    // H2 en mémoire, mode MySQL, créé à partir de java_ratrappage.sql : benchmarks et tests de charge sans serveur
+    MEMORY("jdbc:h2:mem:java_ratrappage;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;"
+            + "NON_KEYWORDS=USER,VALUE;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+
+    private final String defaultUrl;
+    private final String defaultUsername;
+    private final String defaultPassword;
+
+    DatabaseProfile(String defaultUrl, String defaultUsername, String defaultPassword) {
+        this.defaultUrl = defaultUrl;
+        this.defaultUsername = defaultUsername;
+        this.defaultPassword = defaultPassword;
+    }
+
+    public String getDefaultUrl() {
+        return defaultUrl;
+    }
+
+    public String getDefaultUsername() {
+        return defaultUsername;
+    }
+
+    public String getDefaultPassword() {
+        return defaultPassword;
+    }
+
+    /**
+     * @param name Nom du profil, sans tenir compte de la casse
+     * @return Le profil correspondant
+     * @throws IllegalArgumentException Si le profil n'existe pas
+     */
+    public static DatabaseProfile fromName(String name) {
+        for (DatabaseProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name.trim())) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown database profile '" + name + "' (expected mysql or memory)");
+    }
+}
@@ -13,10 +13,8 @@ import java.sql.Statement;
 public class DatabaseUpdater {
 
     private static DatabaseUpdater instance;
-    private Connection connection;
 
     private DatabaseUpdater() {
-        connection = MyDatabase.getInstance().getConnection();
     }
 
     public static DatabaseUpdater getInstance() {
@@ -46,7 +44,8 @@ public class DatabaseUpdater {
             }
 
             // Exécuter le script SQL
-            try (Statement statement = connection.createStatement()) {
+            try (Connection connection = MyDatabase.getInstance().getConnection();
+                 Statement statement = connection.createStatement()) {
                 String[] sqlCommands = sqlScript.toString().split(";");
                 for (String sqlCommand : sqlCommands) {
                     if (!sqlCommand.trim().isEmpty()) {
@@ -55,8 +54,9 @@ public class DatabaseUpdater {
                             statement.execute(sqlCommand);
                         } catch (SQLException e) {
                             // Vérifier si l'erreur est due à une colonne déjà existante
-                            if (e.getMessage().contains("Duplicate column") || e.getMessage().contains("already exists")) {
-                                System.out.println("La colonne existe déjà, ignorant l'erreur.");
+                            if (e.getMessage().contains("Duplicate column") || e.getMessage().contains("Duplicate key name")
+                                    || e.getMessage().contains("already exists")) {
+                                System.out.println("La colonne ou l'index existe déjà, ignorant l'erreur.");
                             } else {
                                 throw e; // Propager les autres erreurs
                             }
@@ -86,6 +86,25 @@ public class DatabaseUpdater {
         // Exécuter le script pour ajouter les colonnes de réinitialisation de mot de passe
         success &= executeSqlScript("src/main/resources/sql/add_reset_password_columns.sql");
 
+        // Exécuter le script pour ajouter les index de la liste paginée des utilisateurs
+        success &= executeSqlScript("src/main/resources/sql/add_user_list_indexes.sql");
+
+        // Exécuter le script pour créer l'index de recherche des utilisateurs
+        success &= executeSqlScript("src/main/resources/sql/create_user_search_token_table.sql");
+
+        // Exécuter le script pour rendre le téléphone unique (échoue tant que des doublons existent ;
+        // l'inscription vérifie alors le téléphone avant d'insérer, voir AuthService)
+        success &= executeSqlScript("src/main/resources/sql/add_user_phone_unique.sql");
+
+        // Exécuter le script pour suivre les modifications et suppressions d'utilisateurs (rafraîchissement incrémental)
+        success &= executeSqlScript("src/main/resources/sql/add_user_change_tracking.sql");
+
+        // Exécuter le script pour créer la table des réglages partagés (coût BCrypt calibré)
+        success &= executeSqlScript("src/main/resources/sql/create_app_setting_table.sql");
+
+        // Exécuter le script pour créer la table des sessions partagées entre instances (session.store=mysql)
+        success &= executeSqlScript("src/main/resources/sql/create_user_session_table.sql");
+
         return success;
     }
 }
@@ -0,0 +1,68 @@
+package utils;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Réglages du driver MySQL Connector/J, choisis au lancement par -Ddb.driverProfile=default|tuned
+ */
+public enum DriverProfile {
+
+    // Valeurs par défaut du driver (URL nue)
+    DEFAULT(Map.of()),
+
+    // Préparation côté serveur et caches du driver, batchs réécrits, allers-retours de session évités
+    TUNED(tunedOptions());
+
+    private final Map<String, String> options;
+
+    DriverProfile(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * @return Options du driver à appliquer, dans l'ordre du rapport
+     */
+    public Map<String, String> getOptions() {
+        return options;
+    }
+
+    private static Map<String, String> tunedOptions() {
+        Map<String, String> options = new LinkedHashMap<>();
+        // Requête analysée une fois par le serveur, puis exécutée avec le protocole binaire
+        options.put("useServerPrepStmts", "true");
+        // Le driver garde les statements préparés au-delà du cache du pool
+        options.put("cachePrepStmts", "true");
+        options.put("prepStmtCacheSize", "256");
+        options.put("prepStmtCacheSqlLimit", "2048");
+        // executeBatch() envoie un seul INSERT multi-lignes au lieu d'une requête par ligne
+        options.put("rewriteBatchedStatements", "true");
+        // Métadonnées des colonnes réutilisées entre exécutions d'une même requête
+        options.put("cacheResultSetMetadata", "true");
+        // Variables serveur lues une fois pour toutes les connexions du pool
+        options.put("cacheServerConfiguration", "true");
+        // setAutoCommit / setTransactionIsolation / setReadOnly sans aller-retour si l'état ne change pas
+        options.put("useLocalSessionState", "true");
+        options.put("useLocalTransactionState", "true");
+        options.put("elideSetAutoCommits", "true");
+        options.put("alwaysSendSetIsolation", "false");
+        // Pas de System.currentTimeMillis() à chaque requête
+        options.put("maintainTimeStats", "false");
+        return Collections.unmodifiableMap(options);
+    }
+
+    /**
+     * @param name Nom du profil, sans tenir compte de la casse
+     * @return Le profil correspondant
+     * @throws IllegalArgumentException Si le profil n'existe pas
+     */
+    public static DriverProfile fromName(String name) {
+        for (DriverProfile profile : values()) {
+            if (profile.name().equalsIgnoreCase(name.trim())) {
+                return profile;
+            }
+        }
+        throw new IllegalArgumentException("Unknown driver profile '" + name + "' (expected default or tuned)");
+    }
+}
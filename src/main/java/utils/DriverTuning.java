@@ -0,0 +1,188 @@
+package utils;
+
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Application et vérification des options d'un DriverProfile sur les propriétés de connexion.
+ * Chaque option est validée auprès du driver (Driver.getPropertyInfo) avant d'être transmise :
+ * une option inconnue de la version installée est écartée, une option déjà fixée dans l'URL est respectée.
+ * Le rapport indique la valeur effective de chaque option.
+ */
+public final class DriverTuning {
+
+    /**
+     * État d'une option du profil après validation
+     */
+    public enum Status {
+        // Transmise au driver, valeur effective identique à celle demandée
+        ACTIVE,
+        // Fixée dans l'URL de connexion, qui reste prioritaire
+        URL_OVERRIDE,
+        // Désactivée par la configuration (db.serverPreparedStatements=false)
+        DISABLED,
+        // Inconnue du driver installé
+        UNSUPPORTED
+    }
+
+    private final DriverProfile profile;
+    private final String driverName;
+    private final boolean applicable;
+    private final Map<String, Status> statuses;
+    private final Map<String, String> effectiveValues;
+
+    private DriverTuning(DriverProfile profile, String driverName, boolean applicable,
+                         Map<String, Status> statuses, Map<String, String> effectiveValues) {
+        this.profile = profile;
+        this.driverName = driverName;
+        this.applicable = applicable;
+        this.statuses = Collections.unmodifiableMap(statuses);
+        this.effectiveValues = Collections.unmodifiableMap(effectiveValues);
+    }
+
+    /**
+     * Ajouter aux propriétés les options du profil acceptées par le driver
+     * @param url URL de connexion ; les options ne concernent que jdbc:mysql:
+     * @param properties Propriétés de connexion, complétées sur place
+     * @param profile Profil à appliquer
+     * @return Le rapport des options
+     */
+    public static DriverTuning apply(String url, Properties properties, DriverProfile profile) {
+        if (!url.startsWith("jdbc:mysql:")) {
+            return new DriverTuning(profile, driverName(url), false, new LinkedHashMap<>(), new HashMap<>());
+        }
+
+        Map<String, Status> statuses = new LinkedHashMap<>();
+        Set<String> urlOptions = urlOptions(url);
+        Map<String, String> known = propertyInfo(url, new Properties());
+        for (Map.Entry<String, String> option : profile.getOptions().entrySet()) {
+            String name = option.getKey();
+            if (name.equals("useServerPrepStmts") && !DatabaseConfig.SERVER_PREPARED_STATEMENTS) {
+                statuses.put(name, Status.DISABLED);
+            } else if (!known.containsKey(name)) {
+                statuses.put(name, Status.UNSUPPORTED);
+            } else if (urlOptions.contains(name.toLowerCase(Locale.ROOT))) {
+                statuses.put(name, Status.URL_OVERRIDE);
+            } else {
+                properties.setProperty(name, option.getValue());
+                statuses.put(name, Status.ACTIVE);
+            }
+        }
+
+        // Valeurs retenues par le driver une fois URL et propriétés fusionnées
+        Map<String, String> effective = propertyInfo(url, properties);
+        for (Map.Entry<String, Status> status : statuses.entrySet()) {
+            String requested = profile.getOptions().get(status.getKey());
+            if (status.getValue() == Status.ACTIVE && !requested.equalsIgnoreCase(effective.get(status.getKey()))) {
+                // Le driver a refusé ou corrigé la valeur : ne pas la présenter comme active
+                status.setValue(Status.UNSUPPORTED);
+            }
+        }
+        return new DriverTuning(profile, driverName(url), true, statuses, effective);
+    }
+
+    private static Map<String, String> propertyInfo(String url, Properties properties) {
+        Map<String, String> values = new HashMap<>();
+        try {
+            Driver driver = DriverManager.getDriver(url);
+            for (DriverPropertyInfo info : driver.getPropertyInfo(url, properties)) {
+                values.put(info.name, info.value);
+            }
+        } catch (SQLException e) {
+            System.err.println("Cannot validate driver options: " + e.getMessage());
+        }
+        return values;
+    }
+
+    private static Set<String> urlOptions(String url) {
+        Set<String> names = new HashSet<>();
+        int query = url.indexOf('?');
+        if (query < 0) {
+            return names;
+        }
+        for (String pair : url.substring(query + 1).split("&")) {
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            if (!name.isBlank()) {
+                names.add(name.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return names;
+    }
+
+    private static String driverName(String url) {
+        try {
+            Driver driver = DriverManager.getDriver(url);
+            return driver.getClass().getName() + " " + driver.getMajorVersion() + "." + driver.getMinorVersion();
+        } catch (SQLException e) {
+            return "no driver";
+        }
+    }
+
+    public DriverProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * @return false si l'URL ne désigne pas MySQL (profil sans effet)
+     */
+    public boolean isApplicable() {
+        return applicable;
+    }
+
+    /**
+     * @return État de chaque option du profil
+     */
+    public Map<String, Status> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * @return Options transmises au driver avec leur valeur effective
+     */
+    public Map<String, String> getActiveOptions() {
+        Map<String, String> active = new LinkedHashMap<>();
+        for (Map.Entry<String, Status> status : statuses.entrySet()) {
+            if (status.getValue() == Status.ACTIVE) {
+                active.put(status.getKey(), effectiveValues.get(status.getKey()));
+            }
+        }
+        return active;
+    }
+
+    /**
+     * @param name Nom d'une option du driver
+     * @return Valeur retenue par le driver, URL comprise, ou null
+     */
+    public String getEffectiveValue(String name) {
+        return effectiveValues.get(name);
+    }
+
+    @Override
+    public String toString() {
+        String header = "Driver profile " + profile.name().toLowerCase(Locale.ROOT) + " (" + driverName + ")";
+        if (!applicable) {
+            return header + ": not applicable";
+        }
+        if (statuses.isEmpty()) {
+            return header + ": driver defaults";
+        }
+        StringBuilder report = new StringBuilder(header).append(':');
+        for (Map.Entry<String, Status> status : statuses.entrySet()) {
+            String value = effectiveValues.get(status.getKey());
+            report.append(String.format("%n  %-26s %-8s %s", status.getKey(), value != null ? value : "-",
+                    status.getValue().name().toLowerCase(Locale.ROOT)));
+        }
+        return report.toString();
+    }
+}
@@ -0,0 +1,186 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Chargement du schéma MySQL (export phpMyAdmin) dans la base H2 en mémoire du profil "memory".
+ * Le dialecte est adapté au passage : options de table, jeux de caractères et CHECK json_valid retirés,
+ * ALTER TABLE à clauses multiples découpés, clés secondaires converties en CREATE INDEX.
+ * JSON_CONTAINS est fourni par une fonction Java.
+ */
+public final class EmbeddedDatabase {
+
+    private static final Pattern ALTER_TABLE = Pattern.compile("(?is)^ALTER\\s+TABLE\\s+(`?\\w+`?)\\s+(.*)$");
+    private static final Pattern CREATE_TABLE = Pattern.compile("(?is)^CREATE\\s+TABLE\\s+.*");
+    private static final Pattern TABLE_OPTIONS = Pattern.compile("(?is)\\)\\s*(ENGINE|DEFAULT\\s+CHARSET|CHARSET)\\s*=.*$");
+    private static final Pattern COLUMN_CHARSET = Pattern.compile("(?i)\\s+(CHARACTER\\s+SET|COLLATE)\\s+\\w+");
+    private static final Pattern JSON_VALID_CHECK = Pattern.compile("(?i)\\s+CHECK\\s*\\(\\s*json_valid\\s*\\(`?\\w+`?\\)\\s*\\)");
+    private static final Pattern SECONDARY_KEY = Pattern.compile("(?is)^ADD\\s+(UNIQUE\\s+)?(?:KEY|INDEX)\\s+(`?\\w+`?)\\s*(\\(.*\\))$");
+    private static final Pattern AUTO_INCREMENT_START = Pattern.compile("(?i)^AUTO_INCREMENT\\s*=\\s*(\\d+)$");
+    private static final Pattern MODIFY_COLUMN = Pattern.compile("(?is)^MODIFY\\s+(?:COLUMN\\s+)?(`?\\w+`?)\\s+.*$");
+
+    private EmbeddedDatabase() {
+    }
+
+    /**
+     * Créer le schéma à partir des scripts configurés (DatabaseConfig.MEMORY_SCHEMA_SCRIPTS)
+     * @param connection Connexion vers la base H2
+     * @throws SQLException Si une instruction est refusée par H2
+     * @throws IOException Si un script est introuvable
+     */
+    public static void load(Connection connection) throws SQLException, IOException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS IF NOT EXISTS JSON_CONTAINS FOR \""
+                    + EmbeddedDatabase.class.getName() + ".jsonContains\"");
+            for (String script : DatabaseConfig.MEMORY_SCHEMA_SCRIPTS.split(",")) {
+                if (script.isBlank()) {
+                    continue;
+                }
+                for (String sql : toH2(readScript(script.trim()))) {
+                    statement.execute(sql);
+                }
+            }
+        }
+    }
+
+    private static String readScript(String location) throws IOException {
+        Path path = Path.of(location);
+        if (Files.isRegularFile(path)) {
+            return Files.readString(path, StandardCharsets.UTF_8);
+        }
+        String resource = location.startsWith("/") ? location : "/" + location;
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Schema script not found: " + location);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Adapter un script MySQL au dialecte H2
+     * @param script Contenu du script
+     * @return Les instructions à exécuter, dans l'ordre
+     */
+    static List<String> toH2(String script) {
+        StringBuilder withoutComments = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("--") || trimmed.startsWith("/*!")) {
+                continue;
+            }
+            withoutComments.append(line).append('\n');
+        }
+
+        List<String> statements = new ArrayList<>();
+        for (String raw : withoutComments.toString().split(";")) {
+            String sql = raw.trim();
+            if (sql.isEmpty()) {
+                continue;
+            }
+            String keyword = sql.split("\\s+", 2)[0].toUpperCase(Locale.ROOT);
+            if (keyword.equals("SET") || keyword.equals("START") || keyword.equals("COMMIT")) {
+                // Réglages de session MySQL et transaction de l'export
+                continue;
+            }
+            if (CREATE_TABLE.matcher(sql).matches()) {
+                sql = TABLE_OPTIONS.matcher(sql).replaceFirst(")");
+                sql = COLUMN_CHARSET.matcher(sql).replaceAll("");
+                sql = JSON_VALID_CHECK.matcher(sql).replaceAll("");
+                statements.add(sql);
+                continue;
+            }
+            Matcher alter = ALTER_TABLE.matcher(sql);
+            if (alter.matches()) {
+                statements.addAll(splitAlterTable(alter.group(1), alter.group(2)));
+                continue;
+            }
+            statements.add(sql);
+        }
+        return statements;
+    }
+
+    /**
+     * Une instruction H2 par clause d'un ALTER TABLE MySQL
+     */
+    private static List<String> splitAlterTable(String table, String clauses) {
+        List<String> statements = new ArrayList<>();
+        String lastModifiedColumn = null;
+        for (String clause : splitTopLevel(clauses)) {
+            Matcher key = SECONDARY_KEY.matcher(clause);
+            Matcher autoIncrement = AUTO_INCREMENT_START.matcher(clause);
+            Matcher modify = MODIFY_COLUMN.matcher(clause);
+            if (key.matches()) {
+                statements.add("CREATE " + (key.group(1) != null ? "UNIQUE " : "") + "INDEX " + key.group(2)
+                        + " ON " + table + " " + key.group(3));
+            } else if (autoIncrement.matches()) {
+                if (lastModifiedColumn != null) {
+                    statements.add("ALTER TABLE " + table + " ALTER COLUMN " + lastModifiedColumn
+                            + " RESTART WITH " + autoIncrement.group(1));
+                }
+            } else {
+                if (modify.matches()) {
+                    lastModifiedColumn = modify.group(1);
+                }
+                statements.add("ALTER TABLE " + table + " " + clause);
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * Découper sur les virgules hors parenthèses et hors chaînes
+     */
+    private static List<String> splitTopLevel(String clauses) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean quoted = false;
+        int start = 0;
+        for (int i = 0; i < clauses.length(); i++) {
+            char c = clauses.charAt(i);
+            if (c == '\'') {
+                quoted = !quoted;
+            } else if (!quoted && c == '(') {
+                depth++;
+            } else if (!quoted && c == ')') {
+                depth--;
+            } else if (!quoted && depth == 0 && c == ',') {
+                parts.add(clauses.substring(start, i).trim());
+                start = i + 1;
+            }
+        }
+        parts.add(clauses.substring(start).trim());
+        return parts;
+    }
+
+    /**
+     * Équivalent de JSON_CONTAINS(document, candidat) pour les tableaux de chaînes (colonne roles)
+     * @param document Tableau JSON, par exemple ["ROLE_USER","ROLE_ADMIN"]
+     * @param candidate Valeur JSON cherchée, par exemple "ROLE_USER"
+     * @return true si le tableau contient la valeur
+     */
+    public static boolean jsonContains(String document, String candidate) {
+        if (document == null || candidate == null) {
+            return false;
+        }
+        String value = candidate.trim();
+        for (String element : document.trim().replaceAll("^\\[|]$", "").split(",")) {
+            if (element.trim().equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
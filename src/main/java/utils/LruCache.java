@@ -0,0 +1,122 @@
+package utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.function.BiPredicate;
+
+/**
+ * Cache borné en mémoire : au-delà de la capacité, l'entrée la moins récemment lue est évincée,
+ * et une entrée plus ancienne que la durée de vie est ignorée (puis retirée) à la lecture.
+ * Compte les succès, échecs, évictions et expirations. Toutes les méthodes sont synchronisées.
+ * @param <K> Type des clés
+ * @param <V> Type des valeurs
+ */
+public final class LruCache<K, V> {
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAt;
+
+        Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final int capacity;
+    private final long ttlNanos;
+    // Ordre d'accès : la première entrée est la moins récemment lue
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * @param capacity Nombre maximal d'entrées (0 : cache désactivé)
+     * @param ttlMillis Durée de vie d'une entrée en millisecondes
+     */
+    public LruCache(int capacity, long ttlMillis) {
+        this.capacity = capacity;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * @return La valeur, ou null si elle est absente ou expirée
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        if (capacity <= 0) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos));
+        if (entries.size() > capacity) {
+            Iterator<K> eldest = entries.keySet().iterator();
+            eldest.next();
+            eldest.remove();
+            evictions++;
+        }
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Retirer les entrées qui vérifient une condition (parcours complet : pour les invalidations rares)
+     */
+    public synchronized void removeIf(BiPredicate<K, V> condition) {
+        entries.entrySet().removeIf(entry -> condition.test(entry.getKey(), entry.getValue().value));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    @Override
+    public synchronized String toString() {
+        long lookups = hits + misses;
+        return String.format(Locale.ROOT,
+                "size=%d/%d hits=%d misses=%d hitRate=%.1f%% evictions=%d expirations=%d",
+                entries.size(), capacity, hits, misses, lookups == 0 ? 0.0 : 100.0 * hits / lookups,
+                evictions, expirations);
+    }
+}
@@ -1,35 +1,165 @@
 package utils;
 
+import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 
 public class MyDatabase {
 
-    final String URl="jdbc:mysql://localhost:3306/java_ratrappage";
-    final String USERNAME="root";
-    final String PASSWORD="";
-    Connection connection;
+    private final ConnectionPool pool;
+    private final ReplicaRouter replicaRouter;
+    private final QueryMetrics queryMetrics;
+    private final SlowQueryLog slowQueryLog;
+    private final DriverTuning driverTuning;
 
-    static MyDatabase instance;
+    private static MyDatabase instance;
 
     private MyDatabase(){
+        queryMetrics = DatabaseConfig.QUERY_METRICS_ENABLED ? new QueryMetrics() : null;
+        slowQueryLog = createSlowQueryLog();
+        Properties properties = connectionProperties();
+        driverTuning = DriverTuning.apply(DatabaseConfig.URL, properties, DatabaseConfig.DRIVER_PROFILE);
+        System.out.println(driverTuning);
+        pool = new ConnectionPool(DatabaseConfig.URL, properties,
+                DatabaseConfig.POOL_MIN_SIZE, DatabaseConfig.POOL_MAX_SIZE,
+                DatabaseConfig.POOL_BORROW_TIMEOUT_MS, DatabaseConfig.POOL_IDLE_TIMEOUT_MS,
+                DatabaseConfig.POOL_VALIDATION_TIMEOUT_S, DatabaseConfig.POOL_LEAK_THRESHOLD_MS,
+                DatabaseConfig.POOL_HOUSEKEEPING_PERIOD_MS, DatabaseConfig.STATEMENT_CACHE_SIZE,
+                queryMetrics, slowQueryLog);
         try {
-            connection= DriverManager.getConnection(URl,USERNAME,PASSWORD);
-            System.out.println("Connected to database");
+            pool.warmUp();
+            if (DatabaseConfig.PROFILE == DatabaseProfile.MEMORY) {
+                loadEmbeddedSchema();
+            }
+            System.out.println("Connected to database (" + DatabaseConfig.PROFILE.name().toLowerCase() + " profile)");
         } catch (SQLException e) {
             System.err.println(e.getMessage());
         }
+        replicaRouter = new ReplicaRouter(replicaUrls(), properties,
+                DatabaseConfig.REPLICA_MAX_LAG_SECONDS, DatabaseConfig.READ_YOUR_WRITES_MS,
+                DatabaseConfig.REPLICA_LAG_CHECK_PERIOD_MS, queryMetrics, slowQueryLog);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (queryMetrics != null && DatabaseConfig.QUERY_METRICS_DUMP_ON_EXIT) {
+                queryMetrics.dump(System.out);
+            }
+            replicaRouter.close();
+            pool.close();
+            if (slowQueryLog != null) {
+                slowQueryLog.close();
+            }
+        }, "db-pool-shutdown"));
+    }
+
+    private static SlowQueryLog createSlowQueryLog() {
+        if (DatabaseConfig.SLOW_QUERY_THRESHOLD_MS <= 0) {
+            return null;
+        }
+        try {
+            return new SlowQueryLog(DatabaseConfig.SLOW_QUERY_THRESHOLD_MS, DatabaseConfig.SLOW_QUERY_LOG_FILE,
+                    DatabaseConfig.SLOW_QUERY_LOG_MAX_BYTES, DatabaseConfig.SLOW_QUERY_LOG_FILES,
+                    DatabaseConfig.SLOW_QUERY_EXPLAIN);
+        } catch (IOException e) {
+            System.err.println("Slow query log disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Profil "memory" : créer le schéma de java_ratrappage.sql dans la base H2
+     */
+    private void loadEmbeddedSchema() throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            EmbeddedDatabase.load(connection);
+        } catch (IOException e) {
+            throw new SQLException("Cannot load the in-memory schema: " + e.getMessage(), e);
+        }
+    }
 
+    private static Properties connectionProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("user", DatabaseConfig.USERNAME);
+        properties.setProperty("password", DatabaseConfig.PASSWORD);
+        return properties;
     }
-    public  static MyDatabase getInstance(){
+
+    private static List<String> replicaUrls() {
+        List<String> urls = new ArrayList<>();
+        for (String url : DatabaseConfig.REPLICA_URLS.split(",")) {
+            if (!url.isBlank()) {
+                urls.add(url.trim());
+            }
+        }
+        return urls;
+    }
+
+    public static synchronized MyDatabase getInstance(){
         if(instance==null)
             instance=new MyDatabase();
         return instance;
 
     }
 
-    public Connection getConnection() {
-        return connection;
+    /**
+     * Emprunter une connexion au pool ; la fermer (try-with-resources) la rend au pool.
+     * Dans TransactionManager.inTransaction, renvoie la connexion de la transaction en cours.
+     * @return Une connexion validée vers le primaire
+     * @throws SQLException Si aucune connexion n'est disponible dans le délai configuré
+     */
+    public Connection getConnection() throws SQLException {
+        Connection transactional = TransactionManager.currentConnection(pool);
+        return transactional != null ? transactional : pool.getConnection();
+    }
+
+    /**
+     * Emprunter une connexion pour une lecture seule : réplica si possible, primaire sinon.
+     * Dans une transaction, la lecture se fait sur la connexion de la transaction.
+     * @return Une connexion validée
+     * @throws SQLException Si aucune connexion n'est disponible dans le délai configuré
+     */
+    public Connection getReadConnection() throws SQLException {
+        Connection transactional = TransactionManager.currentConnection(pool);
+        return transactional != null ? transactional : replicaRouter.route(pool);
+    }
+
+    public DataSource getDataSource() {
+        return pool;
+    }
+
+    public PoolStatistics getPoolStatistics() {
+        return pool.getStatistics();
+    }
+
+    /**
+     * Options du driver appliquées au primaire et aux réplicas, avec leur valeur effective
+     */
+    public DriverTuning getDriverTuning() {
+        return driverTuning;
+    }
+
+    public ReplicaRouter getReplicaRouter() {
+        return replicaRouter;
+    }
+
+    /**
+     * Mesures par requête du primaire et des réplicas
+     * @return Les mesures, ou null si désactivées (-Ddb.metrics.enabled=false)
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Afficher les mesures par requête sur la sortie standard
+     */
+    public void dumpQueryMetrics() {
+        if (queryMetrics == null) {
+            System.out.println("Query metrics are disabled");
+            return;
+        }
+        queryMetrics.dump(System.out);
     }
 }
@@ -0,0 +1,134 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Calibrage du coût BCrypt au démarrage : le plus haut coût dont un hash tient dans le budget de latence
+ * (-Dpassword.bcrypt.budgetMs), sans descendre sous un plancher ni dépasser un plafond.
+ * Chaque coût double le temps de calcul : un seul coût est mesuré, les autres en sont déduits.
+ * Le coût retenu est enregistré dans app_setting (bcrypt.cost) pour que toutes les instances hachent avec le même ;
+ * les hash d'un autre coût sont recalculés à la connexion (AuthService.login).
+ * -Dpassword.bcrypt.cost fixe le coût sans calibrage, par exemple 13 si la base est partagée avec Symfony.
+ */
+public final class PasswordCostCalibration {
+
+    // Budget d'un hash, plancher (sécurité) et plafond du coût calibré
+    static final long BUDGET_MS = Long.getLong("password.bcrypt.budgetMs", 250L);
+    static final int FLOOR = Integer.getInteger("password.bcrypt.minCost", 10);
+    static final int CEILING = Integer.getInteger("password.bcrypt.maxCost", 16);
+
+    // Écart toléré autour du budget avant de remplacer le coût enregistré : les mesures varient d'un démarrage
+    // à l'autre, le coût (et donc tous les hash) ne doit pas basculer pour autant
+    private static final double TOLERANCE = 1.25;
+
+    static final String SETTING_NAME = "bcrypt.cost";
+
+    private PasswordCostCalibration() {
+    }
+
+    /**
+     * Choisir le coût BCrypt et l'appliquer à PasswordHasher ; à appeler au démarrage, une fois la base à jour
+     * @return Le coût appliqué
+     */
+    public static int initialize() {
+        Integer fixed = Integer.getInteger("password.bcrypt.cost");
+        if (fixed != null) {
+            PasswordHasher.setCost(fixed);
+            System.out.println("BCrypt cost " + fixed + " (fixed by password.bcrypt.cost)");
+            return fixed;
+        }
+
+        double floorMillis = measure(FLOOR);
+        Integer stored = null;
+        try {
+            stored = readStoredCost();
+        } catch (SQLException e) {
+            System.err.println("Lecture du coût BCrypt enregistré impossible : " + e.getMessage());
+        }
+        int cost = stored != null && isAcceptable(stored, floorMillis) ? stored : choose(floorMillis);
+        if (stored == null || stored != cost) {
+            try {
+                storeCost(cost);
+            } catch (SQLException e) {
+                System.err.println("Enregistrement du coût BCrypt impossible : " + e.getMessage());
+            }
+        }
+        PasswordHasher.setCost(cost);
+        String change = stored != null && stored != cost ? ", was " + stored : "";
+        System.out.println(String.format(Locale.ROOT, "BCrypt cost %d (~%.0f ms per hash, budget %d ms%s)", cost,
+                predictedMillis(cost, floorMillis), BUDGET_MS, change));
+        return cost;
+    }
+
+    /**
+     * Durée d'un hash au coût donné, meilleure de deux mesures après un échauffement
+     */
+    static double measure(int cost) {
+        PasswordHasher.hashPassword("calibration", PasswordHasher.MIN_COST);
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 2; i++) {
+            long start = System.nanoTime();
+            PasswordHasher.hashPassword("calibration", cost);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    /**
+     * Plus haut coût dans le budget, au moins FLOOR
+     */
+    static int choose(double floorMillis) {
+        int cost = FLOOR;
+        while (cost < CEILING && predictedMillis(cost + 1, floorMillis) <= BUDGET_MS) {
+            cost++;
+        }
+        return cost;
+    }
+
+    /**
+     * Le coût enregistré reste s'il est encore, à la tolérance près, le plus haut dans le budget
+     */
+    static boolean isAcceptable(int cost, double floorMillis) {
+        if (cost < FLOOR || cost > CEILING) {
+            return false;
+        }
+        boolean withinBudget = cost == FLOOR || predictedMillis(cost, floorMillis) <= BUDGET_MS * TOLERANCE;
+        boolean highest = cost == CEILING || predictedMillis(cost + 1, floorMillis) > BUDGET_MS / TOLERANCE;
+        return withinBudget && highest;
+    }
+
+    static double predictedMillis(int cost, double floorMillis) {
+        return floorMillis * Math.pow(2, cost - FLOOR);
+    }
+
+    private static Integer readStoredCost() throws SQLException {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT value FROM app_setting WHERE name = ?")) {
+            statement.setString(1, SETTING_NAME);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return null;
+                }
+                try {
+                    return Integer.valueOf(resultSet.getString(1).trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            }
+        }
+    }
+
+    private static void storeCost(int cost) throws SQLException {
+        try (Connection connection = MyDatabase.getInstance().getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "INSERT INTO app_setting (name, value) VALUES (?, ?) ON DUPLICATE KEY UPDATE value = VALUES(value)")) {
+            statement.setString(1, SETTING_NAME);
+            statement.setString(2, Integer.toString(cost));
+            statement.executeUpdate();
+        }
+    }
+}
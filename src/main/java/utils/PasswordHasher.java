@@ -2,7 +2,60 @@ package utils;
 
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class PasswordHasher {
+
+    // Coût de Symfony, utilisé tant que PasswordCostCalibration n'en a pas choisi un autre
+    public static final int DEFAULT_COST = 13;
+
+    // Bornes acceptées par BCrypt
+    public static final int MIN_COST = 4;
+    public static final int MAX_COST = 31;
+
+    private static final Pattern HASH_PREFIX = Pattern.compile("^\\$2[aby]\\$(\\d{2})\\$");
+
+    private static volatile int cost = DEFAULT_COST;
+
+    /**
+     * @return Coût BCrypt des nouveaux hash
+     */
+    public static int getCost() {
+        return cost;
+    }
+
+    /**
+     * Changer le coût BCrypt des nouveaux hash (PasswordCostCalibration)
+     * @param newCost Coût entre MIN_COST et MAX_COST
+     */
+    public static void setCost(int newCost) {
+        if (newCost < MIN_COST || newCost > MAX_COST) {
+            throw new IllegalArgumentException("BCrypt cost must be between " + MIN_COST + " and " + MAX_COST);
+        }
+        cost = newCost;
+    }
+
+    /**
+     * Lire le coût d'un hash $2y$, $2a$ ou $2b$
+     * @param hash Le hash stocké
+     * @return Le coût, ou -1 si ce n'est pas un hash BCrypt
+     */
+    public static int costOf(String hash) {
+        if (hash == null) {
+            return -1;
+        }
+        Matcher matcher = HASH_PREFIX.matcher(hash);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * @return true si le hash BCrypt a un autre coût que le coût courant (à recalculer à la prochaine connexion)
+     */
+    public static boolean needsRehash(String hash) {
+        int hashCost = costOf(hash);
+        return hashCost >= 0 && hashCost != cost;
+    }
     
     /**
      * Génère un hash de mot de passe compatible avec Symfony ($2y$ format)
@@ -10,8 +63,17 @@ public class PasswordHasher {
      * @return Le hash du mot de passe au format $2y$
      */
     public static String hashPassword(String password) {
-        // Générer un salt avec coût 13 comme Symfony
-        String salt = BCrypt.gensalt(13);
+        return hashPassword(password, cost);
+    }
+
+    /**
+     * Génère un hash au format $2y$ avec un coût donné (calibrage)
+     * @param password Le mot de passe en clair
+     * @param cost Le coût BCrypt
+     * @return Le hash du mot de passe au format $2y$
+     */
+    public static String hashPassword(String password, int cost) {
+        String salt = BCrypt.gensalt(cost);
         String hash = BCrypt.hashpw(password, salt);
         
         // Convertir $2a$ vers $2y$ pour compatibilité avec Symfony
@@ -0,0 +1,141 @@
+package utils;
+
+/**
+ * Instantané des compteurs du pool de connexions
+ */
+public class PoolStatistics {
+    private final int totalConnections;
+    private final int activeConnections;
+    private final int idleConnections;
+    private final int waitingThreads;
+    private final long borrowCount;
+    private final long borrowTimeoutCount;
+    private final long averageBorrowWaitMicros;
+    private final long createdCount;
+    private final long destroyedCount;
+    private final long validationFailureCount;
+    private final long leakedConnectionCount;
+    private final long leakedStatementCount;
+    private final long leakedResultSetCount;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+    private final long statementCacheEvictions;
+
+    public PoolStatistics(int totalConnections, int activeConnections, int idleConnections, int waitingThreads,
+                          long borrowCount, long borrowTimeoutCount, long averageBorrowWaitMicros,
+                          long createdCount, long destroyedCount, long validationFailureCount,
+                          long leakedConnectionCount, long leakedStatementCount, long leakedResultSetCount,
+                          long statementCacheHits, long statementCacheMisses, long statementCacheEvictions) {
+        this.totalConnections = totalConnections;
+        this.activeConnections = activeConnections;
+        this.idleConnections = idleConnections;
+        this.waitingThreads = waitingThreads;
+        this.borrowCount = borrowCount;
+        this.borrowTimeoutCount = borrowTimeoutCount;
+        this.averageBorrowWaitMicros = averageBorrowWaitMicros;
+        this.createdCount = createdCount;
+        this.destroyedCount = destroyedCount;
+        this.validationFailureCount = validationFailureCount;
+        this.leakedConnectionCount = leakedConnectionCount;
+        this.leakedStatementCount = leakedStatementCount;
+        this.leakedResultSetCount = leakedResultSetCount;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+        this.statementCacheEvictions = statementCacheEvictions;
+    }
+
+    public int getTotalConnections() {
+        return totalConnections;
+    }
+
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    public int getIdleConnections() {
+        return idleConnections;
+    }
+
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    public long getBorrowTimeoutCount() {
+        return borrowTimeoutCount;
+    }
+
+    public long getAverageBorrowWaitMicros() {
+        return averageBorrowWaitMicros;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getDestroyedCount() {
+        return destroyedCount;
+    }
+
+    public long getValidationFailureCount() {
+        return validationFailureCount;
+    }
+
+    public long getLeakedConnectionCount() {
+        return leakedConnectionCount;
+    }
+
+    public long getLeakedStatementCount() {
+        return leakedStatementCount;
+    }
+
+    public long getLeakedResultSetCount() {
+        return leakedResultSetCount;
+    }
+
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    public long getStatementCacheEvictions() {
+        return statementCacheEvictions;
+    }
+
+    /**
+     * Part des prepareStatement servis depuis le cache
+     * @return Ratio entre 0 et 1
+     */
+    public double getStatementCacheHitRatio() {
+        long lookups = statementCacheHits + statementCacheMisses;
+        return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolStatistics{" +
+                "total=" + totalConnections +
+                ", active=" + activeConnections +
+                ", idle=" + idleConnections +
+                ", waiting=" + waitingThreads +
+                ", borrows=" + borrowCount +
+                ", borrowTimeouts=" + borrowTimeoutCount +
+                ", avgBorrowWaitMicros=" + averageBorrowWaitMicros +
+                ", created=" + createdCount +
+                ", destroyed=" + destroyedCount +
+                ", validationFailures=" + validationFailureCount +
+                ", leakedConnections=" + leakedConnectionCount +
+                ", leakedStatements=" + leakedStatementCount +
+                ", leakedResultSets=" + leakedResultSetCount +
+                ", stmtCacheHits=" + statementCacheHits +
+                ", stmtCacheMisses=" + statementCacheMisses +
+                ", stmtCacheEvictions=" + statementCacheEvictions +
+                '}';
+    }
+}
@@ -0,0 +1,206 @@
+package utils;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Mesures par requête SQL, alimentées par les proxies de ConnectionPool.
+ * Les requêtes sont regroupées par empreinte : texte SQL normalisé, littéraux remplacés par '?'.
+ * Les latences sont rangées dans un histogramme à seaux logarithmiques (précision ~12 %),
+ * ce qui donne p50/p95/p99 sans conserver chaque mesure.
+ */
+public class QueryMetrics {
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Au-delà, les empreintes ne sont plus mémorisées (SQL construit dynamiquement)
+    private static final int MAX_CACHED_FINGERPRINTS = 2048;
+
+    // 16 seaux exacts pour 0-15 µs, puis 8 seaux par puissance de deux jusqu'à 2^40 µs
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKETS = 8;
+    private static final int BUCKET_COUNT = LINEAR_BUCKETS + (40 - 4) * SUB_BUCKETS;
+
+    private final ConcurrentHashMap<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Normaliser une requête : littéraux remplacés par '?', listes IN réduites, espaces compactés
+     * @param sql Texte SQL exécuté
+     * @return L'empreinte de la requête
+     */
+    public static String fingerprint(String sql) {
+        if (sql == null) {
+            return "<batch>";
+        }
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?+)");
+        return WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+    }
+
+    /**
+     * Enregistrer une exécution
+     * @param sql Texte SQL exécuté
+     * @param elapsedNanos Durée de l'exécution
+     * @param rows Lignes modifiées, ou 0 pour une lecture (les lignes lues sont ajoutées à la fermeture du ResultSet)
+     * @param failed true si l'exécution a levé une exception
+     * @return L'entrée de la requête, pour y ajouter les lignes lues
+     */
+    Entry record(String sql, long elapsedNanos, long rows, boolean failed) {
+        Entry entry = entryFor(sql);
+        entry.record(elapsedNanos, rows, failed);
+        return entry;
+    }
+
+    Entry entryFor(String sql) {
+        String fingerprint = sql == null ? fingerprint(null) : fingerprints.get(sql);
+        if (fingerprint == null) {
+            fingerprint = fingerprint(sql);
+            if (fingerprints.size() < MAX_CACHED_FINGERPRINTS) {
+                fingerprints.put(sql, fingerprint);
+            }
+        }
+        return entries.computeIfAbsent(fingerprint, Entry::new);
+    }
+
+    /**
+     * Mesures de toutes les requêtes, la plus coûteuse (temps cumulé) en premier
+     */
+    public List<QueryStatistics> getStatistics() {
+        List<QueryStatistics> statistics = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            statistics.add(entry.snapshot());
+        }
+        statistics.sort(Comparator.comparingLong(QueryStatistics::getTotalMicros).reversed());
+        return statistics;
+    }
+
+    /**
+     * Mesures d'une requête
+     * @param sql Texte SQL ou empreinte
+     * @return Les mesures, ou null si la requête n'a jamais été exécutée
+     */
+    public QueryStatistics getStatistics(String sql) {
+        Entry entry = entries.get(fingerprint(sql));
+        return entry == null ? null : entry.snapshot();
+    }
+
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * Écrire le tableau des mesures
+     * @param out Destination, par exemple System.out
+     */
+    public void dump(PrintStream out) {
+        List<QueryStatistics> statistics = getStatistics();
+        out.println("=== Query metrics (" + statistics.size() + " fingerprints, sorted by total time) ===");
+        for (QueryStatistics query : statistics) {
+            out.println(query);
+        }
+    }
+
+    static int bucketIndex(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) Math.max(micros, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int subBucket = (int) (micros >>> (exponent - 3)) & (SUB_BUCKETS - 1);
+        return Math.min(LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket, BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Borne supérieure (incluse) des durées rangées dans un seau
+     */
+    static long bucketUpperBound(int index) {
+        if (index < LINEAR_BUCKETS) {
+            return index;
+        }
+        int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+        int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+        return ((long) (SUB_BUCKETS + subBucket + 1) << (exponent - 3)) - 1;
+    }
+
+    /**
+     * Compteurs d'une empreinte, mis à jour sans verrou
+     */
+    static final class Entry {
+        private final String fingerprint;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final AtomicLong maxMicros = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_COUNT);
+
+        Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        String getFingerprint() {
+            return fingerprint;
+        }
+
+        void record(long elapsedNanos, long rowCount, boolean failed) {
+            long micros = elapsedNanos / 1000;
+            executions.increment();
+            if (failed) {
+                errors.increment();
+            }
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+            totalMicros.add(micros);
+            histogram.incrementAndGet(bucketIndex(micros));
+            if (micros > maxMicros.get()) {
+                maxMicros.accumulateAndGet(micros, Math::max);
+            }
+        }
+
+        void addRows(long rowCount) {
+            if (rowCount > 0) {
+                rows.add(rowCount);
+            }
+        }
+
+        QueryStatistics snapshot() {
+            long[] counts = new long[BUCKET_COUNT];
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            long max = maxMicros.get();
+            return new QueryStatistics(fingerprint, executions.sum(), errors.sum(), rows.sum(), totalMicros.sum(),
+                    percentile(counts, total, 0.50, max), percentile(counts, total, 0.95, max),
+                    percentile(counts, total, 0.99, max), max);
+        }
+
+        private static long percentile(long[] counts, long total, double quantile, long max) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package utils;
+
+/**
+ * Instantané des mesures d'une requête, regroupées par empreinte SQL
+ */
+public class QueryStatistics {
+    private final String fingerprint;
+    private final long executionCount;
+    private final long errorCount;
+    private final long rowCount;
+    private final long totalMicros;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    public QueryStatistics(String fingerprint, long executionCount, long errorCount, long rowCount, long totalMicros,
+                           long p50Micros, long p95Micros, long p99Micros, long maxMicros) {
+        this.fingerprint = fingerprint;
+        this.executionCount = executionCount;
+        this.errorCount = errorCount;
+        this.rowCount = rowCount;
+        this.totalMicros = totalMicros;
+        this.p50Micros = p50Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public long getExecutionCount() {
+        return executionCount;
+    }
+
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Lignes lues (SELECT) ou modifiées (INSERT/UPDATE/DELETE)
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    public long getTotalMicros() {
+        return totalMicros;
+    }
+
+    public long getMeanMicros() {
+        return executionCount == 0 ? 0 : totalMicros / executionCount;
+    }
+
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%8d calls %6d err %10d rows %12dus total %9dus mean %9dus p50 %9dus p95 %9dus p99 %9dus max  %s",
+                executionCount, errorCount, rowCount, totalMicros, getMeanMicros(),
+                p50Micros, p95Micros, p99Micros, maxMicros, fingerprint);
+    }
+}
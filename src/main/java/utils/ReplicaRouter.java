@@ -0,0 +1,186 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Répartition des lectures vers des réplicas MySQL.
+ * Une lecture part sur le primaire si aucun réplica n'est assez à jour, ou si l'application
+ * vient d'écrire (lecture de ses propres écritures pendant la fenêtre configurée).
+ */
+public class ReplicaRouter implements AutoCloseable {
+
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagSeconds;
+    private final long readYourWritesMillis;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService lagMonitor;
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReadsAfterWrite = new LongAdder();
+    private final LongAdder primaryReadsNoReplica = new LongAdder();
+
+    public ReplicaRouter(List<String> replicaUrls, Properties connectionProperties, long maxLagSeconds,
+                         long readYourWritesMillis, long lagCheckPeriodMillis, QueryMetrics queryMetrics,
+                         SlowQueryLog slowQueryLog) {
+        this.maxLagSeconds = maxLagSeconds;
+        this.readYourWritesMillis = readYourWritesMillis;
+
+        for (String url : replicaUrls) {
+            ConnectionPool pool = new ConnectionPool(url, connectionProperties,
+                    Math.min(1, DatabaseConfig.POOL_MIN_SIZE), DatabaseConfig.POOL_MAX_SIZE,
+                    DatabaseConfig.POOL_BORROW_TIMEOUT_MS, DatabaseConfig.POOL_IDLE_TIMEOUT_MS,
+                    DatabaseConfig.POOL_VALIDATION_TIMEOUT_S, DatabaseConfig.POOL_LEAK_THRESHOLD_MS,
+                    DatabaseConfig.POOL_HOUSEKEEPING_PERIOD_MS, DatabaseConfig.STATEMENT_CACHE_SIZE,
+                    queryMetrics, slowQueryLog);
+            replicas.add(new Replica(url, pool));
+        }
+
+        if (replicas.isEmpty()) {
+            lagMonitor = null;
+            return;
+        }
+        lagMonitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        lagMonitor.scheduleWithFixedDelay(this::checkLag, 0, lagCheckPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Choisir la connexion d'une lecture
+     * @param primary Pool du primaire, utilisé en repli
+     * @return Une connexion de réplica si possible, sinon une connexion du primaire
+     * @throws SQLException Si aucune connexion n'est disponible
+     */
+    public Connection route(ConnectionPool primary) throws SQLException {
+        if (replicas.isEmpty()) {
+            return primary.getConnection();
+        }
+        if (System.currentTimeMillis() - primary.getLastWriteMillis() < readYourWritesMillis) {
+            primaryReadsAfterWrite.increment();
+            return primary.getConnection();
+        }
+
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (!replica.isEligible(maxLagSeconds)) {
+                continue;
+            }
+            try {
+                Connection connection = replica.pool.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.available = false;
+                System.err.println("Replica " + replica.url + " unavailable, reading from primary: " + e.getMessage());
+            }
+        }
+        primaryReadsNoReplica.increment();
+        return primary.getConnection();
+    }
+
+    /**
+     * Mesure périodique du retard de réplication de chaque réplica
+     */
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection()) {
+                Long lag = readReplicationLag(connection);
+                if (lag == null && !replica.notReplicatingReported) {
+                    replica.notReplicatingReported = true;
+                    System.err.println("Replica " + replica.url + " reports no running replication; reads stay on primary");
+                }
+                replica.lagSeconds = lag == null ? -1 : lag;
+                replica.available = true;
+            } catch (SQLException e) {
+                replica.available = false;
+                replica.lagSeconds = -1;
+            }
+        }
+    }
+
+    /**
+     * Lit Seconds_Behind_Source (MySQL 8.0.22+) ou Seconds_Behind_Master (versions antérieures)
+     * @return Le retard en secondes, null si la réplication est arrêtée ou absente
+     */
+    private Long readReplicationLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("SHOW REPLICA STATUS")) {
+                return resultSet.next() ? nullableLong(resultSet, "Seconds_Behind_Source") : null;
+            } catch (SQLException e) {
+                try (ResultSet resultSet = statement.executeQuery("SHOW SLAVE STATUS")) {
+                    return resultSet.next() ? nullableLong(resultSet, "Seconds_Behind_Master") : null;
+                }
+            }
+        }
+    }
+
+    private Long nullableLong(ResultSet resultSet, String column) throws SQLException {
+        long value = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : value;
+    }
+
+    public boolean hasReplicas() {
+        return !replicas.isEmpty();
+    }
+
+    /**
+     * Résumé de l'état du routage, pour diagnostic
+     * @return Une ligne par réplica suivie des compteurs de routage
+     */
+    public String describe() {
+        StringBuilder description = new StringBuilder();
+        for (Replica replica : replicas) {
+            description.append(replica.url)
+                    .append(" available=").append(replica.available)
+                    .append(" lagSeconds=").append(replica.lagSeconds)
+                    .append(' ').append(replica.pool.getStatistics())
+                    .append('\n');
+        }
+        description.append("replicaReads=").append(replicaReads.sum())
+                .append(", primaryReadsAfterWrite=").append(primaryReadsAfterWrite.sum())
+                .append(", primaryReadsNoReplica=").append(primaryReadsNoReplica.sum());
+        return description.toString();
+    }
+
+    @Override
+    public void close() {
+        if (lagMonitor != null) {
+            lagMonitor.shutdownNow();
+        }
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private static final class Replica {
+        final String url;
+        final ConnectionPool pool;
+        volatile boolean available;
+        // -1 : inconnu (réplication arrêtée, pas encore mesuré ou réplica injoignable)
+        volatile long lagSeconds = -1;
+        volatile boolean notReplicatingReported;
+
+        Replica(String url, ConnectionPool pool) {
+            this.url = url;
+            this.pool = pool;
+        }
+
+        boolean isEligible(long maxLagSeconds) {
+            return available && lagSeconds >= 0 && lagSeconds <= maxLagSeconds;
+        }
+    }
+}
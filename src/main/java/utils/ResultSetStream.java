@@ -0,0 +1,121 @@
+package utils;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lecture d'une requête sous forme de Stream, ligne par ligne, sans charger tout le résultat en mémoire.
+ * Le ResultSet est en lecture seule et en avant uniquement ; sous MySQL, la taille de fetch Integer.MIN_VALUE
+ * fait transmettre les lignes une à une par le serveur.
+ * Le Stream détient sa connexion jusqu'à sa fermeture : l'utiliser dans un try-with-resources.
+ * Connexion, statement et ResultSet sont aussi fermés dès que la dernière ligne est lue.
+ */
+public final class ResultSetStream {
+
+    private ResultSetStream() {
+    }
+
+    /**
+     * Ouvrir un Stream sur une requête
+     * @param connection Connexion empruntée, fermée avec le Stream
+     * @param sql Requête SELECT
+     * @param binder Liaison des paramètres, ou null
+     * @param mapper Conversion de chaque ligne
+     * @param <T> Type des éléments
+     * @return Stream à fermer après usage ; les erreurs de lecture sont levées en UncheckedSQLException
+     * @throws SQLException Si la requête ne peut pas être exécutée (la connexion est alors fermée)
+     */
+    public static <T> Stream<T> query(Connection connection, String sql, StatementBinder binder,
+                                      RowMapper<T> mapper) throws SQLException {
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        try {
+            statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize(connection));
+            if (binder != null) {
+                binder.bind(statement);
+            }
+            resultSet = statement.executeQuery();
+        } catch (SQLException | RuntimeException e) {
+            closeAll(e, resultSet, statement, connection);
+            throw e;
+        }
+        Cursor<T> cursor = new Cursor<>(connection, statement, resultSet, mapper);
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    private static int fetchSize(Connection connection) throws SQLException {
+        String url = connection.getMetaData().getURL();
+        return url != null && url.startsWith("jdbc:mysql:") ? Integer.MIN_VALUE : DatabaseConfig.STREAM_FETCH_SIZE;
+    }
+
+    private static void closeAll(Throwable failure, AutoCloseable... resources) {
+        for (AutoCloseable resource : resources) {
+            if (resource == null) {
+                continue;
+            }
+            try {
+                resource.close();
+            } catch (Exception e) {
+                failure.addSuppressed(e);
+            }
+        }
+    }
+
+    private static final class Cursor<T> extends Spliterators.AbstractSpliterator<T> {
+        private final Connection connection;
+        private final PreparedStatement statement;
+        private final ResultSet resultSet;
+        private final RowMapper<T> mapper;
+        private boolean closed;
+
+        Cursor(Connection connection, PreparedStatement statement, ResultSet resultSet, RowMapper<T> mapper) {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.connection = connection;
+            this.statement = statement;
+            this.resultSet = resultSet;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            T element;
+            try {
+                if (!resultSet.next()) {
+                    close();
+                    return false;
+                }
+                element = mapper.map(resultSet);
+            } catch (SQLException e) {
+                UncheckedSQLException failure = new UncheckedSQLException(e);
+                closeAll(failure, resultSet, statement, connection);
+                closed = true;
+                throw failure;
+            }
+            action.accept(element);
+            return true;
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            SQLException failure = new SQLException("Failed to close streamed result set");
+            closeAll(failure, resultSet, statement, connection);
+            if (failure.getSuppressed().length > 0) {
+                throw new UncheckedSQLException(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package utils;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Conversion de la ligne courante d'un ResultSet en objet
+ * @param <T> Type de l'objet produit
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+    T map(ResultSet resultSet) throws SQLException;
+}
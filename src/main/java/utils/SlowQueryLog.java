@@ -0,0 +1,205 @@
+package utils;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Journal des requêtes lentes, alimenté par les proxies de ConnectionPool.
+ * Chaque requête au-delà du seuil est écrite dans un fichier tournant avec ses paramètres masqués
+ * (seul leur type apparaît). Le plan d'exécution (EXPLAIN) est capturé une seule fois par empreinte,
+ * en arrière-plan sur une autre connexion du pool.
+ */
+public class SlowQueryLog implements AutoCloseable {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    // Instructions acceptées par EXPLAIN sous MySQL
+    private static final Set<String> EXPLAINABLE = Set.of("select", "insert", "update", "delete", "replace");
+
+    private final long thresholdNanos;
+    private final boolean explainEnabled;
+    private final FileHandler file;
+    private final ExecutorService explainExecutor;
+    private final Set<String> explainedFingerprints = ConcurrentHashMap.newKeySet();
+    private final LongAdder slowQueryCount = new LongAdder();
+    // Les EXPLAIN passent eux aussi par le pool : ils ne sont pas journalisés
+    private final ThreadLocal<Boolean> explaining = ThreadLocal.withInitial(() -> false);
+
+    /**
+     * @param thresholdMillis Durée à partir de laquelle une requête est journalisée
+     * @param filePath Fichier du journal ; les générations sont suffixées .0 (courante), .1, .2...
+     * @param maxFileBytes Taille d'un fichier avant rotation
+     * @param fileCount Nombre de fichiers conservés
+     * @param explainEnabled Capturer le plan d'exécution des requêtes lentes
+     * @throws IOException Si le fichier ne peut pas être ouvert
+     */
+    public SlowQueryLog(long thresholdMillis, String filePath, int maxFileBytes, int fileCount,
+                        boolean explainEnabled) throws IOException {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.explainEnabled = explainEnabled;
+
+        File parent = new File(filePath).getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create directory " + parent);
+        }
+        file = new FileHandler(filePath.replace("%", "%%") + ".%g", maxFileBytes, fileCount, true);
+        file.setEncoding("UTF-8");
+        file.setFormatter(new Formatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage() + System.lineSeparator();
+            }
+        });
+
+        // Un seul EXPLAIN à la fois ; au-delà de la file, le plan est simplement ignoré
+        explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(100), runnable -> {
+                    Thread thread = new Thread(runnable, "db-slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    boolean isSlow(long elapsedNanos) {
+        return elapsedNanos >= thresholdNanos;
+    }
+
+    /**
+     * Journaliser une requête lente
+     * @param sql Texte SQL exécuté
+     * @param elapsedNanos Durée de l'exécution
+     * @param parameters Paramètres liés (index -> valeur), utilisés pour l'EXPLAIN mais jamais écrits
+     * @param failed true si l'exécution a levé une exception
+     * @param source Pool d'où provient la connexion, utilisé pour l'EXPLAIN
+     * @param sourceUrl URL du pool, pour distinguer primaire et réplicas
+     */
+    void record(String sql, long elapsedNanos, Map<Integer, Object> parameters, boolean failed,
+                DataSource source, String sourceUrl) {
+        if (explaining.get()) {
+            return;
+        }
+        slowQueryCount.increment();
+        String fingerprint = QueryMetrics.fingerprint(sql);
+        StringBuilder entry = new StringBuilder()
+                .append(LocalDateTime.now().format(TIMESTAMP))
+                .append(" SLOW ").append(TimeUnit.NANOSECONDS.toMillis(elapsedNanos)).append(" ms")
+                .append(failed ? " FAILED" : "")
+                .append(" caller=").append(findCaller())
+                .append(" db=").append(withoutQueryString(sourceUrl))
+                .append(" thread=").append(Thread.currentThread().getName())
+                .append(System.lineSeparator())
+                .append("  sql: ").append(fingerprint);
+        if (parameters != null && !parameters.isEmpty()) {
+            entry.append(System.lineSeparator()).append("  params: ").append(redact(parameters));
+        }
+        file.publish(new LogRecord(Level.WARNING, entry.toString()));
+
+        if (explainEnabled && sql != null && isExplainable(sql) && explainedFingerprints.add(fingerprint)) {
+            Map<Integer, Object> values = parameters == null ? Map.of() : new HashMap<>(parameters);
+            explainExecutor.execute(() -> explain(sql, fingerprint, values, source));
+        }
+    }
+
+    private void explain(String sql, String fingerprint, Map<Integer, Object> parameters, DataSource source) {
+        StringBuilder plan = new StringBuilder("  EXPLAIN ").append(fingerprint);
+        explaining.set(true);
+        try (Connection connection = source.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (Map.Entry<Integer, Object> parameter : parameters.entrySet()) {
+                statement.setObject(parameter.getKey(), parameter.getValue());
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                while (resultSet.next()) {
+                    plan.append(System.lineSeparator()).append("   ");
+                    for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                        plan.append(' ').append(metaData.getColumnLabel(column))
+                                .append('=').append(singleLine(resultSet.getString(column)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            plan.append(System.lineSeparator()).append("    failed: ").append(e.getMessage());
+        } finally {
+            explaining.set(false);
+        }
+        file.publish(new LogRecord(Level.INFO, plan.toString()));
+    }
+
+    private static String singleLine(String value) {
+        return value == null ? null : value.replaceAll("\\s+", " ").trim();
+    }
+
+    private static boolean isExplainable(String sql) {
+        String trimmed = sql.stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) {
+            end++;
+        }
+        return EXPLAINABLE.contains(trimmed.substring(0, end).toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Paramètres masqués : seul le type de chaque valeur est conservé
+     */
+    static String redact(Map<Integer, Object> parameters) {
+        StringBuilder redacted = new StringBuilder();
+        parameters.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(parameter -> redacted.append('[').append(parameter.getKey()).append("]=")
+                        .append(parameter.getValue() == null ? "NULL"
+                                : "<" + parameter.getValue().getClass().getSimpleName() + ">")
+                        .append(' '));
+        return redacted.toString().trim();
+    }
+
+    /**
+     * Première méthode appelante hors de la couche JDBC (en général la méthode de service)
+     */
+    private static String findCaller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(frame -> !frame.getClassName().startsWith("utils.")
+                        && !frame.getClassName().startsWith("jdk.proxy")
+                        && !frame.getClassName().startsWith("com.sun.proxy"))
+                .findFirst()
+                .map(frame -> frame.getClassName() + "." + frame.getMethodName() + ":" + frame.getLineNumber())
+                .orElse("unknown"));
+    }
+
+    private static String withoutQueryString(String url) {
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);
+    }
+
+    public long getSlowQueryCount() {
+        return slowQueryCount.sum();
+    }
+
+    @Override
+    public void close() {
+        explainExecutor.shutdownNow();
+        file.close();
+    }
+}
@@ -0,0 +1,11 @@
+package utils;
+
+import java.sql.SQLException;
+
+/**
+ * Traitement JDBC sans valeur de retour
+ */
+@FunctionalInterface
+public interface SqlAction {
+    void run() throws SQLException;
+}
@@ -0,0 +1,12 @@
+package utils;
+
+import java.sql.SQLException;
+
+/**
+ * Traitement JDBC qui produit une valeur
+ * @param <T> Type du résultat
+ */
+@FunctionalInterface
+public interface SqlSupplier<T> {
+    T get() throws SQLException;
+}
@@ -0,0 +1,12 @@
+package utils;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Liaison des paramètres d'une requête préparée
+ */
+@FunctionalInterface
+public interface StatementBinder {
+    void bind(PreparedStatement statement) throws SQLException;
+}
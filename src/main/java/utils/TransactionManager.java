@@ -0,0 +1,205 @@
+package utils;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Transactions liées au thread courant.
+ * Dans inTransaction, MyDatabase.getConnection() et getReadConnection() renvoient la même connexion,
+ * empruntée au premier accès (un traitement long avant la première requête, comme un hachage BCrypt,
+ * ne bloque pas de connexion) et validée par un seul commit à la fin.
+ * Un inTransaction imbriqué rejoint la transaction en cours.
+ */
+public final class TransactionManager {
+
+    private static final ThreadLocal<Transaction> CURRENT = new ThreadLocal<>();
+
+    private TransactionManager() {
+    }
+
+    /**
+     * Exécuter un traitement dans une transaction
+     * @param work Le traitement ; une exception annule toute la transaction
+     * @param <T> Type du résultat
+     * @return Le résultat du traitement
+     * @throws SQLException Erreur du traitement, du commit ou du rollback
+     */
+    public static <T> T inTransaction(SqlSupplier<T> work) throws SQLException {
+        Transaction current = CURRENT.get();
+        if (current != null) {
+            try {
+                return work.get();
+            } catch (Throwable e) {
+                current.rollbackOnly = true;
+                throw e;
+            }
+        }
+
+        Transaction transaction = new Transaction();
+        CURRENT.set(transaction);
+        T result;
+        try {
+            result = work.get();
+            transaction.complete();
+        } catch (Throwable e) {
+            transaction.rollbackQuietly(e);
+            throw e;
+        } finally {
+            CURRENT.remove();
+            transaction.release();
+        }
+        transaction.runAfterCommit();
+        return result;
+    }
+
+    /**
+     * Exécuter un traitement sans résultat dans une transaction
+     * @param work Le traitement ; une exception annule toute la transaction
+     * @throws SQLException Erreur du traitement, du commit ou du rollback
+     */
+    public static void inTransaction(SqlAction work) throws SQLException {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Exécuter une action après le commit de la transaction en cours, hors transaction
+     * (immédiatement s'il n'y en a pas ; jamais si elle est annulée)
+     * @param action L'action, par exemple une invalidation de cache
+     */
+    public static void afterCommit(Runnable action) {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            action.run();
+        } else {
+            transaction.afterCommit.add(action);
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Annuler la transaction en cours à sa fin, sans lever d'exception
+     * (pour les méthodes de service qui signalent un échec par leur valeur de retour)
+     */
+    public static void setRollbackOnly() {
+        Transaction transaction = CURRENT.get();
+        if (transaction == null) {
+            throw new IllegalStateException("No transaction in progress");
+        }
+        transaction.rollbackOnly = true;
+    }
+
+    /**
+     * Connexion de la transaction du thread courant, empruntée au premier appel
+     * @param pool Pool d'où emprunter la connexion
+     * @return Une connexion que close() ne rend pas au pool, ou null hors transaction
+     */
+    static Connection currentConnection(ConnectionPool pool) throws SQLException {
+        Transaction transaction = CURRENT.get();
+        return transaction == null ? null : transaction.connection(pool);
+    }
+
+    private static final class Transaction {
+        private Connection connection;
+        private Connection view;
+        private boolean rollbackOnly;
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        Connection connection(ConnectionPool pool) throws SQLException {
+            if (view == null) {
+                Connection borrowed = pool.getConnection();
+                try {
+                    borrowed.setAutoCommit(false);
+                } catch (SQLException e) {
+                    borrowed.close();
+                    throw e;
+                }
+                connection = borrowed;
+                view = (Connection) Proxy.newProxyInstance(TransactionManager.class.getClassLoader(),
+                        new Class<?>[]{Connection.class}, new BoundConnectionHandler(borrowed));
+            }
+            return view;
+        }
+
+        void complete() throws SQLException {
+            if (connection == null) {
+                return;
+            }
+            if (rollbackOnly) {
+                connection.rollback();
+            } else {
+                connection.commit();
+            }
+        }
+
+        void runAfterCommit() {
+            if (!rollbackOnly) {
+                afterCommit.forEach(Runnable::run);
+            }
+        }
+
+        void rollbackQuietly(Throwable cause) {
+            if (connection == null) {
+                return;
+            }
+            try {
+                connection.rollback();
+            } catch (SQLException e) {
+                cause.addSuppressed(e);
+            }
+        }
+
+        void release() throws SQLException {
+            if (connection != null) {
+                // Le pool rétablit l'autocommit à la restitution
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * Vue de la connexion de transaction : close() est ignoré et la fin de transaction est réservée au gestionnaire
+     */
+    private static final class BoundConnectionHandler implements InvocationHandler {
+        private final Connection connection;
+
+        BoundConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    return null;
+                case "setAutoCommit":
+                case "commit":
+                case "rollback":
+                case "setSavepoint":
+                case "releaseSavepoint":
+                    throw new SQLException("Transaction is managed by TransactionManager: " + method.getName());
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package utils;
+
+import java.sql.SQLException;
+
+/**
+ * SQLException levée depuis un contexte qui n'accepte pas d'exception vérifiée (consommation d'un Stream)
+ */
+public class UncheckedSQLException extends RuntimeException {
+
+    public UncheckedSQLException(SQLException cause) {
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized SQLException getCause() {
+        return (SQLException) super.getCause();
+    }
+}
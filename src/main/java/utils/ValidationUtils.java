@@ -12,6 +12,9 @@ public class ValidationUtils {
             "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$"
     );
 
+    // Length of the user.email column
+    public static final int EMAIL_MAX_LENGTH = 180;
+
     // Regex for phone number validation (exactly 8 digits)
     private static final Pattern PHONE_PATTERN = Pattern.compile(
             "^[0-9]{8}$"
@@ -110,6 +113,9 @@ public class ValidationUtils {
         if (!isValidEmail(email)) {
             return "Please enter a valid email address";
         }
+        if (email.length() > EMAIL_MAX_LENGTH) {
+            return "Email must be at most " + EMAIL_MAX_LENGTH + " characters";
+        }
         return null;
     }
 
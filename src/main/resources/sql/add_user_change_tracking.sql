@@ -0,0 +1,10 @@
+-- Suivi des modifications pour le rafraîchissement incrémental de la liste des utilisateurs :
+-- date de dernière écriture de chaque ligne, et trace des utilisateurs supprimés
+ALTER TABLE user ADD COLUMN updated_at DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3);
+CREATE INDEX idx_user_updated_at ON user (updated_at);
+CREATE TABLE IF NOT EXISTS user_tombstone (
+    user_id INT NOT NULL,
+    deleted_at DATETIME(3) NOT NULL,
+    PRIMARY KEY (user_id),
+    INDEX idx_user_tombstone_deleted_at (deleted_at)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -0,0 +1,4 @@
+-- Index de la liste paginée des utilisateurs (tri et curseur sur name, id)
+CREATE INDEX idx_user_name_id ON user (name, id);
+-- Filtre par statut (actifs / bloqués) suivi du même tri
+CREATE INDEX idx_user_blocked_name_id ON user (is_blocked, name, id);
@@ -0,0 +1,3 @@
+-- Unicité du téléphone garantie par la base, comme celle de l'email (UNIQ_8D93D649E7927C74) :
+-- l'inscription insère directement et traduit la violation de contrainte, sans vérification préalable
+CREATE UNIQUE INDEX uniq_user_phone_number ON user (phone_number);
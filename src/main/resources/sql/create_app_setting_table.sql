@@ -0,0 +1,7 @@
+-- Réglages partagés par toutes les instances de l'application (ex. coût BCrypt calibré : bcrypt.cost)
+CREATE TABLE IF NOT EXISTS app_setting (
+    name VARCHAR(64) NOT NULL,
+    value VARCHAR(255) NOT NULL,
+    updated_at DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    PRIMARY KEY (name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
@@ -4,6 +4,7 @@ CREATE TABLE contact (
     user_email VARCHAR(255) NOT NULL,
     subject VARCHAR(255) NOT NULL,
     content TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'pending', -- approved, pending, rejected
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     INDEX idx_user_email (user_email),
     INDEX idx_created_at (created_at)
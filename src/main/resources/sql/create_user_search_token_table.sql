@@ -0,0 +1,12 @@
+-- Index de recherche des utilisateurs, tenu à jour par UserSearchIndex
+-- kind 'W' : mot entier (début de mot), kind 'S' : suffixe d'au moins 3 caractères (milieu de mot)
+-- field : 1 = nom, 2 = partie locale de l'email, 3 = chiffres du téléphone
+CREATE TABLE IF NOT EXISTS user_search_token (
+  kind CHAR(1) NOT NULL,
+  token VARCHAR(64) NOT NULL,
+  user_id INT NOT NULL,
+  field TINYINT NOT NULL,
+  PRIMARY KEY (kind, token, user_id, field),
+  INDEX idx_user_search_token_user (user_id),
+  CONSTRAINT fk_user_search_token_user FOREIGN KEY (user_id) REFERENCES user (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_bin;
@@ -0,0 +1,12 @@
+-- Sessions partagées entre instances de l'application (SessionStore, -Dsession.store=mysql)
+-- token_hash : empreinte SHA-256 (hexadécimal) de l'identifiant de session, jamais l'identifiant lui-même
+CREATE TABLE IF NOT EXISTS user_session (
+  token_hash CHAR(64) NOT NULL,
+  user_id INT NOT NULL,
+  created_at DATETIME(3) NOT NULL,
+  last_access_at DATETIME(3) NOT NULL,
+  PRIMARY KEY (token_hash),
+  INDEX idx_user_session_user (user_id),
+  INDEX idx_user_session_last_access (last_access_at),
+  CONSTRAINT fk_user_session_user FOREIGN KEY (user_id) REFERENCES user (id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;